@@ -58,6 +58,11 @@ public enum Charset {
         length, charset);
   }
 
+  // uses the loaded charset, avoiding to look it up by name on each conversion
+  public byte[] getBytes(String text) {
+    return text.getBytes(charset);
+  }
+
   public String toHex(byte[] b) {
     return toHex(b, 0, b.length);
   }
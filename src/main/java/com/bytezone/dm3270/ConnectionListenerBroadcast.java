@@ -4,7 +4,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
-public class ConnectionListenerBroadcast implements ConnectionListener {
+public class ConnectionListenerBroadcast implements ConnectionPhaseListener {
 
   private final Set<ConnectionListener> connectionListeners = ConcurrentHashMap.newKeySet();
 
@@ -31,6 +31,15 @@ public class ConnectionListenerBroadcast implements ConnectionListener {
     notify(ConnectionListener::onConnectionClosed);
   }
   
+  @Override
+  public void onConnectionPhase(ConnectionPhase phase, long elapsedNanos) {
+    notify(connectionListener -> {
+      if (connectionListener instanceof ConnectionPhaseListener) {
+        ((ConnectionPhaseListener) connectionListener).onConnectionPhase(phase, elapsedNanos);
+      }
+    });
+  }
+
   private void notify(Consumer<? super ConnectionListener> event) {
     connectionListeners.forEach(event);
   }
@@ -0,0 +1,54 @@
+package com.bytezone.dm3270;
+
+/**
+ * Phases of the establishment of a connection to a terminal server, in the order they usually
+ * happen.
+ * <p>
+ * Not all the phases are reached by every connection: TLS is only negotiated by secure
+ * connections, BIND is only sent by servers using TN3270E, and terminal type, binary and end of
+ * record options are only negotiated by servers not using TN3270E.
+ */
+public enum ConnectionPhase {
+
+  /**
+   * Connection requested by the client.
+   */
+  CONNECT_STARTED,
+  /**
+   * TCP connection established.
+   */
+  TCP_CONNECTED,
+  /**
+   * TLS handshake completed.
+   */
+  TLS_HANDSHAKE_COMPLETED,
+  /**
+   * Terminal type sent to the server.
+   */
+  TERMINAL_TYPE,
+  /**
+   * Binary transmission option agreed with the server.
+   */
+  BINARY,
+  /**
+   * End of record option agreed with the server.
+   */
+  END_OF_RECORD,
+  /**
+   * TN3270E device type agreed with the server.
+   */
+  TN3270E_DEVICE_TYPE,
+  /**
+   * TN3270E functions agreed with the server.
+   */
+  TN3270E_FUNCTIONS,
+  /**
+   * BIND image received from the server.
+   */
+  BIND_RECEIVED,
+  /**
+   * First screen received, with the keyboard unlocked.
+   */
+  FIRST_SCREEN
+
+}
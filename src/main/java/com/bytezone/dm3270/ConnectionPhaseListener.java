@@ -0,0 +1,19 @@
+package com.bytezone.dm3270;
+
+/**
+ * {@link ConnectionListener} which is also notified of each phase reached while establishing the
+ * connection.
+ * <p>
+ * Just add it as any other connection listener to the {@link TerminalClient}.
+ */
+public interface ConnectionPhaseListener extends ConnectionListener {
+
+  /**
+   * Method invoked the first time each phase is reached after a connection is requested.
+   *
+   * @param phase the phase reached.
+   * @param elapsedNanos nanos since the connection was requested.
+   */
+  void onConnectionPhase(ConnectionPhase phase, long elapsedNanos);
+
+}
@@ -0,0 +1,74 @@
+package com.bytezone.dm3270;
+
+/**
+ * Snapshot of the times at which the phases of a connection were reached.
+ * <p>
+ * All times are measured from the connection request ({@link ConnectionPhase#CONNECT_STARTED}),
+ * so the time spent on each phase is the difference with the previous phase reached.
+ */
+public final class ConnectionPhases {
+
+  private static final ConnectionPhase[] NEGOTIATION_PHASES = {ConnectionPhase.TERMINAL_TYPE,
+      ConnectionPhase.BINARY, ConnectionPhase.END_OF_RECORD, ConnectionPhase.TN3270E_DEVICE_TYPE,
+      ConnectionPhase.TN3270E_FUNCTIONS};
+
+  private final long[] elapsedNanos;
+
+  /**
+   * Creates a snapshot from the times at which each phase was reached.
+   *
+   * @param phaseNanos the {@link System#nanoTime()} at which each phase was reached, indexed by
+   * the phase ordinal, or 0 for the phases not reached.
+   */
+  public ConnectionPhases(long[] phaseNanos) {
+    long start = phaseNanos[ConnectionPhase.CONNECT_STARTED.ordinal()];
+    elapsedNanos = new long[phaseNanos.length];
+    for (int i = 0; i < phaseNanos.length; i++) {
+      elapsedNanos[i] = start == 0 || phaseNanos[i] == 0 ? -1 : phaseNanos[i] - start;
+    }
+  }
+
+  public boolean isReached(ConnectionPhase phase) {
+    return elapsedNanos[phase.ordinal()] >= 0;
+  }
+
+  /**
+   * Gets the time at which a phase was reached.
+   *
+   * @param phase the phase to get the time for.
+   * @return the nanos from the connection request until the phase was reached, or -1 if it was
+   * not reached.
+   */
+  public long getElapsedNanos(ConnectionPhase phase) {
+    return elapsedNanos[phase.ordinal()];
+  }
+
+  /**
+   * Gets the time at which telnet negotiation was completed.
+   *
+   * @return the nanos from the connection request until the last negotiated option was agreed,
+   * or -1 if no option was negotiated.
+   */
+  public long getNegotiationCompletedNanos() {
+    long ret = -1;
+    for (ConnectionPhase phase : NEGOTIATION_PHASES) {
+      ret = Math.max(ret, elapsedNanos[phase.ordinal()]);
+    }
+    return ret;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder str = new StringBuilder("{");
+    for (ConnectionPhase phase : ConnectionPhase.values()) {
+      if (isReached(phase)) {
+        if (str.length() > 1) {
+          str.append(", ");
+        }
+        str.append(String.format("%s=%,d us", phase, elapsedNanos[phase.ordinal()] / 1000));
+      }
+    }
+    return str.append("}").toString();
+  }
+
+}
@@ -0,0 +1,108 @@
+package com.bytezone.dm3270;
+
+/**
+ * Outcome and timings of a connection started through a {@link ConnectionScheduler}.
+ * <p>
+ * Connection and first screen times are measured from the start of the last attempt.
+ */
+public class ConnectionResult {
+
+  private final int attempts;
+  private final long totalNanos;
+  private final long queueNanos;
+  private final long connectNanos;
+  private final long firstScreenNanos;
+  private final ConnectionPhases phases;
+  private final Throwable error;
+
+  ConnectionResult(int attempts, long totalNanos, long queueNanos, long connectNanos,
+      long firstScreenNanos, ConnectionPhases phases, Throwable error) {
+    this.attempts = attempts;
+    this.totalNanos = totalNanos;
+    this.queueNanos = queueNanos;
+    this.connectNanos = connectNanos;
+    this.firstScreenNanos = firstScreenNanos;
+    this.phases = phases;
+    this.error = error;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  /**
+   * Gets the total time of the connection.
+   *
+   * @return the nanos from the connection request to the first screen (or the last failure),
+   * including all the attempts, backoffs and waits for the scheduler.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * Gets the time spent waiting for the scheduler.
+   *
+   * @return the nanos spent by all the attempts waiting for a rate token and a free connection
+   * slot.
+   */
+  public long getQueueNanos() {
+    return queueNanos;
+  }
+
+  /**
+   * Gets the time to establish the connection.
+   *
+   * @return the nanos from the start of the last attempt until the socket was connected, or -1 if
+   * it was not.
+   */
+  public long getConnectNanos() {
+    return connectNanos;
+  }
+
+  /**
+   * Gets the time to get the first screen.
+   *
+   * @return the nanos from the start of the last attempt until the keyboard was first unlocked,
+   * or -1 if it was not.
+   */
+  public long getFirstScreenNanos() {
+    return firstScreenNanos;
+  }
+
+  /**
+   * Gets the phases reached by the last attempt.
+   *
+   * @return the phases of the connection of the last attempt, which tell apart the time spent on
+   * the TCP connection, TLS handshake, telnet negotiation and first screen.
+   */
+  public ConnectionPhases getConnectionPhases() {
+    return phases;
+  }
+
+  public boolean isSuccessful() {
+    return error == null;
+  }
+
+  /**
+   * Gets the error of the last attempt.
+   *
+   * @return the error which failed the last attempt, or null if the connection succeeded.
+   */
+  public Throwable getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s after %d attempts: total=%,d us, queue=%,d us, connect=%,d us, "
+            + "firstScreen=%,d us, phases=%s", error == null ? "OK" : "FAILED (" + error + ")",
+        attempts, totalNanos / 1000, queueNanos / 1000, toMicros(connectNanos),
+        toMicros(firstScreenNanos), phases);
+  }
+
+  private static long toMicros(long nanos) {
+    return nanos < 0 ? -1 : nanos / 1000;
+  }
+
+}
@@ -0,0 +1,408 @@
+package com.bytezone.dm3270;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the rate and concurrency of the connections of many terminal clients to a server.
+ * <p>
+ * Connections are started at most at the configured rate (with a token bucket which allows short
+ * bursts), and only while the number of connections in progress (from the connection request until
+ * the first screen with the keyboard unlocked) is below a maximum. Each connection can be delayed a
+ * random jitter, so connections granted together don't hit the server at once. Failed connections
+ * (errors, or no first screen before a timeout) are retried after an exponential backoff.
+ * <p>
+ * The result of each connection includes the time it waited for the scheduler, and the times to
+ * establish the connection, to get the first screen and to reach each {@link ConnectionPhase}, so
+ * delays caused by the scheduler can be told apart from those of the server.
+ */
+public class ConnectionScheduler {
+
+  private final double permitsPerNano;
+  private final int burst;
+  private final int maxInFlight;
+  private final long jitterMillis;
+  private final int maxRetries;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final long firstScreenTimeoutMillis;
+  private final WaitScheduler scheduler;
+  private final Executor executor;
+
+  private final Queue<Request> pending = new ArrayDeque<>();
+  private int inFlight;
+  private double tokens;
+  private long lastRefillNanos = System.nanoTime();
+  private boolean refillScheduled;
+
+  private ConnectionScheduler(Builder builder) {
+    permitsPerNano = builder.connectionsPerSecond / TimeUnit.SECONDS.toNanos(1);
+    burst = builder.burst;
+    maxInFlight = builder.maxInFlight;
+    jitterMillis = builder.jitterMillis;
+    maxRetries = builder.maxRetries;
+    initialBackoffMillis = builder.initialBackoffMillis;
+    maxBackoffMillis = builder.maxBackoffMillis;
+    firstScreenTimeoutMillis = builder.firstScreenTimeoutMillis;
+    scheduler = builder.waitScheduler;
+    executor = builder.executor;
+    tokens = burst;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Connects a client to a terminal server when the scheduler allows it.
+   *
+   * @param client the client to connect. On failed attempts it is disconnected before retrying.
+   * @param host host name of the terminal server.
+   * @param port port where the terminal server is listening for connections.
+   * @return a future completed with the result of the connection once the first screen is
+   * received, or all the attempts failed. It is never completed exceptionally: failures are
+   * reported in the result.
+   */
+  public CompletableFuture<ConnectionResult> connect(TerminalClient client, String host,
+      int port) {
+    Request request = new Request(client, host, port);
+    enqueue(request);
+    return request.future;
+  }
+
+  /**
+   * Gets the number of connections in progress.
+   *
+   * @return the number of connections started which have not yet got the first screen nor
+   * failed.
+   */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Gets the number of connections waiting to be started.
+   *
+   * @return the number of connection requests (and retries) waiting for the scheduler.
+   */
+  public synchronized int getPending() {
+    return pending.size();
+  }
+
+  private void enqueue(Request request) {
+    request.queuedAt = System.nanoTime();
+    synchronized (this) {
+      pending.add(request);
+    }
+    dispatch();
+  }
+
+  private void dispatch() {
+    List<Request> granted = new ArrayList<>();
+    synchronized (this) {
+      refill();
+      while (!pending.isEmpty() && inFlight < maxInFlight && tokens >= 1) {
+        tokens--;
+        inFlight++;
+        granted.add(pending.poll());
+      }
+      // slots are available, but no tokens, so wait for the next one
+      if (!pending.isEmpty() && inFlight < maxInFlight && !refillScheduled) {
+        refillScheduled = true;
+        long waitMillis = (long) Math.ceil((1 - tokens) / permitsPerNano / 1_000_000);
+        scheduler.schedule(this::onRefill, Math.max(waitMillis, 1));
+      }
+    }
+    for (Request request : granted) {
+      long delayMillis = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1)
+          : 0;
+      runLater(request::start, delayMillis);
+    }
+  }
+
+  private void refill() {
+    if (permitsPerNano <= 0) {
+      tokens = Double.MAX_VALUE;
+      return;
+    }
+    long now = System.nanoTime();
+    tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+    lastRefillNanos = now;
+  }
+
+  private void onRefill() {
+    synchronized (this) {
+      refillScheduled = false;
+    }
+    executor.execute(this::dispatch);
+  }
+
+  private void release() {
+    synchronized (this) {
+      inFlight--;
+    }
+    dispatch();
+  }
+
+  // the timer only hands tasks over to the executor, since its tasks must not block
+  private void runLater(Runnable task, long delayMillis) {
+    if (delayMillis <= 0) {
+      executor.execute(task);
+    } else {
+      scheduler.schedule(() -> executor.execute(task), delayMillis);
+    }
+  }
+
+  private long getBackoffMillis(int failedAttempts) {
+    long backoff = initialBackoffMillis << Math.min(failedAttempts - 1, 30);
+    backoff = backoff < 0 ? maxBackoffMillis : Math.min(backoff, maxBackoffMillis);
+    return backoff + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1)
+        : 0);
+  }
+
+  private final class Request {
+
+    private final TerminalClient client;
+    private final String host;
+    private final int port;
+    private final CompletableFuture<ConnectionResult> future = new CompletableFuture<>();
+    private final long createdAt = System.nanoTime();
+    private volatile long queuedAt;
+    private long queueNanos;
+    private int attempts;
+
+    private Request(TerminalClient client, String host, int port) {
+      this.client = client;
+      this.host = host;
+      this.port = port;
+    }
+
+    private void start() {
+      queueNanos += System.nanoTime() - queuedAt;
+      attempts++;
+      new Attempt(this).start();
+    }
+
+    private void failed(Attempt attempt, Throwable error) {
+      executor.execute(() -> {
+        if (attempt.connectStarted) {
+          try {
+            client.disconnect();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        release();
+        if (attempts <= maxRetries) {
+          runLater(() -> enqueue(this), getBackoffMillis(attempts));
+        } else {
+          complete(attempt, error);
+        }
+      });
+    }
+
+    private void succeeded(Attempt attempt) {
+      release();
+      complete(attempt, null);
+    }
+
+    private void complete(Attempt attempt, Throwable error) {
+      future.complete(new ConnectionResult(attempts, System.nanoTime() - createdAt, queueNanos,
+          attempt.connectNanos, attempt.firstScreenNanos, client.getConnectionPhases(), error));
+    }
+
+  }
+
+  private final class Attempt implements ConnectionListener {
+
+    private final Request request;
+    private final AtomicBoolean done = new AtomicBoolean();
+    private volatile long startNanos;
+    private volatile long connectNanos = -1;
+    private volatile long firstScreenNanos = -1;
+    private volatile CompletableFuture<Void> firstScreen;
+    private volatile boolean connectStarted;
+
+    private Attempt(Request request) {
+      this.request = request;
+    }
+
+    private void start() {
+      startNanos = System.nanoTime();
+      request.client.addConnectionListener(this);
+      try {
+        connectStarted = true;
+        request.client.connect(request.host, request.port);
+        firstScreen = request.client.waitForKeyboardUnlock(0, firstScreenTimeoutMillis);
+      } catch (RuntimeException e) {
+        fail(e);
+        return;
+      }
+      firstScreen.whenComplete((r, e) -> {
+        if (e != null) {
+          fail(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        } else if (finish()) {
+          firstScreenNanos = System.nanoTime() - startNanos;
+          request.succeeded(this);
+        }
+      });
+    }
+
+    @Override
+    public void onConnection() {
+      connectNanos = System.nanoTime() - startNanos;
+    }
+
+    @Override
+    public void onException(Exception ex) {
+      fail(ex);
+    }
+
+    @Override
+    public void onConnectionClosed() {
+      fail(new IllegalStateException("Connection closed by server before first screen"));
+    }
+
+    private void fail(Throwable error) {
+      if (finish()) {
+        CompletableFuture<Void> wait = firstScreen;
+        if (wait != null) {
+          wait.cancel(false);
+        }
+        request.failed(this, error);
+      }
+    }
+
+    private boolean finish() {
+      if (!done.compareAndSet(false, true)) {
+        return false;
+      }
+      request.client.removeConnectionListener(this);
+      return true;
+    }
+
+  }
+
+  /**
+   * Builder of {@link ConnectionScheduler} instances.
+   */
+  public static class Builder {
+
+    private double connectionsPerSecond;
+    private int burst = 1;
+    private int maxInFlight = Integer.MAX_VALUE;
+    private long jitterMillis;
+    private int maxRetries;
+    private long initialBackoffMillis = 1000;
+    private long maxBackoffMillis = 30000;
+    private long firstScreenTimeoutMillis = 60000;
+    private WaitScheduler waitScheduler = WaitScheduler.getDefault();
+    private Executor executor = ForkJoinPool.commonPool();
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the rate at which connections are started.
+     *
+     * @param connectionsPerSecond number of connections started per second. If not specified
+     * (or 0), the rate is not limited.
+     * @param burst number of connections which can be started at once after an idle period. By
+     * default 1.
+     * @return this builder.
+     */
+    public Builder rate(double connectionsPerSecond, int burst) {
+      if (burst <= 0) {
+        throw new IllegalArgumentException("Burst must be positive: " + burst);
+      }
+      this.connectionsPerSecond = connectionsPerSecond;
+      this.burst = burst;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of connections in progress.
+     *
+     * @param maxInFlight maximum number of connections started which have not yet got the first
+     * screen nor failed. By default not limited.
+     * @return this builder.
+     */
+    public Builder maxInFlight(int maxInFlight) {
+      if (maxInFlight <= 0) {
+        throw new IllegalArgumentException("Max in flight must be positive: " + maxInFlight);
+      }
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * Sets the maximum random delay added to each connection and retry.
+     *
+     * @param jitterMillis maximum delay in millis. By default 0.
+     * @return this builder.
+     */
+    public Builder jitterMillis(long jitterMillis) {
+      this.jitterMillis = jitterMillis;
+      return this;
+    }
+
+    /**
+     * Sets the retries of failed connections.
+     *
+     * @param maxRetries number of retries after the first failed attempt. By default 0.
+     * @param initialBackoffMillis delay before the first retry, which is doubled on each following
+     * one. By default 1 second.
+     * @param maxBackoffMillis maximum delay before a retry. By default 30 seconds.
+     * @return this builder.
+     */
+    public Builder retries(int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+      this.maxRetries = maxRetries;
+      this.initialBackoffMillis = initialBackoffMillis;
+      this.maxBackoffMillis = maxBackoffMillis;
+      return this;
+    }
+
+    /**
+     * Sets the time to wait for the first screen after starting a connection.
+     *
+     * @param firstScreenTimeoutMillis maximum number of millis from the connection request until
+     * the keyboard is unlocked. By default 60 seconds.
+     * @return this builder.
+     */
+    public Builder firstScreenTimeoutMillis(long firstScreenTimeoutMillis) {
+      this.firstScreenTimeoutMillis = firstScreenTimeoutMillis;
+      return this;
+    }
+
+    public Builder waitScheduler(WaitScheduler waitScheduler) {
+      this.waitScheduler = waitScheduler;
+      return this;
+    }
+
+    /**
+     * Sets the executor used to start and disconnect the connections.
+     *
+     * @param executor the executor to use. By default {@link ForkJoinPool#commonPool()}.
+     * @return this builder.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    public ConnectionScheduler build() {
+      return new ConnectionScheduler(this);
+    }
+
+  }
+
+}
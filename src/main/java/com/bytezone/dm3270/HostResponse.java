@@ -0,0 +1,104 @@
+package com.bytezone.dm3270;
+
+/**
+ * Outcome and timing of a request sent to the host with TN3270E, correlated by its sequence
+ * number.
+ * <p>
+ * Times are measured from the request being written to the connection until the records of the
+ * host are read from it, so they don't include the time spent processing the records.
+ */
+public final class HostResponse {
+
+  /**
+   * How the request was completed.
+   */
+  public enum Outcome {
+    /**
+     * The host sent a positive response for the request sequence number.
+     */
+    POSITIVE,
+    /**
+     * The host sent a negative response for the request sequence number.
+     */
+    NEGATIVE,
+    /**
+     * No response was requested, and the host sent the data which unlocked the keyboard.
+     */
+    DATA
+  }
+
+  private final int sequenceNumber;
+  private final Outcome outcome;
+  private final long latencyNanos;
+  private final long firstRecordNanos;
+  private final int records;
+  private final int responseCode;
+
+  public HostResponse(int sequenceNumber, Outcome outcome, long latencyNanos, long firstRecordNanos,
+      int records, int responseCode) {
+    this.sequenceNumber = sequenceNumber;
+    this.outcome = outcome;
+    this.latencyNanos = latencyNanos;
+    this.firstRecordNanos = firstRecordNanos;
+    this.records = records;
+    this.responseCode = responseCode;
+  }
+
+  public int getSequenceNumber() {
+    return sequenceNumber;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Gets the time the host took to complete the request.
+   *
+   * @return the nanos from the request until the response, or the record unlocking the keyboard,
+   * was read.
+   */
+  public long getLatencyNanos() {
+    return latencyNanos;
+  }
+
+  /**
+   * Gets the time the host took to send the first data of the request.
+   *
+   * @return the nanos from the request until the first data record was read, or -1 if no data was
+   * received.
+   */
+  public long getFirstRecordNanos() {
+    return firstRecordNanos;
+  }
+
+  /**
+   * Gets the number of data records received while the request was the oldest one in flight.
+   * <p>
+   * Data records sent by the host carry its own sequence numbers, so they are attributed to the
+   * oldest request waiting for completion.
+   *
+   * @return the number of data records.
+   */
+  public int getRecords() {
+    return records;
+  }
+
+  /**
+   * Gets the code sent by the host in the response.
+   *
+   * @return the response code (like 0x00 for device end in positive responses, or the reason of
+   * negative responses), or -1 if the request was not completed by a response.
+   */
+  public int getResponseCode() {
+    return responseCode;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("seq %d: %s, latency=%,d us, firstRecord=%,d us, records=%d, code=%d",
+        sequenceNumber, outcome, latencyNanos / 1000,
+        firstRecordNanos < 0 ? -1 : firstRecordNanos / 1000, records, responseCode);
+  }
+
+}
@@ -0,0 +1,15 @@
+package com.bytezone.dm3270;
+
+/**
+ * Interface to be invoked when a request sent to the host with TN3270E is completed.
+ */
+public interface HostResponseListener {
+
+  /**
+   * Method invoked when the host completes a request.
+   *
+   * @param response outcome and timing of the request.
+   */
+  void onHostResponse(HostResponse response);
+
+}
@@ -0,0 +1,131 @@
+package com.bytezone.dm3270;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Set of field texts to be set in the screen and sent to the server with an Action ID.
+ * <p>
+ * All the fields are located in the screen before setting any text, and the cursor is only moved
+ * once, after the last field, so setting many fields this way is cheaper than setting them one
+ * by one. Transactions are created with {@link TerminalClient#newInputTransaction()}.
+ */
+public class InputTransaction {
+
+  private final TerminalClient client;
+  private final List<FieldInput> inputs = new ArrayList<>();
+
+  InputTransaction(TerminalClient client) {
+    this.client = client;
+  }
+
+  /**
+   * Set the text of the field next to a label.
+   *
+   * @param label the text of the label.
+   * @param text the text to set on the field.
+   * @return this transaction.
+   */
+  public InputTransaction setFieldTextByLabel(String label, String text) {
+    inputs.add(FieldInput.byLabel(label, text, false));
+    return this;
+  }
+
+  /**
+   * Set the text of the field at the given position.
+   *
+   * @param row row number where to set the field text. First row is 1.
+   * @param column column number where to set the field text. First column is 1.
+   * @param text the text to set on the field.
+   * @return this transaction.
+   */
+  public InputTransaction setFieldTextByCoord(int row, int column, String text) {
+    inputs.add(FieldInput.byCoord(row, column, text));
+    return this;
+  }
+
+  /**
+   * Set the text of an unprotected field.
+   *
+   * @param index position of the field among the unprotected fields of the screen. First field
+   * is 0.
+   * @param text the text to set on the field.
+   * @return this transaction.
+   */
+  public InputTransaction setFieldTextByIndex(int index, String text) {
+    inputs.add(FieldInput.byIndex(index, text));
+    return this;
+  }
+
+  /**
+   * Set the texts of the fields and send an Action ID.
+   *
+   * @param aid Action ID to send. For example Enter.
+   * @param name Name of the action sent.
+   * @throws IllegalArgumentException if any of the fields is not found. No text is set then.
+   */
+  public void send(byte aid, String name) {
+    client.sendInputTransaction(getInputs(), aid, name);
+  }
+
+  /**
+   * Set the texts of the fields and send an Action ID, in the session executor when one is set.
+   *
+   * @param aid Action ID to send. For example Enter.
+   * @param name Name of the action sent.
+   * @return a future completed when the action has been sent.
+   * @see TerminalClient#setSessionExecutor(java.util.concurrent.Executor)
+   */
+  public CompletableFuture<Void> sendAsync(byte aid, String name) {
+    return client.sendInputTransactionAsync(getInputs(), aid, name);
+  }
+
+  private List<FieldInput> getInputs() {
+    return Collections.unmodifiableList(new ArrayList<>(inputs));
+  }
+
+  static final class FieldInput {
+
+    enum Target {
+      LABEL, COORD, INDEX
+    }
+
+    final Target target;
+    final String label;
+    final int row;
+    final int column;
+    final int index;
+    final String text;
+    // when set, the position of the field found by label is kept and reused while the field at
+    // that position is still an unprotected one right after a field containing the label
+    final boolean keepsLabelPosition;
+    volatile int labelPosition = -1;
+
+    private FieldInput(Target target, String label, int row, int column, int index,
+        String text, boolean keepsLabelPosition) {
+      this.target = target;
+      this.label = label;
+      this.row = row;
+      this.column = column;
+      this.index = index;
+      this.text = text;
+      this.keepsLabelPosition = keepsLabelPosition;
+    }
+
+    static FieldInput byLabel(String label, String text, boolean keepsLabelPosition) {
+      return new FieldInput(Target.LABEL, label, 0, 0, 0, text, keepsLabelPosition);
+    }
+
+    static FieldInput byCoord(int row, int column, String text) {
+      return new FieldInput(Target.COORD, null, row, column, 0, text, false);
+    }
+
+    static FieldInput byIndex(int index, String text) {
+      return new FieldInput(Target.INDEX, null, 0, 0, index, text, false);
+    }
+
+  }
+
+}
@@ -0,0 +1,144 @@
+package com.bytezone.dm3270;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed memory histogram of latencies, which can be recorded concurrently from many threads.
+ * <p>
+ * Like HdrHistogram, values are counted in buckets whose width grows with the value, so all
+ * values from 1 microsecond to more than an hour are tracked with a relative error below 3% in
+ * less than 8 KB, and recording a value costs a few atomic increments. Values above the trackable
+ * range are counted as the maximum trackable value.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+  private static final long MAX_MICROS = (1L << 32) - 1;
+  private static final int BUCKET_COUNT = indexOf(MAX_MICROS) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalMicros = new AtomicLong();
+  private final AtomicLong minMicros = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  /*
+   * Values below SUB_BUCKET_COUNT get a bucket each. Above that, each power of two is split in
+   * SUB_BUCKET_HALF_COUNT buckets, so the bucket width is at most 1/32 of its values.
+   */
+  private static int indexOf(long micros) {
+    if (micros < SUB_BUCKET_COUNT) {
+      return (int) micros;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BUCKET_BITS - 1);
+    return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) (micros >>> shift)
+        - SUB_BUCKET_HALF_COUNT;
+  }
+
+  private static long highestMicrosOf(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int subIndex = index - SUB_BUCKET_COUNT;
+    int shift = subIndex / SUB_BUCKET_HALF_COUNT + 1;
+    long lowest = (long) (subIndex % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  public void recordNanos(long nanos) {
+    long micros = Math.min(Math.max(nanos / 1000, 0), MAX_MICROS);
+    counts.incrementAndGet(indexOf(micros));
+    totalMicros.addAndGet(micros);
+    minMicros.accumulateAndGet(micros, Math::min);
+    maxMicros.accumulateAndGet(micros, Math::max);
+    count.incrementAndGet();
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Gets the minimum recorded value.
+   *
+   * @return the minimum value in nanos, with microsecond resolution, or 0 if no value has been
+   * recorded.
+   */
+  public long getMinNanos() {
+    long min = minMicros.get();
+    return min == Long.MAX_VALUE ? 0 : min * 1000;
+  }
+
+  /**
+   * Gets the maximum recorded value.
+   *
+   * @return the maximum value in nanos, with microsecond resolution, or 0 if no value has been
+   * recorded.
+   */
+  public long getMaxNanos() {
+    return maxMicros.get() * 1000;
+  }
+
+  /**
+   * Gets the mean of the recorded values.
+   *
+   * @return the mean in nanos, with microsecond resolution, or 0 if no value has been recorded.
+   */
+  public long getMeanNanos() {
+    long n = count.get();
+    return n == 0 ? 0 : totalMicros.get() / n * 1000;
+  }
+
+  /**
+   * Gets the value below which a percentage of the recorded values fall.
+   *
+   * @param percentile the percentage of values, from 0 to 100.
+   * @return the highest value in nanos equivalent (within the histogram precision) to the one
+   * at the given percentile, or 0 if no value has been recorded.
+   */
+  public long getPercentileNanos(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+    long max = maxMicros.get();
+    long accumulated = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      accumulated += counts.get(i);
+      if (accumulated >= target) {
+        return Math.min(highestMicrosOf(i), max) * 1000;
+      }
+    }
+    return max * 1000;
+  }
+
+  /**
+   * Clears all the recorded values, for example to discard the ones recorded while warming up.
+   * <p>
+   * Values recorded concurrently may be partially cleared.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    totalMicros.set(0);
+    minMicros.set(Long.MAX_VALUE);
+    maxMicros.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d, mean=%,d us, p50=%,d us, p90=%,d us, p99=%,d us, max=%,d us",
+        getCount(), getMeanNanos() / 1000, getPercentileNanos(50) / 1000,
+        getPercentileNanos(90) / 1000, getPercentileNanos(99) / 1000, getMaxNanos() / 1000);
+  }
+
+}
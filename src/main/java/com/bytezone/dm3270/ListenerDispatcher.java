@@ -0,0 +1,86 @@
+package com.bytezone.dm3270;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the listeners of terminal clients in a shared executor, instead of in the thread which
+ * processes the server data.
+ * <p>
+ * Each client using the dispatcher queues its events, and they are run in order, one at a time,
+ * on the given executor, so a slow listener doesn't delay reading from the connection. Events
+ * which only reflect the latest state are coalesced while queued: consecutive cursor moves are
+ * notified as a single move from the first to the last position, and consecutive screen changes
+ * as a single change. Since listeners run after the screen may have changed again, they should
+ * use {@link TerminalClient#getScreenSnapshot()} to read the screen.
+ * <p>
+ * The number of queued events of each client is limited, and the {@link OverflowPolicy} decides
+ * what to do when the limit is reached.
+ */
+public class ListenerDispatcher {
+
+  public static final int DEFAULT_MAX_QUEUED_EVENTS = 1024;
+
+  private final Executor executor;
+  private final int maxQueuedEvents;
+  private final OverflowPolicy overflowPolicy;
+  private final AtomicLong discardedEvents = new AtomicLong();
+
+  /**
+   * Action taken when an event is notified while the queue of the client is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * The thread notifying the event waits until there is room in the queue, which stops reading
+     * from the connection of the client until its listeners catch up.
+     */
+    BLOCK,
+    /**
+     * The event is discarded, and counted in {@link #getDiscardedEvents()}.
+     */
+    DISCARD
+  }
+
+  /**
+   * Creates a dispatcher which blocks clients with {@link #DEFAULT_MAX_QUEUED_EVENTS} queued
+   * events.
+   *
+   * @param executor the executor to run the listeners, usually a thread pool shared by many
+   * clients.
+   */
+  public ListenerDispatcher(Executor executor) {
+    this(executor, DEFAULT_MAX_QUEUED_EVENTS, OverflowPolicy.BLOCK);
+  }
+
+  /**
+   * Creates a dispatcher.
+   *
+   * @param executor the executor to run the listeners, usually a thread pool shared by many
+   * clients.
+   * @param maxQueuedEvents maximum number of events queued by each client.
+   * @param overflowPolicy action taken when an event is notified with a full queue.
+   */
+  public ListenerDispatcher(Executor executor, int maxQueuedEvents,
+      OverflowPolicy overflowPolicy) {
+    if (maxQueuedEvents <= 0) {
+      throw new IllegalArgumentException("Max queued events must be positive: " + maxQueuedEvents);
+    }
+    this.executor = executor;
+    this.maxQueuedEvents = maxQueuedEvents;
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Gets the number of events discarded because of full queues.
+   *
+   * @return the number of discarded events of all the clients using this dispatcher.
+   */
+  public long getDiscardedEvents() {
+    return discardedEvents.get();
+  }
+
+  ListenerEventQueue newEventQueue() {
+    return new ListenerEventQueue(executor, maxQueuedEvents, overflowPolicy, discardedEvents);
+  }
+
+}
@@ -0,0 +1,285 @@
+package com.bytezone.dm3270;
+
+import com.bytezone.dm3270.application.KeyboardStatusChangedEvent;
+import com.bytezone.dm3270.application.KeyboardStatusListener;
+import com.bytezone.dm3270.display.CursorMoveListener;
+import com.bytezone.dm3270.display.Field;
+import com.bytezone.dm3270.display.ScreenChangeListener;
+import com.bytezone.dm3270.display.ScreenDelta;
+import com.bytezone.dm3270.display.ScreenDeltaListener;
+import com.bytezone.dm3270.display.ScreenWatcher;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue of the listener events of a client, run in order on the executor of a {@link
+ * ListenerDispatcher}.
+ * <p>
+ * It is registered as the only listener of the screen, the cursor and the connection of the
+ * client, and keeps the listeners added to the client, which are then notified by the executor.
+ */
+class ListenerEventQueue implements ConnectionPhaseListener, KeyboardStatusListener,
+    CursorMoveListener, ScreenChangeListener, ScreenDeltaListener, HostResponseListener {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ListenerEventQueue.class);
+  // events run before giving the executor thread back, so busy clients don't starve others
+  private static final int MAX_EVENTS_PER_RUN = 64;
+
+  private final Executor executor;
+  private final int maxQueuedEvents;
+  private final ListenerDispatcher.OverflowPolicy overflowPolicy;
+  private final AtomicLong discardedEvents;
+  private final ArrayDeque<Event> events = new ArrayDeque<>();
+  private boolean scheduled;
+  private volatile Thread runningThread;
+
+  private final Set<ConnectionListener> connectionListeners = ConcurrentHashMap.newKeySet();
+  private final Set<KeyboardStatusListener> keyboardListeners = ConcurrentHashMap.newKeySet();
+  private final Set<CursorMoveListener> cursorListeners = ConcurrentHashMap.newKeySet();
+  private final Set<ScreenChangeListener> screenListeners = ConcurrentHashMap.newKeySet();
+  private final Set<ScreenDeltaListener> screenDeltaListeners = ConcurrentHashMap.newKeySet();
+  private final Set<HostResponseListener> hostResponseListeners = ConcurrentHashMap.newKeySet();
+
+  ListenerEventQueue(Executor executor, int maxQueuedEvents,
+      ListenerDispatcher.OverflowPolicy overflowPolicy, AtomicLong discardedEvents) {
+    this.executor = executor;
+    this.maxQueuedEvents = maxQueuedEvents;
+    this.overflowPolicy = overflowPolicy;
+    this.discardedEvents = discardedEvents;
+  }
+
+  Set<ConnectionListener> getConnectionListeners() {
+    return connectionListeners;
+  }
+
+  Set<KeyboardStatusListener> getKeyboardListeners() {
+    return keyboardListeners;
+  }
+
+  Set<CursorMoveListener> getCursorListeners() {
+    return cursorListeners;
+  }
+
+  Set<ScreenChangeListener> getScreenListeners() {
+    return screenListeners;
+  }
+
+  Set<ScreenDeltaListener> getScreenDeltaListeners() {
+    return screenDeltaListeners;
+  }
+
+  Set<HostResponseListener> getHostResponseListeners() {
+    return hostResponseListeners;
+  }
+
+  @Override
+  public void onConnection() {
+    post(new Event(() -> connectionListeners.forEach(ConnectionListener::onConnection)));
+  }
+
+  @Override
+  public void onException(Exception ex) {
+    post(new Event(() -> connectionListeners.forEach(l -> l.onException(ex))));
+  }
+
+  @Override
+  public void onConnectionClosed() {
+    post(new Event(() -> connectionListeners.forEach(ConnectionListener::onConnectionClosed)));
+  }
+
+  @Override
+  public void onConnectionPhase(ConnectionPhase phase, long elapsedNanos) {
+    post(new Event(() -> connectionListeners.forEach(l -> {
+      if (l instanceof ConnectionPhaseListener) {
+        ((ConnectionPhaseListener) l).onConnectionPhase(phase, elapsedNanos);
+      }
+    })));
+  }
+
+  @Override
+  public void keyboardStatusChanged(KeyboardStatusChangedEvent evt) {
+    if (!keyboardListeners.isEmpty()) {
+      post(new Event(() -> keyboardListeners.forEach(l -> l.keyboardStatusChanged(evt))));
+    }
+  }
+
+  @Override
+  public void cursorMoved(int oldLocation, int newLocation, Field field) {
+    if (!cursorListeners.isEmpty()) {
+      post(new CursorMoveEvent(oldLocation, newLocation, field));
+    }
+  }
+
+  @Override
+  public void screenChanged(ScreenWatcher screenWatcher) {
+    if (!screenListeners.isEmpty()) {
+      post(new ScreenChangeEvent(screenWatcher));
+    }
+  }
+
+  @Override
+  public void screenChanged(ScreenDelta screenDelta) {
+    if (!screenDeltaListeners.isEmpty()) {
+      post(new Event(() -> screenDeltaListeners.forEach(l -> l.screenChanged(screenDelta))));
+    }
+  }
+
+  @Override
+  public void onHostResponse(HostResponse response) {
+    if (!hostResponseListeners.isEmpty()) {
+      post(new Event(() -> hostResponseListeners.forEach(l -> l.onHostResponse(response))));
+    }
+  }
+
+  private void post(Event event) {
+    synchronized (events) {
+      Event last = events.peekLast();
+      if (last != null && last.coalesce(event)) {
+        return;
+      }
+      // listeners notifying new events are never blocked, since they are the ones to make room
+      while (events.size() >= maxQueuedEvents && runningThread != Thread.currentThread()) {
+        if (overflowPolicy == ListenerDispatcher.OverflowPolicy.DISCARD) {
+          discardedEvents.incrementAndGet();
+          return;
+        }
+        try {
+          events.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          discardedEvents.incrementAndGet();
+          return;
+        }
+      }
+      events.add(event);
+      if (scheduled) {
+        return;
+      }
+      scheduled = true;
+    }
+    schedule();
+  }
+
+  private void schedule() {
+    try {
+      executor.execute(this::runEvents);
+    } catch (RuntimeException e) {
+      synchronized (events) {
+        scheduled = false;
+      }
+      throw e;
+    }
+  }
+
+  private void runEvents() {
+    runningThread = Thread.currentThread();
+    try {
+      for (int i = 0; i < MAX_EVENTS_PER_RUN; i++) {
+        Event event;
+        synchronized (events) {
+          event = events.poll();
+          if (event == null) {
+            break;
+          }
+          events.notifyAll();
+        }
+        try {
+          event.run();
+        } catch (RuntimeException e) {
+          LOG.error("Error notifying listeners", e);
+        }
+      }
+    } finally {
+      runningThread = null;
+      // also done when a listener throws an error, so the queue is not left scheduled forever
+      rescheduleOrRelease();
+    }
+  }
+
+  private void rescheduleOrRelease() {
+    synchronized (events) {
+      if (events.isEmpty()) {
+        scheduled = false;
+        return;
+      }
+    }
+    schedule();
+  }
+
+  private static class Event {
+
+    private final Runnable notification;
+
+    private Event(Runnable notification) {
+      this.notification = notification;
+    }
+
+    protected void run() {
+      notification.run();
+    }
+
+    // merges the given event, notified right after this one, when just notifying the last state
+    protected boolean coalesce(Event next) {
+      return false;
+    }
+
+  }
+
+  private class CursorMoveEvent extends Event {
+
+    private final int oldLocation;
+    private int newLocation;
+    private Field field;
+
+    private CursorMoveEvent(int oldLocation, int newLocation, Field field) {
+      super(null);
+      this.oldLocation = oldLocation;
+      this.newLocation = newLocation;
+      this.field = field;
+    }
+
+    @Override
+    protected void run() {
+      cursorListeners.forEach(l -> l.cursorMoved(oldLocation, newLocation, field));
+    }
+
+    @Override
+    protected boolean coalesce(Event next) {
+      if (!(next instanceof CursorMoveEvent)) {
+        return false;
+      }
+      CursorMoveEvent nextMove = (CursorMoveEvent) next;
+      newLocation = nextMove.newLocation;
+      field = nextMove.field;
+      return true;
+    }
+
+  }
+
+  private class ScreenChangeEvent extends Event {
+
+    private final ScreenWatcher screenWatcher;
+
+    private ScreenChangeEvent(ScreenWatcher screenWatcher) {
+      super(null);
+      this.screenWatcher = screenWatcher;
+    }
+
+    @Override
+    protected void run() {
+      screenListeners.forEach(l -> l.screenChanged(screenWatcher));
+    }
+
+    @Override
+    protected boolean coalesce(Event next) {
+      return next instanceof ScreenChangeEvent;
+    }
+
+  }
+
+}
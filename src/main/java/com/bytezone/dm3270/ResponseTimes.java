@@ -0,0 +1,58 @@
+package com.bytezone.dm3270;
+
+/**
+ * Histograms of the time the host takes to respond to the AIDs sent by terminal clients.
+ * <p>
+ * All times are measured from the AID being written to the connection:
+ * <ul>
+ * <li>first byte: until the first data of the response is read from the connection.</li>
+ * <li>last record: until the record which unlocks the keyboard is read from the connection.</li>
+ * <li>response: until the record which unlocks the keyboard is processed, which also includes
+ * the time the record waits to be processed and the processing itself.</li>
+ * </ul>
+ * Responses which don't unlock the keyboard (like unsolicited screens) are not recorded.
+ */
+public final class ResponseTimes {
+
+  private final LatencyHistogram responseTime = new LatencyHistogram();
+  private final LatencyHistogram firstByteTime = new LatencyHistogram();
+  private final LatencyHistogram lastRecordTime = new LatencyHistogram();
+
+  /**
+   * Records the times of a response.
+   *
+   * @param firstByteNanos nanos from the AID until the first data of the response was read.
+   * @param lastRecordNanos nanos from the AID until the record unlocking the keyboard was read.
+   * @param responseNanos nanos from the AID until the keyboard was unlocked.
+   */
+  public void record(long firstByteNanos, long lastRecordNanos, long responseNanos) {
+    firstByteTime.recordNanos(firstByteNanos);
+    lastRecordTime.recordNanos(lastRecordNanos);
+    responseTime.recordNanos(responseNanos);
+  }
+
+  public LatencyHistogram getResponseTime() {
+    return responseTime;
+  }
+
+  public LatencyHistogram getFirstByteTime() {
+    return firstByteTime;
+  }
+
+  public LatencyHistogram getLastRecordTime() {
+    return lastRecordTime;
+  }
+
+  public void reset() {
+    responseTime.reset();
+    firstByteTime.reset();
+    lastRecordTime.reset();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("response={%s}, firstByte={%s}, lastRecord={%s}", responseTime,
+        firstByteTime, lastRecordTime);
+  }
+
+}
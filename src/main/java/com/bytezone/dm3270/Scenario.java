@@ -0,0 +1,300 @@
+package com.bytezone.dm3270;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Sequence of steps (waits, field inputs and Action IDs) to be run on terminal clients.
+ * <p>
+ * Scenarios are defined once with a {@link Builder} and can then be run concurrently on any number
+ * of clients. Field inputs are grouped with the Action ID which sends them, and applied as an
+ * {@link InputTransaction}. The position of fields located by label is kept from the first screen
+ * where they are found, so following runs don't need to search the label in the screen text while
+ * an unprotected field still starts at that position. Waits are driven by screen events, so no
+ * thread is held by a run while waiting for the server.
+ */
+public class Scenario {
+
+  private final String name;
+  private final List<Step> steps;
+
+  private Scenario(String name, List<Step> steps) {
+    this.name = name;
+    this.steps = steps;
+  }
+
+  /**
+   * Creates a builder to define a new scenario.
+   *
+   * @param name name of the scenario, included in its results.
+   * @return a new builder without steps.
+   */
+  public static Builder builder(String name) {
+    return new Builder(name);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the names of the steps of the scenario, in the order they are run.
+   *
+   * @return the names of the steps.
+   */
+  public List<String> getStepNames() {
+    List<String> ret = new ArrayList<>(steps.size());
+    for (Step step : steps) {
+      ret.add(step.name);
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the scenario on a connected client.
+   * <p>
+   * Each step starts when the previous one completes, in the thread completing it (the thread
+   * processing server data, the timer thread of the {@link WaitScheduler}, or the session executor
+   * of the client when one is set). The run stops at the first failed step.
+   *
+   * @param client the client to run the steps on.
+   * @return a future completed with the timings of the run steps when the scenario ends. The
+   * future is never completed exceptionally: failures are reported in the result.
+   */
+  public CompletableFuture<ScenarioResult> run(TerminalClient client) {
+    return new Run(client).start();
+  }
+
+  private final class Run {
+
+    private final TerminalClient client;
+    private final List<ScenarioResult.StepResult> results = new ArrayList<>(steps.size());
+    private final CompletableFuture<ScenarioResult> future = new CompletableFuture<>();
+    private final long startNanos = System.nanoTime();
+
+    private Run(TerminalClient client) {
+      this.client = client;
+    }
+
+    private CompletableFuture<ScenarioResult> start() {
+      runStep(0);
+      return future;
+    }
+
+    private void runStep(int index) {
+      if (index == steps.size()) {
+        complete(null);
+        return;
+      }
+      Step step = steps.get(index);
+      long stepStartNanos = System.nanoTime();
+      CompletableFuture<Void> stepFuture;
+      try {
+        stepFuture = step.action.apply(client);
+      } catch (RuntimeException e) {
+        stepFuture = new CompletableFuture<>();
+        stepFuture.completeExceptionally(e);
+      }
+      stepFuture.whenComplete((r, e) -> {
+        Throwable error = e instanceof CompletionException && e.getCause() != null ? e.getCause()
+            : e;
+        results.add(new ScenarioResult.StepResult(step.name, stepStartNanos - startNanos,
+            System.nanoTime() - stepStartNanos, error));
+        if (error != null) {
+          complete(error);
+        } else {
+          runStep(index + 1);
+        }
+      });
+    }
+
+    private void complete(Throwable error) {
+      future.complete(new ScenarioResult(name, System.nanoTime() - startNanos,
+          Collections.unmodifiableList(results), error));
+    }
+
+  }
+
+  private static final class Step {
+
+    private final String name;
+    private final Function<TerminalClient, CompletableFuture<Void>> action;
+
+    private Step(String name, Function<TerminalClient, CompletableFuture<Void>> action) {
+      this.name = name;
+      this.action = action;
+    }
+
+  }
+
+  /**
+   * Builder of {@link Scenario} instances.
+   * <p>
+   * Field texts are set on the step of the next Action ID, so every field input must be followed
+   * by a call to {@link #sendAID(byte, String)}.
+   */
+  public static class Builder {
+
+    private final String name;
+    private final List<Step> steps = new ArrayList<>();
+    private final List<InputTransaction.FieldInput> pendingInputs = new ArrayList<>();
+
+    private Builder(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Adds a step waiting for the keyboard to be unlocked.
+     *
+     * @param stableMillis number of millis the keyboard has to remain unlocked without screen
+     * changes.
+     * @param timeoutMillis maximum number of millis to wait.
+     * @return this builder.
+     * @see TerminalClient#waitForKeyboardUnlock(long, long)
+     */
+    public Builder waitForKeyboardUnlock(long stableMillis, long timeoutMillis) {
+      return addStep("wait keyboard unlock",
+          c -> c.waitForKeyboardUnlock(stableMillis, timeoutMillis));
+    }
+
+    /**
+     * Adds a step waiting for a text to be present anywhere in the screen.
+     *
+     * @param text the text to look for.
+     * @param stableMillis number of millis the text has to remain in the screen without changes.
+     * @param timeoutMillis maximum number of millis to wait.
+     * @return this builder.
+     * @see TerminalClient#waitForScreenText(String, long, long)
+     */
+    public Builder waitForScreenText(String text, long stableMillis, long timeoutMillis) {
+      return addStep("wait screen text '" + text + "'",
+          c -> c.waitForScreenText(text, stableMillis, timeoutMillis));
+    }
+
+    /**
+     * Adds a step waiting for a text to be present at the given position of the screen.
+     *
+     * @param row row number where the text starts. First row is 1.
+     * @param column column number where the text starts. First column is 1.
+     * @param text the text to look for.
+     * @param stableMillis number of millis the text has to remain in the screen without changes.
+     * @param timeoutMillis maximum number of millis to wait.
+     * @return this builder.
+     * @see TerminalClient#waitForScreenText(int, int, String, long, long)
+     */
+    public Builder waitForScreenText(int row, int column, String text, long stableMillis,
+        long timeoutMillis) {
+      return addStep("wait screen text '" + text + "' at " + row + "," + column,
+          c -> c.waitForScreenText(row, column, text, stableMillis, timeoutMillis));
+    }
+
+    /**
+     * Adds a step waiting for the screen text to contain a match of a regular expression.
+     *
+     * @param regex the regular expression to look for. It is compiled once, when added.
+     * @param stableMillis number of millis the match has to remain in the screen without changes.
+     * @param timeoutMillis maximum number of millis to wait.
+     * @return this builder.
+     * @see TerminalClient#waitForScreenPattern(Pattern, long, long)
+     */
+    public Builder waitForScreenPattern(String regex, long stableMillis, long timeoutMillis) {
+      Pattern pattern = Pattern.compile(regex);
+      return addStep("wait screen pattern '" + regex + "'",
+          c -> c.waitForScreenPattern(pattern, stableMillis, timeoutMillis));
+    }
+
+    /**
+     * Adds a step waiting for a period without any change in the screen, the cursor or the
+     * keyboard.
+     *
+     * @param silenceMillis number of millis without changes.
+     * @param timeoutMillis maximum number of millis to wait.
+     * @return this builder.
+     * @see TerminalClient#waitForScreenSilence(long, long)
+     */
+    public Builder waitForScreenSilence(long silenceMillis, long timeoutMillis) {
+      return addStep("wait screen silence",
+          c -> c.waitForScreenSilence(silenceMillis, timeoutMillis));
+    }
+
+    /**
+     * Sets the text of the field next to a label on the next Action ID step.
+     *
+     * @param label the text of the label.
+     * @param text the text to set on the field.
+     * @return this builder.
+     */
+    public Builder setFieldTextByLabel(String label, String text) {
+      pendingInputs.add(InputTransaction.FieldInput.byLabel(label, text, true));
+      return this;
+    }
+
+    /**
+     * Sets the text of the field at the given position on the next Action ID step.
+     *
+     * @param row row number where to set the field text. First row is 1.
+     * @param column column number where to set the field text. First column is 1.
+     * @param text the text to set on the field.
+     * @return this builder.
+     */
+    public Builder setFieldTextByCoord(int row, int column, String text) {
+      pendingInputs.add(InputTransaction.FieldInput.byCoord(row, column, text));
+      return this;
+    }
+
+    /**
+     * Sets the text of an unprotected field on the next Action ID step.
+     *
+     * @param index position of the field among the unprotected fields of the screen. First field
+     * is 0.
+     * @param text the text to set on the field.
+     * @return this builder.
+     */
+    public Builder setFieldTextByIndex(int index, String text) {
+      pendingInputs.add(InputTransaction.FieldInput.byIndex(index, text));
+      return this;
+    }
+
+    /**
+     * Adds a step setting the pending field texts and sending an Action ID.
+     *
+     * @param aid Action ID to send. For example Enter.
+     * @param aidName Name of the action sent.
+     * @return this builder.
+     */
+    public Builder sendAID(byte aid, String aidName) {
+      List<InputTransaction.FieldInput> inputs =
+          Collections.unmodifiableList(new ArrayList<>(pendingInputs));
+      pendingInputs.clear();
+      return addStep("send " + aidName,
+          c -> c.sendInputTransactionAsync(inputs, aid, aidName));
+    }
+
+    private Builder addStep(String stepName,
+        Function<TerminalClient, CompletableFuture<Void>> action) {
+      steps.add(new Step(stepName, action));
+      return this;
+    }
+
+    /**
+     * Builds the scenario with the added steps.
+     *
+     * @return the new scenario.
+     * @throws IllegalStateException if some field input is not followed by an Action ID.
+     */
+    public Scenario build() {
+      if (!pendingInputs.isEmpty()) {
+        throw new IllegalStateException(
+            "Field inputs of scenario " + name + " are not followed by an Action ID");
+      }
+      return new Scenario(name, Collections.unmodifiableList(new ArrayList<>(steps)));
+    }
+
+  }
+
+}
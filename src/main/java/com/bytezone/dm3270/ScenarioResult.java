@@ -0,0 +1,110 @@
+package com.bytezone.dm3270;
+
+import java.util.List;
+
+/**
+ * Outcome and timings of a run of a {@link Scenario}.
+ */
+public class ScenarioResult {
+
+  private final String scenarioName;
+  private final long durationNanos;
+  private final List<StepResult> steps;
+  private final Throwable error;
+
+  ScenarioResult(String scenarioName, long durationNanos, List<StepResult> steps,
+      Throwable error) {
+    this.scenarioName = scenarioName;
+    this.durationNanos = durationNanos;
+    this.steps = steps;
+    this.error = error;
+  }
+
+  public String getScenarioName() {
+    return scenarioName;
+  }
+
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  /**
+   * Gets the results of the run steps.
+   *
+   * @return the results of the steps in the order they were run. When the scenario failed, the
+   * last one is the failed step, and following steps are not included.
+   */
+  public List<StepResult> getSteps() {
+    return steps;
+  }
+
+  public boolean isSuccessful() {
+    return error == null;
+  }
+
+  /**
+   * Gets the error of the failed step.
+   *
+   * @return the error which stopped the scenario, or null if all the steps succeeded.
+   */
+  public Throwable getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %s in %,d us, %d steps", scenarioName,
+        error == null ? "OK" : "FAILED (" + error + ")", durationNanos / 1000, steps.size());
+  }
+
+  /**
+   * Timing and outcome of a step of a scenario run.
+   */
+  public static class StepResult {
+
+    private final String name;
+    private final long startOffsetNanos;
+    private final long durationNanos;
+    private final Throwable error;
+
+    StepResult(String name, long startOffsetNanos, long durationNanos, Throwable error) {
+      this.name = name;
+      this.startOffsetNanos = startOffsetNanos;
+      this.durationNanos = durationNanos;
+      this.error = error;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Gets when the step started.
+     *
+     * @return the number of nanos from the start of the scenario run to the start of the step.
+     */
+    public long getStartOffsetNanos() {
+      return startOffsetNanos;
+    }
+
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+
+    public boolean isSuccessful() {
+      return error == null;
+    }
+
+    public Throwable getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %s in %,d us", name,
+          error == null ? "OK" : "FAILED (" + error + ")", durationNanos / 1000);
+    }
+
+  }
+
+}
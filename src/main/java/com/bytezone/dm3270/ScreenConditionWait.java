@@ -0,0 +1,118 @@
+package com.bytezone.dm3270;
+
+import com.bytezone.dm3270.application.KeyboardStatusChangedEvent;
+import com.bytezone.dm3270.application.KeyboardStatusListener;
+import com.bytezone.dm3270.display.CursorMoveListener;
+import com.bytezone.dm3270.display.Field;
+import com.bytezone.dm3270.display.ScreenChangeListener;
+import com.bytezone.dm3270.display.ScreenWatcher;
+import com.bytezone.dm3270.streams.HashedWheelTimer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wait for a condition on the screen which must hold, without any screen, cursor or keyboard
+ * event, during a stable period.
+ * <p>
+ * The condition is checked on each event, in the thread processing it, and the stable period
+ * is restarted if it still holds, or cancelled if not. The wait is completed when a stable period
+ * ends, or fails with a {@link TimeoutException} when the timeout expires first.
+ */
+class ScreenConditionWait implements KeyboardStatusListener, CursorMoveListener,
+    ScreenChangeListener {
+
+  private final TerminalClient client;
+  private final String description;
+  private final BooleanSupplier condition;
+  private final long stableMillis;
+  private final WaitScheduler scheduler;
+  private final CompletableFuture<Void> future = new CompletableFuture<>();
+  private HashedWheelTimer.Timeout stableTimeout;
+  private HashedWheelTimer.Timeout timeout;
+
+  ScreenConditionWait(TerminalClient client, String description, BooleanSupplier condition,
+      long stableMillis, WaitScheduler scheduler) {
+    if (stableMillis < 0) {
+      throw new IllegalArgumentException("Stable period must not be negative: " + stableMillis);
+    }
+    this.client = client;
+    this.description = description;
+    this.condition = condition;
+    this.stableMillis = stableMillis;
+    this.scheduler = scheduler;
+  }
+
+  CompletableFuture<Void> start(long timeoutMillis) {
+    if (timeoutMillis <= 0) {
+      throw new IllegalArgumentException("Timeout must be positive: " + timeoutMillis);
+    }
+    future.whenComplete((r, e) -> stop());
+    // scheduled before any listener can complete the wait, so stop() always cancels it
+    synchronized (this) {
+      timeout = scheduler.schedule(this::expire, timeoutMillis);
+    }
+    client.addWaitListeners(this);
+    // the wait may have expired before adding the listeners, so they would never be removed
+    if (future.isDone()) {
+      client.removeWaitListeners(this);
+    }
+    checkCondition();
+    return future;
+  }
+
+  @Override
+  public void keyboardStatusChanged(KeyboardStatusChangedEvent evt) {
+    checkCondition();
+  }
+
+  @Override
+  public void cursorMoved(int oldLocation, int newLocation, Field field) {
+    checkCondition();
+  }
+
+  @Override
+  public void screenChanged(ScreenWatcher screenWatcher) {
+    checkCondition();
+  }
+
+  private void checkCondition() {
+    synchronized (this) {
+      if (future.isDone()) {
+        return;
+      }
+      cancelStablePeriod();
+      if (!condition.getAsBoolean()) {
+        return;
+      }
+      if (stableMillis > 0) {
+        stableTimeout = scheduler.schedule(() -> future.complete(null), stableMillis);
+        return;
+      }
+    }
+    // completed out of the lock, since it runs the actions depending on the wait
+    future.complete(null);
+  }
+
+  private void cancelStablePeriod() {
+    if (stableTimeout != null) {
+      stableTimeout.cancel();
+      stableTimeout = null;
+    }
+  }
+
+  private void expire() {
+    future.completeExceptionally(new TimeoutException("Timeout waiting for " + description));
+  }
+
+  private void stop() {
+    client.removeWaitListeners(this);
+    synchronized (this) {
+      cancelStablePeriod();
+      if (timeout != null) {
+        timeout.cancel();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.bytezone.dm3270;
+
+/**
+ * Snapshot of the state and counters of a session of a {@link TerminalSessionManager}.
+ */
+public final class SessionStats {
+
+  /**
+   * Stages of the life cycle of a session.
+   */
+  public enum State {
+    CREATED, CONNECTING, CONNECTED, FAILED, CLOSED, DISCONNECTED
+  }
+
+  private final int sessionId;
+  private final State state;
+  private final long connectNanos;
+  private final long exceptions;
+
+  SessionStats(int sessionId, State state, long connectNanos, long exceptions) {
+    this.sessionId = sessionId;
+    this.state = state;
+    this.connectNanos = connectNanos;
+    this.exceptions = exceptions;
+  }
+
+  public int getSessionId() {
+    return sessionId;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Gets the time spent establishing the connection.
+   *
+   * @return the nanos from the connection request to the connection being established, or -1 if
+   * the session has not been connected.
+   */
+  public long getConnectNanos() {
+    return connectNanos;
+  }
+
+  /**
+   * Gets the number of exceptions notified by the connection of the session.
+   *
+   * @return the number of exceptions, including the one failing the connection, if any.
+   */
+  public long getExceptions() {
+    return exceptions;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("session %d: %s, connect=%,d us, exceptions=%d", sessionId, state,
+        connectNanos < 0 ? -1 : connectNanos / 1000, exceptions);
+  }
+
+}
@@ -6,16 +6,33 @@ import com.bytezone.dm3270.application.Site;
 import com.bytezone.dm3270.display.Cursor;
 import com.bytezone.dm3270.display.CursorMoveListener;
 import com.bytezone.dm3270.display.Field;
+import com.bytezone.dm3270.display.FieldManager;
 import com.bytezone.dm3270.display.Screen;
 import com.bytezone.dm3270.display.ScreenChangeListener;
+import com.bytezone.dm3270.display.ScreenDeltaListener;
 import com.bytezone.dm3270.display.ScreenDimensions;
-import com.bytezone.dm3270.display.ScreenPosition;
+import com.bytezone.dm3270.display.ScreenSnapshot;
+import com.bytezone.dm3270.streams.InboundPipelineStats;
+import com.bytezone.dm3270.streams.KeepAliveScheduler;
+import com.bytezone.dm3270.streams.SelectorEventLoopGroup;
+import com.bytezone.dm3270.streams.SerialExecutor;
 import com.bytezone.dm3270.streams.TelnetState;
+import com.bytezone.dm3270.streams.VirtualThreads;
+import com.bytezone.dm3270.telnet.RecordBufferPool;
+import com.bytezone.dm3270.telnet.RecordTooLargeException;
+import com.bytezone.dm3270.telnet.TelnetProcessor;
 import java.awt.Point;
-import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
 import javax.net.SocketFactory;
 
 /**
@@ -27,10 +44,20 @@ public class TerminalClient {
 
   private final Screen screen;
   private boolean usesExtended3270;
-  private ConsolePane consolePane;
+  private volatile ConsolePane consolePane;
   private SocketFactory socketFactory = SocketFactory.getDefault();
   private int connectionTimeoutMillis;
+  private SelectorEventLoopGroup eventLoopGroup;
+  private ThreadFactory threadFactory = Thread::new;
+  private RecordBufferPool recordBufferPool = RecordBufferPool.getDefault();
+  private int maxRecordSize = TelnetProcessor.DEFAULT_MAX_RECORD_SIZE;
   private final ConnectionListenerBroadcast connectionListenerBroadcast;
+  private SerialExecutor sessionExecutor;
+  private int inboundQueueSize;
+  private boolean hostResponsesRequested;
+  private final Set<HostResponseListener> hostResponseListeners = ConcurrentHashMap.newKeySet();
+  private WaitScheduler waitScheduler = WaitScheduler.getDefault();
+  private ListenerEventQueue listenerEvents;
 
   /**
    * Creates a new terminal client with given model and screen dimensions.
@@ -49,6 +76,9 @@ public class TerminalClient {
     screen = new Screen(new ScreenDimensions(24, 80), alternateScreenDimensions, telnetState,
         charset);
     connectionListenerBroadcast = new ConnectionListenerBroadcast();
+    telnetState.setConnectionPhaseListener(connectionListenerBroadcast);
+    telnetState.setHostResponseListener(
+        response -> hostResponseListeners.forEach(l -> l.onHostResponse(response)));
   }
 
   /**
@@ -82,14 +112,206 @@ public class TerminalClient {
     this.connectionTimeoutMillis = connectionTimeoutMillis;
   }
 
+  /**
+   * Allows using a shared {@link SelectorEventLoopGroup} to handle the connection, instead of a
+   * dedicated thread with a blocking socket.
+   * <p>
+   * This is useful when many clients run in the same JVM, since a few selector threads can serve
+   * all of them. SSL socket factories are not supported in this mode.
+   *
+   * @param eventLoopGroup the group of selector threads to use. If none is specified a dedicated
+   * thread is used for the connection.
+   */
+  public void setSelectorEventLoopGroup(SelectorEventLoopGroup eventLoopGroup) {
+    this.eventLoopGroup = eventLoopGroup;
+  }
+
+  /**
+   * Sets the {@link ThreadFactory} used to create the thread which reads from the connection when
+   * no {@link SelectorEventLoopGroup} is used.
+   * <p>
+   * In JVMs supporting virtual threads {@link VirtualThreads#factory(String)} can be used, so
+   * idle connections don't keep an OS thread each.
+   *
+   * @param threadFactory the thread factory to use. If none is specified a new platform thread is
+   * created for each connection.
+   */
+  public void setThreadFactory(ThreadFactory threadFactory) {
+    this.threadFactory = threadFactory;
+  }
+
+  /**
+   * Sets the scheduler used to send NOOP commands to keep the connection alive when there is no
+   * communication with the server.
+   * <p>
+   * All clients using the same scheduler share a single timer thread.
+   *
+   * @param keepAliveScheduler the scheduler to use. If none is specified {@link
+   * KeepAliveScheduler#getDefault()} will be used, which sends a NOOP after 120 seconds of
+   * inactivity.
+   */
+  public void setKeepAliveScheduler(KeepAliveScheduler keepAliveScheduler) {
+    screen.getTelnetState().setKeepAliveScheduler(keepAliveScheduler);
+  }
+
+  /**
+   * Sets the pool of buffers used to assemble records received from the server.
+   * <p>
+   * Buffers are only held while a record is being received, so clients sharing a pool share
+   * a few buffers instead of keeping one each.
+   *
+   * @param recordBufferPool the pool to use. If none is specified {@link
+   * RecordBufferPool#getDefault()} will be used.
+   */
+  public void setRecordBufferPool(RecordBufferPool recordBufferPool) {
+    this.recordBufferPool = recordBufferPool;
+  }
+
+  /**
+   * Sets the maximum size of records received from the server.
+   * <p>
+   * Records exceeding this size are discarded and reported to connection listeners with a
+   * {@link RecordTooLargeException}.
+   *
+   * @param maxRecordSize maximum number of bytes of a record. If not specified 1MB is used.
+   * @throws IllegalArgumentException if the size is not positive.
+   */
+  public void setMaxRecordSize(int maxRecordSize) {
+    if (maxRecordSize <= 0) {
+      throw new IllegalArgumentException("Max record size must be positive: " + maxRecordSize);
+    }
+    this.maxRecordSize = maxRecordSize;
+  }
+
+  /**
+   * Sets the executor used to run all the changes to the screen of this session.
+   * <p>
+   * When set, data received from the server and every change requested through this client (like
+   * setting field texts, moving the cursor or sending an AID) are run one at a time, in order, by a
+   * serial executor on top of the given one, so the screen is never changed by two threads at once.
+   * The given executor, usually a thread pool, can be shared by many clients, which don't need a
+   * thread each then. The {@code Async} methods return a future completed when the change has
+   * been applied, while the other ones wait for it. {@link #getScreenSnapshot()} should be used
+   * to read the screen from other threads in this mode.
+   * <p>
+   * This must be set before connecting.
+   *
+   * @param executor the executor to run the changes of the session. If none is specified, changes
+   * are applied by the thread requesting them, and data received from the server by the thread
+   * reading it.
+   */
+  public void setSessionExecutor(Executor executor) {
+    this.sessionExecutor = executor != null ? new SerialExecutor(executor) : null;
+  }
+
+  /**
+   * Enables processing the records received from the server apart from the thread reading them.
+   * <p>
+   * When set, the thread reading from the connection (or the selector thread) just frames the
+   * records received from the server and puts them in a bounded queue, so it can go on reading
+   * while previous records are being processed. Records are processed in order by the session
+   * executor when one is set, or else by a dedicated thread created with the thread factory of
+   * the client. When the queue is full, reading waits for the processing to catch up, which also
+   * stops the rest of connections of a shared selector thread.
+   * <p>
+   * The time records spend in the queue and being processed can be obtained with {@link
+   * #getInboundPipelineStats()}. This must be set before connecting.
+   *
+   * @param inboundQueueSize maximum number of queued records. It is rounded up to a power of two.
+   * If not specified (or 0), records are processed by the thread reading them, or by the session
+   * executor when one is set.
+   */
+  public void setInboundQueueSize(int inboundQueueSize) {
+    this.inboundQueueSize = inboundQueueSize;
+  }
+
+  /**
+   * Gets the statistics of the records processed through the inbound queue.
+   *
+   * @return the statistics, or empty if no inbound queue is used or the client is not connected.
+   * @see #setInboundQueueSize(int)
+   */
+  public Optional<InboundPipelineStats> getInboundPipelineStats() {
+    ConsolePane pane = consolePane;
+    return pane != null ? pane.getInboundPipelineStats() : Optional.empty();
+  }
+
+  /**
+   * Sets whether to ask the server for a response to each AID sent with TN3270E.
+   * <p>
+   * Requests sent with TN3270E are tracked by their sequence number until the host completes
+   * them, and notified to the added {@link HostResponseListener} instances. When responses are
+   * requested, the host sends a positive or negative response with the sequence number of each
+   * request, which gives the exact time the host took to process it, even when it sends several
+   * records for the request. Otherwise requests are completed by the data which unlocks the
+   * keyboard. Responses are only requested if the server agreed to send them during negotiation.
+   * This must be set before connecting.
+   *
+   * @param hostResponsesRequested set true to ask for responses. By default is false.
+   */
+  public void setHostResponsesRequested(boolean hostResponsesRequested) {
+    this.hostResponsesRequested = hostResponsesRequested;
+  }
+
+  /**
+   * Sets the scheduler used for the stable periods and timeouts of the wait methods.
+   *
+   * @param waitScheduler the scheduler to use. If none is specified {@link
+   * WaitScheduler#getDefault()} will be used.
+   */
+  public void setWaitScheduler(WaitScheduler waitScheduler) {
+    this.waitScheduler = waitScheduler;
+  }
+
+  /**
+   * Sets the dispatcher used to notify the listeners added to this client.
+   * <p>
+   * When set, listeners are run by the executor of the dispatcher instead of the thread which
+   * processes the server data, and consecutive cursor moves or screen changes are notified as a
+   * single event. The wait methods are not affected, and keep checking their conditions as soon as
+   * the screen changes.
+   * <p>
+   * This must be set before adding listeners and connecting.
+   *
+   * @param listenerDispatcher the dispatcher to use. If none is specified listeners are run by the
+   * thread changing the screen or the connection.
+   */
+  public void setListenerDispatcher(ListenerDispatcher listenerDispatcher) {
+    if (listenerEvents != null) {
+      connectionListenerBroadcast.remove(listenerEvents);
+      hostResponseListeners.remove(listenerEvents);
+      screen.removeKeyboardStatusChangeListener(listenerEvents);
+      screen.getScreenCursor().removeCursorMoveListener(listenerEvents);
+      screen.getFieldManager().removeScreenChangeListener(listenerEvents);
+      screen.getFieldManager().removeScreenDeltaListener(listenerEvents);
+      listenerEvents = null;
+    }
+    if (listenerDispatcher != null) {
+      listenerEvents = listenerDispatcher.newEventQueue();
+      connectionListenerBroadcast.add(listenerEvents);
+      hostResponseListeners.add(listenerEvents);
+      screen.addKeyboardStatusChangeListener(listenerEvents);
+      screen.getScreenCursor().addCursorMoveListener(listenerEvents);
+      screen.getFieldManager().addScreenChangeListener(listenerEvents);
+      screen.getFieldManager().addScreenDeltaListener(listenerEvents);
+    }
+  }
+
   /**
    * Adds a class to handle general exception handler.
+   * <p>
+   * If the listener is a {@link ConnectionPhaseListener} it is also notified of each phase
+   * reached while establishing the connection.
    *
    * @param connectionListener a class to handle exceptions. If none is provided then exceptions
    * stack trace will be printed to error output.
    */
   public void addConnectionListener(ConnectionListener connectionListener) {
-    this.connectionListenerBroadcast.add(connectionListener);
+    if (listenerEvents != null) {
+      listenerEvents.getConnectionListeners().add(connectionListener);
+    } else {
+      this.connectionListenerBroadcast.add(connectionListener);
+    }
   }
 
   /**
@@ -99,7 +321,11 @@ public class TerminalClient {
    * stack trace will be printed to error output.
    */
   public void removeConnectionListener(ConnectionListener connectionListener) {
-    this.connectionListenerBroadcast.remove(connectionListener);
+    if (listenerEvents != null) {
+      listenerEvents.getConnectionListeners().remove(connectionListener);
+    } else {
+      this.connectionListenerBroadcast.remove(connectionListener);
+    }
   }
 
   /**
@@ -109,13 +335,60 @@ public class TerminalClient {
    * @param port port where the terminal server is listening for connections.
    */
   public void connect(String host, int port) {
+    screen.getTelnetState().startConnectionPhases();
     screen.lockKeyboard("connect");
+    screen.publishSnapshot();
     consolePane = new ConsolePane(screen, new Site(host, port, usesExtended3270), socketFactory);
     consolePane.setConnectionTimeoutMillis(connectionTimeoutMillis);
     consolePane.setConnectionListener(connectionListenerBroadcast);
+    consolePane.setSelectorEventLoopGroup(eventLoopGroup);
+    consolePane.setThreadFactory(threadFactory);
+    consolePane.setRecordBufferPool(recordBufferPool);
+    consolePane.setMaxRecordSize(maxRecordSize);
+    consolePane.setSessionExecutor(sessionExecutor);
+    consolePane.setInboundQueueSize(inboundQueueSize);
+    consolePane.setHostResponsesRequested(hostResponsesRequested);
     consolePane.connect();
   }
 
+  /**
+   * Gets the times at which the phases of the last connection were reached.
+   * <p>
+   * This allows telling apart where the time to get the first screen is spent: establishing the
+   * TCP connection, the TLS handshake, the telnet negotiation, or the host preparing the first
+   * screen.
+   *
+   * @return the phases reached since the last connection request, with the nanos since the
+   * request.
+   */
+  public ConnectionPhases getConnectionPhases() {
+    return screen.getTelnetState().getConnectionPhases();
+  }
+
+  /**
+   * Gets the times the host took to respond to the AIDs sent by this client.
+   * <p>
+   * Times are measured from the AID being written to the connection until the keyboard is
+   * unlocked, so they don't include the time of listeners nor waits, and are split in the time to
+   * get the first data and the record unlocking the keyboard.
+   *
+   * @return the response times histograms, which are updated as responses are received.
+   */
+  public ResponseTimes getResponseTimes() {
+    return screen.getTelnetState().getResponseTimes();
+  }
+
+  /**
+   * Sets response times shared with other clients, where the responses of this client are also
+   * recorded.
+   *
+   * @param aggregateResponseTimes the response times to record into besides the ones of this
+   * client, or null to only record the ones of this client.
+   */
+  public void setAggregateResponseTimes(ResponseTimes aggregateResponseTimes) {
+    screen.getTelnetState().setAggregateResponseTimes(aggregateResponseTimes);
+  }
+
   /**
    * Set the text of a field in the screen.
    *
@@ -124,21 +397,42 @@ public class TerminalClient {
    * @param text the text to set on the field.
    */
   public void setFieldTextByCoord(int row, int column, String text) {
+    runInSession(() -> writeFieldTextByCoord(row, column, text));
+  }
+
+  /**
+   * Set the text of a field in the screen, in the session executor when one is set.
+   *
+   * @param row row number where to set the field text. First row is 1.
+   * @param column column number where to set the field text. First column is 1.
+   * @param text the text to set on the field.
+   * @return a future completed when the text has been set.
+   * @see #setSessionExecutor(Executor)
+   */
+  public CompletableFuture<Void> setFieldTextByCoordAsync(int row, int column, String text) {
+    return submit(() -> writeFieldTextByCoord(row, column, text));
+  }
+
+  private void writeFieldTextByCoord(int row, int column, String text) {
     int linearPosition = (row - 1) * screen.getScreenDimensions().columns + column - 1;
     if (screen.getFieldManager().getFields().isEmpty()) {
       setPositionText(text, linearPosition);
     } else {
-      Field field = screen.getFieldManager()
-          .getFieldAt(linearPosition)
-          .orElseThrow(
-              () -> new IllegalArgumentException("Invalid field position " + row + "," + column));
-      setFieldText(field, text);
+      setFieldText(findFieldByCoord(row, column), text);
     }
   }
 
+  private Field findFieldByCoord(int row, int column) {
+    int linearPosition = (row - 1) * screen.getScreenDimensions().columns + column - 1;
+    return screen.getFieldManager()
+        .getFieldAt(linearPosition)
+        .orElseThrow(
+            () -> new IllegalArgumentException("Invalid field position " + row + "," + column));
+  }
+
   private void setPositionText(String text, int fieldPosition) {
     screen.setPositionText(fieldPosition, text);
-    setCursorPosition(fieldPosition + findFieldNextPosition(text));
+    moveCursor(fieldPosition + findFieldNextPosition(text));
   }
 
   private int findFieldNextPosition(String text) {
@@ -154,15 +448,32 @@ public class TerminalClient {
 
   private void setFieldText(Field field, String text) {
     field.setText(text);
-    int nextPosition = findFieldNextPosition(text);
-    int cursorPosition =
-        field.getDisplayLength() > nextPosition ? field.getFirstLocation() + nextPosition
-            : field.getNextUnprotectedField().getFirstLocation();
+    moveCursor(getCursorPositionAfterText(field, text));
+  }
 
-    setCursorPosition(cursorPosition);
+  private int getCursorPositionAfterText(Field field, String text) {
+    int nextPosition = findFieldNextPosition(text);
+    return field.getDisplayLength() > nextPosition ? field.getFirstLocation() + nextPosition
+        : field.getNextUnprotectedField().getFirstLocation();
   }
 
   public void setFieldTextByLabel(String lbl, String text) {
+    runInSession(() -> writeFieldTextByLabel(lbl, text));
+  }
+
+  /**
+   * Set the text of the field next to a label, in the session executor when one is set.
+   *
+   * @param lbl the text of the label.
+   * @param text the text to set on the field.
+   * @return a future completed when the text has been set.
+   * @see #setSessionExecutor(Executor)
+   */
+  public CompletableFuture<Void> setFieldTextByLabelAsync(String lbl, String text) {
+    return submit(() -> writeFieldTextByLabel(lbl, text));
+  }
+
+  private void writeFieldTextByLabel(String lbl, String text) {
     if (screen.getFieldManager().getFields().isEmpty()) {
       String screenText = getScreenText();
       if (!screenText.contains(lbl)) {
@@ -203,7 +514,7 @@ public class TerminalClient {
   }
 
   private Field findLabelField(String label) {
-    String screenText = getScreenText().replace("\n", "");
+    String screenText = screen.getTextWithoutNewlines();
     int pos = 0;
     Field fallbackLabelField = null;
     while (pos != -1) {
@@ -228,6 +539,23 @@ public class TerminalClient {
   }
 
   public void setTabulatedInput(String text, int offset) throws NoSuchFieldException {
+    runInSession(() -> writeTabulatedInput(text, offset));
+  }
+
+  /**
+   * Set the text of the field some tabs away from the cursor, in the session executor when one is
+   * set.
+   *
+   * @param text the text to set on the field.
+   * @param offset number of unprotected fields to skip from the cursor.
+   * @return a future completed when the text has been set.
+   * @see #setSessionExecutor(Executor)
+   */
+  public CompletableFuture<Void> setTabulatedInputAsync(String text, int offset) {
+    return submit(() -> writeTabulatedInput(text, offset));
+  }
+
+  private void writeTabulatedInput(String text, int offset) throws NoSuchFieldException {
     int row = getCursorPosition().get().y;
     int column = getCursorPosition().get().x;
     int linearPosition = (row - 1) * screen.getScreenDimensions().columns + column - 1;
@@ -270,6 +598,123 @@ public class TerminalClient {
     throw new NoSuchFieldException("Screen is not constituted by fields");
   }
 
+  /**
+   * Creates a transaction to set the text of several fields and send an Action ID in one step.
+   * <p>
+   * This is cheaper than setting each field and sending the Action ID separately, since all the
+   * fields are located with the same screen contents, and the cursor is moved only once.
+   *
+   * @return a new empty transaction.
+   */
+  public InputTransaction newInputTransaction() {
+    return new InputTransaction(this);
+  }
+
+  void sendInputTransaction(List<InputTransaction.FieldInput> inputs, byte aid, String name) {
+    runInSession(() -> applyInputTransaction(inputs, aid, name));
+  }
+
+  CompletableFuture<Void> sendInputTransactionAsync(List<InputTransaction.FieldInput> inputs,
+      byte aid, String name) {
+    return submit(() -> applyInputTransaction(inputs, aid, name));
+  }
+
+  private void applyInputTransaction(List<InputTransaction.FieldInput> inputs, byte aid,
+      String name) {
+    if (screen.getFieldManager().getFields().isEmpty()) {
+      // without fields the position of a label depends on the previous inputs, so they are set
+      // one after the other, once all of them are known to be valid
+      String screenText = getScreenText();
+      for (InputTransaction.FieldInput input : inputs) {
+        validateUnformattedScreenInput(input, screenText);
+      }
+      for (InputTransaction.FieldInput input : inputs) {
+        writeFieldInput(input);
+      }
+    } else if (!inputs.isEmpty()) {
+      // all the fields are located before changing any of them
+      Field[] fields = new Field[inputs.size()];
+      for (int i = 0; i < fields.length; i++) {
+        fields[i] = findInputField(inputs.get(i));
+      }
+      Charset charset = screen.getCharset();
+      for (int i = 0; i < fields.length; i++) {
+        fields[i].erase();
+        fields[i].setText(charset.getBytes(inputs.get(i).text));
+      }
+      int last = fields.length - 1;
+      moveCursor(getCursorPositionAfterText(fields[last], inputs.get(last).text));
+    }
+    consolePane.sendAID(aid, name);
+  }
+
+  private void validateUnformattedScreenInput(InputTransaction.FieldInput input,
+      String screenText) {
+    switch (input.target) {
+      case LABEL:
+        if (!screenText.contains(input.label)) {
+          throw buildInvalidFieldLabelException(input.label);
+        }
+        break;
+      case COORD:
+        break;
+      default:
+        throw new IllegalArgumentException("No fields on screen to get field " + input.index);
+    }
+  }
+
+  private void writeFieldInput(InputTransaction.FieldInput input) {
+    if (input.target == InputTransaction.FieldInput.Target.LABEL) {
+      writeFieldTextByLabel(input.label, input.text);
+    } else {
+      writeFieldTextByCoord(input.row, input.column, input.text);
+    }
+  }
+
+  private Field findInputField(InputTransaction.FieldInput input) {
+    switch (input.target) {
+      case LABEL:
+        Field field = findKeptLabelField(input);
+        if (field != null) {
+          return field;
+        }
+        field = findFieldByLabel(input.label);
+        if (field == null) {
+          throw buildInvalidFieldLabelException(input.label);
+        }
+        if (input.keepsLabelPosition) {
+          input.labelPosition = field.getFirstLocation();
+        }
+        return field;
+      case COORD:
+        return findFieldByCoord(input.row, input.column);
+      default:
+        List<Field> fields = screen.getFieldManager().getUnprotectedFields();
+        if (input.index < 0 || input.index >= fields.size()) {
+          throw new IllegalArgumentException("Invalid field index " + input.index);
+        }
+        return fields.get(input.index);
+    }
+  }
+
+  // the kept position is only used while the field before it still contains the label, so the
+  // text is not set in a different field when the screen is not the expected one
+  private Field findKeptLabelField(InputTransaction.FieldInput input) {
+    int position = input.labelPosition;
+    if (position < 0) {
+      return null;
+    }
+    FieldManager fieldManager = screen.getFieldManager();
+    Field field = fieldManager.getFieldAt(position).orElse(null);
+    if (field == null || field.getFirstLocation() != position || !field.isUnprotected()) {
+      return null;
+    }
+    // the position before the field is its start field attribute, and the previous is the label
+    Field labelField = fieldManager.getFieldAt(screen.validate(position - 2)).orElse(null);
+    return labelField != null && labelField.isProtected()
+        && labelField.getText().contains(input.label) ? field : null;
+  }
+
   /**
    * Send an Action ID.
    *
@@ -280,7 +725,19 @@ public class TerminalClient {
    * @param name Name of the action sent.
    */
   public void sendAID(byte aid, String name) {
-    consolePane.sendAID(aid, name);
+    runInSession(() -> consolePane.sendAID(aid, name));
+  }
+
+  /**
+   * Send an Action ID, in the session executor when one is set.
+   *
+   * @param aid Action ID to send. For example Enter.
+   * @param name Name of the action sent.
+   * @return a future completed when the action has been sent.
+   * @see #setSessionExecutor(Executor)
+   */
+  public CompletableFuture<Void> sendAIDAsync(byte aid, String name) {
+    return submit(() -> consolePane.sendAID(aid, name));
   }
 
   /**
@@ -289,24 +746,50 @@ public class TerminalClient {
    * @return The screen text with newlines separating each row.
    */
   public String getScreenText() {
-    StringBuilder text = new StringBuilder();
-    int pos = 0;
-    boolean visible = true;
-    Iterator<ScreenPosition> positionsIterator = screen.getPen().iterator();
-    ScreenDimensions screenDimensions = screen.getScreenDimensions();
-    int positionsCount = screenDimensions.columns * screenDimensions.rows;
-    while (pos < positionsCount && positionsIterator.hasNext()) {
-      ScreenPosition sp = positionsIterator.next();
-      if (sp.isStartField()) {
-        visible = sp.getStartFieldAttribute().isVisible();
-      }
-      text.append(visible ? sp.getChar() : ' ');
-      ++pos;
-      if (pos % screenDimensions.columns == 0) {
-        text.append("\n");
-      }
+    return screen.getText();
+  }
+
+  /**
+   * Gets the text of a row of the screen.
+   *
+   * @param row row number. First row is 1.
+   * @return the text of the row, without newline.
+   * @throws IllegalArgumentException if row is not between 1 and the number of screen rows.
+   */
+  public String getScreenRowText(int row) {
+    int rows = screen.getScreenDimensions().rows;
+    if (row < 1 || row > rows) {
+      throw new IllegalArgumentException("Invalid row " + row + ", must be between 1 and " + rows);
     }
-    return text.toString();
+    return screen.getRowText(row - 1);
+  }
+
+  /**
+   * Gets a consistent snapshot of the screen.
+   * <p>
+   * Other getters read the screen while it may be being modified by the thread which processes
+   * server records, so they may get a mix of two consecutive screens. This method instead returns
+   * an immutable copy of the screen published after the last complete record from the server (or
+   * after the last action which locked the keyboard), without blocking the thread which processes
+   * records.
+   *
+   * @return the last published snapshot of the screen.
+   */
+  public ScreenSnapshot getScreenSnapshot() {
+    return screen.getSnapshot();
+  }
+
+  /**
+   * Gets the generation of the screen contents.
+   * <p>
+   * The generation changes every time the screen is modified, so comparing it with a previously
+   * obtained one is a cheap way to check if the screen changed. Screen texts are cached for each
+   * generation, so getting them again while the generation does not change has no cost.
+   *
+   * @return the generation number of the screen contents.
+   */
+  public long getScreenGeneration() {
+    return screen.getGeneration();
   }
 
   /**
@@ -325,7 +808,11 @@ public class TerminalClient {
    * @param listener The listener to be notified when changes on the screen happen.
    */
   public void addScreenChangeListener(ScreenChangeListener listener) {
-    screen.getFieldManager().addScreenChangeListener(listener);
+    if (listenerEvents != null) {
+      listenerEvents.getScreenListeners().add(listener);
+    } else {
+      screen.getFieldManager().addScreenChangeListener(listener);
+    }
   }
 
   /**
@@ -334,7 +821,41 @@ public class TerminalClient {
    * @param listener Listener to be removed from notifications.
    */
   public void removeScreenChangeListener(ScreenChangeListener listener) {
-    screen.getFieldManager().removeScreenChangeListener(listener);
+    if (listenerEvents != null) {
+      listenerEvents.getScreenListeners().remove(listener);
+    } else {
+      screen.getFieldManager().removeScreenChangeListener(listener);
+    }
+  }
+
+  /**
+   * Add a {@link ScreenDeltaListener} to the terminal emulator.
+   * <p>
+   * Unlike {@link ScreenChangeListener}, these listeners receive the rows, columns and fields
+   * modified by each write from the server, so they don't need to compare the whole screen to
+   * find what changed.
+   *
+   * @param listener The listener to be notified with the changes of each write on the screen.
+   */
+  public void addScreenDeltaListener(ScreenDeltaListener listener) {
+    if (listenerEvents != null) {
+      listenerEvents.getScreenDeltaListeners().add(listener);
+    } else {
+      screen.getFieldManager().addScreenDeltaListener(listener);
+    }
+  }
+
+  /**
+   * Remove a {@link ScreenDeltaListener} from the terminal emulator.
+   *
+   * @param listener Listener to be removed from notifications.
+   */
+  public void removeScreenDeltaListener(ScreenDeltaListener listener) {
+    if (listenerEvents != null) {
+      listenerEvents.getScreenDeltaListeners().remove(listener);
+    } else {
+      screen.getFieldManager().removeScreenDeltaListener(listener);
+    }
   }
 
   /**
@@ -353,7 +874,11 @@ public class TerminalClient {
    * has changed.
    */
   public void addKeyboardStatusListener(KeyboardStatusListener listener) {
-    screen.addKeyboardStatusChangeListener(listener);
+    if (listenerEvents != null) {
+      listenerEvents.getKeyboardListeners().add(listener);
+    } else {
+      screen.addKeyboardStatusChangeListener(listener);
+    }
   }
 
   /**
@@ -362,7 +887,39 @@ public class TerminalClient {
    * @param listener the listener to be removed from notifications.
    */
   public void removeKeyboardStatusListener(KeyboardStatusListener listener) {
-    screen.removeKeyboardStatusChangeListener(listener);
+    if (listenerEvents != null) {
+      listenerEvents.getKeyboardListeners().remove(listener);
+    } else {
+      screen.removeKeyboardStatusChangeListener(listener);
+    }
+  }
+
+  /**
+   * Add a {@link HostResponseListener} to the terminal emulator.
+   *
+   * @param listener the listener to be notified when the host completes a request sent with
+   * TN3270E.
+   * @see #setHostResponsesRequested(boolean)
+   */
+  public void addHostResponseListener(HostResponseListener listener) {
+    if (listenerEvents != null) {
+      listenerEvents.getHostResponseListeners().add(listener);
+    } else {
+      hostResponseListeners.add(listener);
+    }
+  }
+
+  /**
+   * Remove a {@link HostResponseListener} from the terminal emulator.
+   *
+   * @param listener the listener to be removed from notifications.
+   */
+  public void removeHostResponseListener(HostResponseListener listener) {
+    if (listenerEvents != null) {
+      listenerEvents.getHostResponseListeners().remove(listener);
+    } else {
+      hostResponseListeners.remove(listener);
+    }
   }
 
   /**
@@ -409,6 +966,21 @@ public class TerminalClient {
   }
 
   public void setCursorPosition(int linearPosition) {
+    runInSession(() -> moveCursor(linearPosition));
+  }
+
+  /**
+   * Move the cursor to the given position, in the session executor when one is set.
+   *
+   * @param linearPosition position of the cursor in the screen. First position is 0.
+   * @return a future completed when the cursor has been moved.
+   * @see #setSessionExecutor(Executor)
+   */
+  public CompletableFuture<Void> setCursorPositionAsync(int linearPosition) {
+    return submit(() -> moveCursor(linearPosition));
+  }
+
+  private void moveCursor(int linearPosition) {
     screen.getScreenCursor().moveTo(linearPosition);
   }
 
@@ -418,7 +990,11 @@ public class TerminalClient {
    * @param listener listener to be notified when the cursor is moved by terminal server.
    */
   public void addCursorMoveListener(CursorMoveListener listener) {
-    screen.getScreenCursor().addCursorMoveListener(listener);
+    if (listenerEvents != null) {
+      listenerEvents.getCursorListeners().add(listener);
+    } else {
+      screen.getScreenCursor().addCursorMoveListener(listener);
+    }
   }
 
   /**
@@ -427,16 +1003,199 @@ public class TerminalClient {
    * @param listener listener to be remove from notificaitons.
    */
   public void removeCursorMoveListener(CursorMoveListener listener) {
-    screen.getScreenCursor().removeCursorMoveListener(listener);
+    if (listenerEvents != null) {
+      listenerEvents.getCursorListeners().remove(listener);
+    } else {
+      screen.getScreenCursor().removeCursorMoveListener(listener);
+    }
+  }
+
+  /**
+   * Waits for the keyboard to be unlocked.
+   * <p>
+   * This and the rest of wait methods don't block the calling thread, nor any other thread while
+   * waiting. The condition is checked when the screen, the cursor or the keyboard change, and has
+   * to hold during a stable period without any further change, since servers usually update the
+   * screen in several steps. The returned future is completed by the thread processing the server
+   * data, or by the timer thread of the {@link WaitScheduler}, so any blocking action depending
+   * on it should use an {@code Async} method of the future. Cancelling the future stops the wait.
+   *
+   * @param stableMillis number of millis the keyboard has to remain unlocked without screen
+   * changes. With 0 the wait ends as soon as the keyboard is unlocked.
+   * @param timeoutMillis maximum number of millis to wait.
+   * @return a future completed when the condition is met, or completed with a {@link
+   * java.util.concurrent.TimeoutException} when the timeout expires first.
+   */
+  public CompletableFuture<Void> waitForKeyboardUnlock(long stableMillis, long timeoutMillis) {
+    return waitFor("keyboard unlock", () -> !screen.isKeyboardLocked(), stableMillis,
+        timeoutMillis);
+  }
+
+  /**
+   * Waits for a text to be present anywhere in the screen.
+   *
+   * @param text the text to look for.
+   * @param stableMillis number of millis the text has to remain in the screen without changes.
+   * @param timeoutMillis maximum number of millis to wait.
+   * @return a future completed when the condition is met, or completed with a {@link
+   * java.util.concurrent.TimeoutException} when the timeout expires first.
+   * @see #waitForKeyboardUnlock(long, long)
+   */
+  public CompletableFuture<Void> waitForScreenText(String text, long stableMillis,
+      long timeoutMillis) {
+    return waitFor("screen text '" + text + "'",
+        () -> screen.getTextWithoutNewlines().contains(text), stableMillis, timeoutMillis);
+  }
+
+  /**
+   * Waits for a text to be present at the given position of the screen.
+   *
+   * @param row row number where the text starts. First row is 1.
+   * @param column column number where the text starts. First column is 1.
+   * @param text the text to look for.
+   * @param stableMillis number of millis the text has to remain in the screen without changes.
+   * @param timeoutMillis maximum number of millis to wait.
+   * @return a future completed when the condition is met, or completed with a {@link
+   * java.util.concurrent.TimeoutException} when the timeout expires first.
+   * @see #waitForKeyboardUnlock(long, long)
+   */
+  public CompletableFuture<Void> waitForScreenText(int row, int column, String text,
+      long stableMillis, long timeoutMillis) {
+    return waitFor("screen text '" + text + "' at " + row + "," + column,
+        () -> screen.getTextWithoutNewlines()
+            .startsWith(text, (row - 1) * screen.getScreenDimensions().columns + column - 1),
+        stableMillis, timeoutMillis);
+  }
+
+  /**
+   * Waits for the screen text to contain a match of a regular expression.
+   * <p>
+   * Rows are separated by newlines in the text matched by the pattern.
+   *
+   * @param pattern the regular expression to look for.
+   * @param stableMillis number of millis the match has to remain in the screen without changes.
+   * @param timeoutMillis maximum number of millis to wait.
+   * @return a future completed when the condition is met, or completed with a {@link
+   * java.util.concurrent.TimeoutException} when the timeout expires first.
+   * @see #waitForKeyboardUnlock(long, long)
+   */
+  public CompletableFuture<Void> waitForScreenPattern(Pattern pattern, long stableMillis,
+      long timeoutMillis) {
+    return waitFor("screen pattern '" + pattern + "'",
+        () -> pattern.matcher(screen.getText()).find(), stableMillis, timeoutMillis);
+  }
+
+  /**
+   * Waits for the cursor to be visible at the given position.
+   *
+   * @param row row number of the cursor. First row is 1.
+   * @param column column number of the cursor. First column is 1.
+   * @param stableMillis number of millis the cursor has to remain there without changes.
+   * @param timeoutMillis maximum number of millis to wait.
+   * @return a future completed when the condition is met, or completed with a {@link
+   * java.util.concurrent.TimeoutException} when the timeout expires first.
+   * @see #waitForKeyboardUnlock(long, long)
+   */
+  public CompletableFuture<Void> waitForCursorPosition(int row, int column, long stableMillis,
+      long timeoutMillis) {
+    Point position = new Point(column, row);
+    return waitFor("cursor at " + row + "," + column,
+        () -> getCursorPosition().map(position::equals).orElse(false), stableMillis,
+        timeoutMillis);
+  }
+
+  /**
+   * Waits for a period without any change in the screen, the cursor or the keyboard.
+   *
+   * @param silenceMillis number of millis without changes.
+   * @param timeoutMillis maximum number of millis to wait.
+   * @return a future completed when the condition is met, or completed with a {@link
+   * java.util.concurrent.TimeoutException} when the timeout expires first.
+   * @see #waitForKeyboardUnlock(long, long)
+   */
+  public CompletableFuture<Void> waitForScreenSilence(long silenceMillis, long timeoutMillis) {
+    return waitFor("screen silence", () -> true, silenceMillis, timeoutMillis);
+  }
+
+  // waits are registered directly, so they are not delayed by the listener dispatcher
+  void addWaitListeners(ScreenConditionWait wait) {
+    screen.addKeyboardStatusChangeListener(wait);
+    screen.getScreenCursor().addCursorMoveListener(wait);
+    screen.getFieldManager().addScreenChangeListener(wait);
+  }
+
+  void removeWaitListeners(ScreenConditionWait wait) {
+    screen.removeKeyboardStatusChangeListener(wait);
+    screen.getScreenCursor().removeCursorMoveListener(wait);
+    screen.getFieldManager().removeScreenChangeListener(wait);
+  }
+
+  private CompletableFuture<Void> waitFor(String description, BooleanSupplier condition,
+      long stableMillis, long timeoutMillis) {
+    return new ScreenConditionWait(this, description, condition, stableMillis, waitScheduler)
+        .start(timeoutMillis);
   }
 
   /**
    * Disconnect the terminal emulator from the server.
+   * <p>
+   * Nothing is done if no connection has been started.
    *
    * @throws InterruptedException thrown when the disconnect is interrupted.
    */
   public void disconnect() throws InterruptedException {
-    consolePane.disconnect();
+    ConsolePane pane = consolePane;
+    if (pane != null) {
+      pane.disconnect();
+    }
+  }
+
+  // runs the task in the session executor and waits for it, unless already running in it
+  @SuppressWarnings("unchecked")
+  private <E extends Exception> void runInSession(SessionTask<E> task) throws E {
+    SerialExecutor executor = sessionExecutor;
+    if (executor == null || executor.isInExecutorThread()) {
+      task.run();
+      return;
+    }
+    try {
+      submit(task).join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (E) cause;
+    }
+  }
+
+  private CompletableFuture<Void> submit(SessionTask<?> task) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    Runnable runnable = () -> {
+      try {
+        task.run();
+        future.complete(null);
+      } catch (Throwable e) {
+        // errors are also reported, or callers waiting for the task would wait forever
+        future.completeExceptionally(e);
+      }
+    };
+    SerialExecutor executor = sessionExecutor;
+    if (executor == null) {
+      runnable.run();
+    } else {
+      executor.execute(runnable);
+    }
+    return future;
+  }
+
+  @FunctionalInterface
+  private interface SessionTask<E extends Exception> {
+
+    void run() throws E;
+
   }
 
 }
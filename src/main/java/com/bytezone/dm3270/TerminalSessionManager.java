@@ -0,0 +1,566 @@
+package com.bytezone.dm3270;
+
+import com.bytezone.dm3270.display.ScreenDimensions;
+import com.bytezone.dm3270.streams.HashedWheelTimer;
+import com.bytezone.dm3270.streams.KeepAliveScheduler;
+import com.bytezone.dm3270.streams.SelectorEventLoopGroup;
+import com.bytezone.dm3270.telnet.RecordBufferPool;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates and manages many {@link TerminalClient} instances sharing the same resources.
+ * <p>
+ * All the clients created by a manager share a {@link SelectorEventLoopGroup} to serve their
+ * connections, the {@link KeepAliveScheduler}, the {@link RecordBufferPool}, the {@link
+ * WaitScheduler}, and optionally an executor to run their sessions and a {@link
+ * ListenerDispatcher}. So thousands of clients can run in the same JVM with a few threads. The
+ * manager also allows connecting all the clients with a ramp-up period, draining them, and
+ * getting statistics and response times for each session and for all of them.
+ * <p>
+ * Managers are created with a {@link Builder}, and should be closed once they are no longer
+ * needed, to stop the resources they created.
+ */
+public class TerminalSessionManager implements AutoCloseable {
+
+  private final SelectorEventLoopGroup eventLoopGroup;
+  private final boolean ownsEventLoopGroup;
+  private final KeepAliveScheduler keepAliveScheduler;
+  private final RecordBufferPool recordBufferPool;
+  private final WaitScheduler waitScheduler;
+  private final Executor sessionExecutor;
+  private final Executor connectExecutor;
+  private final ListenerDispatcher listenerDispatcher;
+  private final int connectionTimeoutMillis;
+  private final int inboundQueueSize;
+  private final List<ManagedSession> sessions = new CopyOnWriteArrayList<>();
+  private final AtomicInteger nextSessionId = new AtomicInteger();
+  private final ResponseTimes responseTimes = new ResponseTimes();
+  private volatile boolean closed;
+
+  private TerminalSessionManager(Builder builder) {
+    ownsEventLoopGroup = builder.eventLoopGroup == null;
+    eventLoopGroup = ownsEventLoopGroup ? new SelectorEventLoopGroup(builder.selectorThreads)
+        : builder.eventLoopGroup;
+    keepAliveScheduler = builder.keepAliveScheduler;
+    recordBufferPool = builder.recordBufferPool;
+    waitScheduler = builder.waitScheduler;
+    sessionExecutor = builder.sessionExecutor;
+    connectExecutor = builder.connectExecutor;
+    listenerDispatcher = builder.listenerDispatcher;
+    connectionTimeoutMillis = builder.connectionTimeoutMillis;
+    inboundQueueSize = builder.inboundQueueSize;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Creates a new client configured with the shared resources of this manager.
+   *
+   * @param model model of the terminal. Known values are 2,3,4 and 5
+   * @param alternateScreenDimensions alternate screen dimensions in rows and columns
+   * @param charset charset of the terminal. Charset tables are loaded once and shared by all
+   * the clients using the same charset.
+   * @return the new client, not yet connected.
+   * @throws IllegalStateException if the manager is being drained or has been closed.
+   */
+  public TerminalClient newClient(int model, ScreenDimensions alternateScreenDimensions,
+      Charset charset) {
+    if (closed) {
+      throw new IllegalStateException("Session manager does not accept new sessions");
+    }
+    TerminalClient client = new TerminalClient(model, alternateScreenDimensions, charset);
+    client.setSelectorEventLoopGroup(eventLoopGroup);
+    client.setKeepAliveScheduler(keepAliveScheduler);
+    client.setRecordBufferPool(recordBufferPool);
+    client.setWaitScheduler(waitScheduler);
+    client.setConnectionTimeoutMillis(connectionTimeoutMillis);
+    client.setInboundQueueSize(inboundQueueSize);
+    client.setAggregateResponseTimes(responseTimes);
+    if (sessionExecutor != null) {
+      client.setSessionExecutor(sessionExecutor);
+    }
+    ManagedSession session = new ManagedSession(nextSessionId.incrementAndGet(), client);
+    // added before setting the dispatcher, so connection times are taken without its delay
+    client.addConnectionListener(session);
+    if (listenerDispatcher != null) {
+      client.setListenerDispatcher(listenerDispatcher);
+    }
+    sessions.add(session);
+    return client;
+  }
+
+  /**
+   * Gets the clients created by this manager which have not been disconnected.
+   *
+   * @return the clients in creation order.
+   */
+  public List<TerminalClient> getClients() {
+    List<TerminalClient> ret = new ArrayList<>(sessions.size());
+    for (ManagedSession session : sessions) {
+      ret.add(session.client);
+    }
+    return ret;
+  }
+
+  /**
+   * Connects all the clients which have not been connected yet, spreading the connections along a
+   * ramp-up period.
+   *
+   * @param host host name of the terminal server.
+   * @param port port where the terminal server is listening for connections.
+   * @param rampUpMillis period along which connections are evenly started. With 0 all of them are
+   * started at once.
+   * @return a future completed when all the clients are connected, or have failed to connect.
+   * Failed connections are reported in the statistics, and don't complete the future
+   * exceptionally.
+   */
+  public CompletableFuture<Void> connectAll(String host, int port, long rampUpMillis) {
+    List<ManagedSession> pending = new ArrayList<>();
+    for (ManagedSession session : sessions) {
+      if (session.startConnecting()) {
+        pending.add(session);
+      }
+    }
+    CompletableFuture<?>[] connections = new CompletableFuture<?>[pending.size()];
+    for (int i = 0; i < connections.length; i++) {
+      ManagedSession session = pending.get(i);
+      connections[i] = session.connected;
+      long delayMillis = rampUpMillis * i / connections.length;
+      if (delayMillis == 0) {
+        session.connect(host, port);
+      } else {
+        // the timer only hands connections over to the executor, since its tasks must not block
+        session.rampTimeout = waitScheduler.schedule(
+            () -> connectExecutor.execute(() -> session.connect(host, port)), delayMillis);
+      }
+    }
+    return CompletableFuture.allOf(connections);
+  }
+
+  /**
+   * Connects all the clients which have not been connected yet through a connection scheduler.
+   * <p>
+   * Unlike {@link #connectAll(String, int, long)}, the scheduler limits the rate and concurrency of
+   * the connections, retries the failed ones, and considers a connection established when the
+   * first screen is received.
+   *
+   * @param host host name of the terminal server.
+   * @param port port where the terminal server is listening for connections.
+   * @param connectionScheduler the scheduler which starts the connections.
+   * @return a future completed when all the clients have got their first screen, or have failed
+   * to connect after all the retries.
+   */
+  public CompletableFuture<Void> connectAll(String host, int port,
+      ConnectionScheduler connectionScheduler) {
+    List<CompletableFuture<Void>> connections = new ArrayList<>();
+    for (ManagedSession session : sessions) {
+      if (session.startConnecting()) {
+        connections.add(session.connect(host, port, connectionScheduler));
+      }
+    }
+    return CompletableFuture.allOf(connections.toArray(new CompletableFuture<?>[0]));
+  }
+
+  /**
+   * Stops accepting new clients and waits for the connected clients to have their keyboards
+   * unlocked, so no transaction is in progress.
+   *
+   * @param timeoutMillis maximum number of millis to wait for each client.
+   * @return a future completed when all the connected clients have the keyboard unlocked, or
+   * completed with a {@link java.util.concurrent.TimeoutException} when some of them don't.
+   */
+  public CompletableFuture<Void> drain(long timeoutMillis) {
+    closed = true;
+    List<CompletableFuture<Void>> waits = new ArrayList<>();
+    for (ManagedSession session : sessions) {
+      if (session.state == SessionStats.State.CONNECTED) {
+        waits.add(session.client.waitForKeyboardUnlock(0, timeoutMillis));
+      }
+    }
+    return CompletableFuture.allOf(waits.toArray(new CompletableFuture<?>[0]));
+  }
+
+  /**
+   * Disconnects all the clients and removes them from the manager.
+   *
+   * @throws InterruptedException thrown when a disconnect is interrupted.
+   */
+  public void disconnectAll() throws InterruptedException {
+    for (ManagedSession session : sessions) {
+      session.disconnect();
+      sessions.remove(session);
+    }
+  }
+
+  /**
+   * Gets the statistics of each session.
+   *
+   * @return the statistics of the sessions which have not been disconnected, in creation order.
+   */
+  public List<SessionStats> getSessionStats() {
+    List<SessionStats> ret = new ArrayList<>(sessions.size());
+    for (ManagedSession session : sessions) {
+      ret.add(session.getStats());
+    }
+    return ret;
+  }
+
+  /**
+   * Gets the statistics of all the sessions together.
+   *
+   * @return the aggregated statistics of the sessions which have not been disconnected.
+   */
+  public Stats getStats() {
+    int[] states = new int[SessionStats.State.values().length];
+    long exceptions = 0;
+    long connectNanos = 0;
+    long maxConnectNanos = 0;
+    int connections = 0;
+    for (ManagedSession session : sessions) {
+      SessionStats stats = session.getStats();
+      states[stats.getState().ordinal()]++;
+      exceptions += stats.getExceptions();
+      if (stats.getConnectNanos() >= 0) {
+        connections++;
+        connectNanos += stats.getConnectNanos();
+        maxConnectNanos = Math.max(maxConnectNanos, stats.getConnectNanos());
+      }
+    }
+    return new Stats(states, exceptions, connections > 0 ? connectNanos / connections : 0,
+        maxConnectNanos);
+  }
+
+  /**
+   * Gets the response times of all the sessions together.
+   * <p>
+   * The response times of each session can be obtained with {@link
+   * TerminalClient#getResponseTimes()}.
+   *
+   * @return the response times of all the clients created by this manager, including the ones
+   * already disconnected.
+   */
+  public ResponseTimes getResponseTimes() {
+    return responseTimes;
+  }
+
+  /**
+   * Disconnects all the clients and stops the resources created by this manager.
+   * <p>
+   * Resources provided through the builder are not stopped, since they may be shared with other
+   * managers or clients.
+   * <p>
+   * If the thread is interrupted while disconnecting, the remaining clients are not disconnected,
+   * but the resources are still stopped and the interrupt status of the thread is restored.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      disconnectAll();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (ownsEventLoopGroup) {
+        eventLoopGroup.close();
+      }
+    }
+  }
+
+  private static final class ManagedSession implements ConnectionPhaseListener {
+
+    private final int id;
+    private final TerminalClient client;
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+    private volatile SessionStats.State state = SessionStats.State.CREATED;
+    private volatile long connectStartNanos;
+    private volatile long connectNanos = -1;
+    // when connected through a scheduler, the state is set from its result
+    private volatile boolean scheduled;
+    // the client is only disconnected when its connection was started
+    private boolean connectStarted;
+    private volatile HashedWheelTimer.Timeout rampTimeout;
+    private final AtomicInteger exceptions = new AtomicInteger();
+
+    private ManagedSession(int id, TerminalClient client) {
+      this.id = id;
+      this.client = client;
+    }
+
+    private synchronized boolean startConnecting() {
+      if (state != SessionStats.State.CREATED) {
+        return false;
+      }
+      state = SessionStats.State.CONNECTING;
+      return true;
+    }
+
+    // connections are started asynchronously, so this doesn't hold the lock for long
+    private synchronized void connect(String host, int port) {
+      // the session may have been disconnected while waiting for the ramp-up
+      if (state != SessionStats.State.CONNECTING) {
+        return;
+      }
+      connectStarted = true;
+      connectStartNanos = System.nanoTime();
+      try {
+        client.connect(host, port);
+      } catch (RuntimeException e) {
+        onException(e);
+      }
+    }
+
+    private CompletableFuture<Void> connect(String host, int port,
+        ConnectionScheduler connectionScheduler) {
+      scheduled = true;
+      return connectionScheduler.connect(client, host, port).thenAccept(this::connected);
+    }
+
+    private synchronized void connected(ConnectionResult result) {
+      connectNanos = result.getConnectNanos();
+      if (state == SessionStats.State.CONNECTING) {
+        state = result.isSuccessful() ? SessionStats.State.CONNECTED : SessionStats.State.FAILED;
+      }
+      connected.complete(null);
+    }
+
+    @Override
+    public void onConnection() {
+      if (scheduled) {
+        return;
+      }
+      connectNanos = System.nanoTime() - connectStartNanos;
+      state = SessionStats.State.CONNECTED;
+      connected.complete(null);
+    }
+
+    @Override
+    public void onConnectionPhase(ConnectionPhase phase, long elapsedNanos) {
+      // connections started by a connection scheduler
+      if (phase == ConnectionPhase.CONNECT_STARTED) {
+        synchronized (this) {
+          connectStarted = true;
+        }
+      }
+    }
+
+    @Override
+    public void onException(Exception ex) {
+      exceptions.incrementAndGet();
+      if (!scheduled && state == SessionStats.State.CONNECTING) {
+        state = SessionStats.State.FAILED;
+        connected.complete(null);
+      }
+    }
+
+    @Override
+    public void onConnectionClosed() {
+      if (state == SessionStats.State.CONNECTED) {
+        state = SessionStats.State.CLOSED;
+      }
+    }
+
+    private void disconnect() throws InterruptedException {
+      boolean started;
+      synchronized (this) {
+        state = SessionStats.State.DISCONNECTED;
+        started = connectStarted;
+      }
+      HashedWheelTimer.Timeout timeout = rampTimeout;
+      if (timeout != null) {
+        timeout.cancel();
+      }
+      if (started) {
+        client.disconnect();
+      }
+      connected.complete(null);
+    }
+
+    private SessionStats getStats() {
+      return new SessionStats(id, state, connectNanos, exceptions.get());
+    }
+
+  }
+
+  /**
+   * Statistics of all the sessions of a manager.
+   */
+  public static final class Stats {
+
+    private final int[] sessionsByState;
+    private final long exceptions;
+    private final long averageConnectNanos;
+    private final long maxConnectNanos;
+
+    private Stats(int[] sessionsByState, long exceptions, long averageConnectNanos,
+        long maxConnectNanos) {
+      this.sessionsByState = sessionsByState;
+      this.exceptions = exceptions;
+      this.averageConnectNanos = averageConnectNanos;
+      this.maxConnectNanos = maxConnectNanos;
+    }
+
+    public int getSessions() {
+      int ret = 0;
+      for (int count : sessionsByState) {
+        ret += count;
+      }
+      return ret;
+    }
+
+    public int getSessions(SessionStats.State state) {
+      return sessionsByState[state.ordinal()];
+    }
+
+    public long getExceptions() {
+      return exceptions;
+    }
+
+    public long getAverageConnectNanos() {
+      return averageConnectNanos;
+    }
+
+    public long getMaxConnectNanos() {
+      return maxConnectNanos;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder();
+      for (SessionStats.State state : SessionStats.State.values()) {
+        text.append(state).append('=').append(getSessions(state)).append(", ");
+      }
+      return text.append(String.format("exceptions=%d, avgConnect=%,d us, maxConnect=%,d us",
+          exceptions, averageConnectNanos / 1000, maxConnectNanos / 1000)).toString();
+    }
+
+  }
+
+  /**
+   * Builder of {@link TerminalSessionManager} instances.
+   * <p>
+   * Resources which are not specified take the same defaults as {@link TerminalClient}, but for
+   * the {@link SelectorEventLoopGroup}, which is created by the manager.
+   */
+  public static class Builder {
+
+    private int selectorThreads = Runtime.getRuntime().availableProcessors();
+    private SelectorEventLoopGroup eventLoopGroup;
+    private KeepAliveScheduler keepAliveScheduler = KeepAliveScheduler.getDefault();
+    private RecordBufferPool recordBufferPool = RecordBufferPool.getDefault();
+    private WaitScheduler waitScheduler = WaitScheduler.getDefault();
+    private Executor sessionExecutor;
+    private Executor connectExecutor = ForkJoinPool.commonPool();
+    private ListenerDispatcher listenerDispatcher;
+    private int connectionTimeoutMillis;
+    private int inboundQueueSize;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the number of threads of the selector event loop group created by the manager.
+     *
+     * @param selectorThreads number of selector threads. By default, the number of available
+     * processors.
+     * @return this builder.
+     */
+    public Builder selectorThreads(int selectorThreads) {
+      this.selectorThreads = selectorThreads;
+      return this;
+    }
+
+    /**
+     * Sets an existing event loop group to be used instead of creating one.
+     *
+     * @param eventLoopGroup the group serving the connections, which is not closed by the
+     * manager.
+     * @return this builder.
+     */
+    public Builder eventLoopGroup(SelectorEventLoopGroup eventLoopGroup) {
+      this.eventLoopGroup = eventLoopGroup;
+      return this;
+    }
+
+    public Builder keepAliveScheduler(KeepAliveScheduler keepAliveScheduler) {
+      this.keepAliveScheduler = keepAliveScheduler;
+      return this;
+    }
+
+    public Builder recordBufferPool(RecordBufferPool recordBufferPool) {
+      this.recordBufferPool = recordBufferPool;
+      return this;
+    }
+
+    public Builder waitScheduler(WaitScheduler waitScheduler) {
+      this.waitScheduler = waitScheduler;
+      return this;
+    }
+
+    /**
+     * Sets the executor to run the sessions of all the clients.
+     *
+     * @param sessionExecutor the executor, usually a thread pool.
+     * @return this builder.
+     * @see TerminalClient#setSessionExecutor(Executor)
+     */
+    public Builder sessionExecutor(Executor sessionExecutor) {
+      this.sessionExecutor = sessionExecutor;
+      return this;
+    }
+
+    /**
+     * Sets the executor used to start the connections delayed by the ramp-up period of {@link
+     * TerminalSessionManager#connectAll(String, int, long)}.
+     *
+     * @param connectExecutor the executor to use. By default {@link ForkJoinPool#commonPool()}.
+     * @return this builder.
+     */
+    public Builder connectExecutor(Executor connectExecutor) {
+      this.connectExecutor = connectExecutor;
+      return this;
+    }
+
+    /**
+     * Sets the dispatcher used to notify the listeners of all the clients.
+     *
+     * @param listenerDispatcher the dispatcher to use.
+     * @return this builder.
+     * @see TerminalClient#setListenerDispatcher(ListenerDispatcher)
+     */
+    public Builder listenerDispatcher(ListenerDispatcher listenerDispatcher) {
+      this.listenerDispatcher = listenerDispatcher;
+      return this;
+    }
+
+    public Builder connectionTimeoutMillis(int connectionTimeoutMillis) {
+      this.connectionTimeoutMillis = connectionTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * Sets the size of the queue of records received by each client.
+     *
+     * @param inboundQueueSize maximum number of queued records.
+     * @return this builder.
+     * @see TerminalClient#setInboundQueueSize(int)
+     */
+    public Builder inboundQueueSize(int inboundQueueSize) {
+      this.inboundQueueSize = inboundQueueSize;
+      return this;
+    }
+
+    public TerminalSessionManager build() {
+      return new TerminalSessionManager(this);
+    }
+
+  }
+
+}
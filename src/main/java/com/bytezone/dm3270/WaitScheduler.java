@@ -0,0 +1,55 @@
+package com.bytezone.dm3270;
+
+import com.bytezone.dm3270.streams.HashedWheelTimer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the stable periods and timeouts of the conditions waited through the wait methods of
+ * {@link TerminalClient}.
+ * <p>
+ * All the clients using the same scheduler share a single {@link HashedWheelTimer} thread, and
+ * pending waits are just driven by screen events and timer tasks, so they don't hold any thread.
+ */
+public class WaitScheduler {
+
+  public static final long DEFAULT_TICK_MILLIS = 10;
+  public static final int DEFAULT_TICKS_PER_WHEEL = 1024;
+
+  private static final WaitScheduler DEFAULT_SCHEDULER =
+      new WaitScheduler(DEFAULT_TICK_MILLIS, DEFAULT_TICKS_PER_WHEEL);
+
+  private final HashedWheelTimer timer;
+
+  /**
+   * Creates a new scheduler.
+   *
+   * @param tickMillis granularity of the timer. Stable periods and timeouts may end up to this
+   * number of millis later than requested.
+   * @param ticksPerWheel number of buckets of the timer. Bigger values reduce the overhead of long
+   * waits, at the cost of more memory.
+   */
+  public WaitScheduler(long tickMillis, int ticksPerWheel) {
+    timer = new HashedWheelTimer("dm3270-waits", tickMillis, ticksPerWheel);
+  }
+
+  /**
+   * Gets the scheduler shared by all clients which have not been configured with a specific one.
+   *
+   * @return the default scheduler, with a granularity of 10 millis.
+   */
+  public static WaitScheduler getDefault() {
+    return DEFAULT_SCHEDULER;
+  }
+
+  HashedWheelTimer.Timeout schedule(Runnable task, long delayMillis) {
+    return timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the timer thread of the scheduler. No more waits can be scheduled afterwards.
+   */
+  public void stop() {
+    timer.stop();
+  }
+
+}
@@ -9,10 +9,22 @@ import com.bytezone.dm3270.display.FieldChangeListener;
 import com.bytezone.dm3270.display.Screen;
 import com.bytezone.dm3270.extended.CommandHeader;
 import com.bytezone.dm3270.extended.TN3270ExtendedCommand;
+import com.bytezone.dm3270.streams.InboundPipelineStats;
+import com.bytezone.dm3270.streams.NioTerminalServer;
+import com.bytezone.dm3270.streams.SelectorEventLoopGroup;
 import com.bytezone.dm3270.streams.TelnetListener;
 import com.bytezone.dm3270.streams.TelnetState;
 import com.bytezone.dm3270.streams.TerminalServer;
+import com.bytezone.dm3270.streams.TerminalTransport;
+import com.bytezone.dm3270.telnet.RecordBufferPool;
+import com.bytezone.dm3270.telnet.TelnetProcessor;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import javax.net.SocketFactory;
+import javax.net.ssl.SSLSocketFactory;
 
 public class ConsolePane implements FieldChangeListener, CursorMoveListener,
     KeyboardStatusListener {
@@ -23,10 +35,19 @@ public class ConsolePane implements FieldChangeListener, CursorMoveListener,
   private final Site server;
   private final SocketFactory socketFactory;
 
-  private TerminalServer terminalServer;
+  private TerminalTransport terminalServer;
   private Thread terminalServerThread;
   private int connectionTimeoutMillis;
   private ConnectionListener connectionListener;
+  private SelectorEventLoopGroup eventLoopGroup;
+  private ThreadFactory threadFactory = Thread::new;
+  private RecordBufferPool recordBufferPool = RecordBufferPool.getDefault();
+  private int maxRecordSize = TelnetProcessor.DEFAULT_MAX_RECORD_SIZE;
+  private Executor sessionExecutor;
+  private int inboundQueueSize;
+  private boolean hostResponsesRequested;
+  private ExecutorService processingExecutor;
+  private TelnetListener telnetListener;
 
   public ConsolePane(Screen screen, Site server, SocketFactory socketFactory) {
     this.screen = screen;
@@ -48,6 +69,41 @@ public class ConsolePane implements FieldChangeListener, CursorMoveListener,
     this.connectionListener = connectionListener;
   }
 
+  public void setSelectorEventLoopGroup(SelectorEventLoopGroup eventLoopGroup) {
+    this.eventLoopGroup = eventLoopGroup;
+  }
+
+  public void setThreadFactory(ThreadFactory threadFactory) {
+    this.threadFactory = threadFactory;
+  }
+
+  public void setRecordBufferPool(RecordBufferPool recordBufferPool) {
+    this.recordBufferPool = recordBufferPool;
+  }
+
+  public void setMaxRecordSize(int maxRecordSize) {
+    if (maxRecordSize <= 0) {
+      throw new IllegalArgumentException("Max record size must be positive: " + maxRecordSize);
+    }
+    this.maxRecordSize = maxRecordSize;
+  }
+
+  public void setSessionExecutor(Executor sessionExecutor) {
+    this.sessionExecutor = sessionExecutor;
+  }
+
+  public void setInboundQueueSize(int inboundQueueSize) {
+    this.inboundQueueSize = inboundQueueSize;
+  }
+
+  public void setHostResponsesRequested(boolean hostResponsesRequested) {
+    this.hostResponsesRequested = hostResponsesRequested;
+  }
+
+  public Optional<InboundPipelineStats> getInboundPipelineStats() {
+    return telnetListener != null ? telnetListener.getInboundPipelineStats() : Optional.empty();
+  }
+
   public void sendAID(byte aid, String name) {
     if (screen.isInsertMode()) {
       screen.toggleInsertMode();
@@ -55,6 +111,7 @@ public class ConsolePane implements FieldChangeListener, CursorMoveListener,
 
     screen.lockKeyboard(name);
     screen.setAID(aid);
+    screen.publishSnapshot();
 
     Command command = screen.readModifiedFields();
     sendAID(command);
@@ -68,12 +125,19 @@ public class ConsolePane implements FieldChangeListener, CursorMoveListener,
       if (screen.isSscpLuData()) {
         buffer[0] = 0x07;
       }
+      // only ask for a response if the server agreed to send them
+      boolean responseRequested = hostResponsesRequested && telnetState.doesResponses();
+      if (responseRequested) {
+        buffer[2] = 0x02;           // ALWAYS-RESPONSE
+      }
       Buffer.packUnsignedShort(telnetState.nextCommandHeaderSeq(), buffer, 3);
       CommandHeader header = new CommandHeader(buffer, screen.getCharset());
       TN3270ExtendedCommand extendedCommand = new TN3270ExtendedCommand(header, command,
           telnetState, screen.getCharset());
+      telnetState.requestSent(header.getSequenceNumber(), responseRequested);
       telnetState.write(extendedCommand.getTelnetData());
     } else {
+      telnetState.requestSent();
       telnetState.write(command.getTelnetData());
     }
   }
@@ -87,15 +151,43 @@ public class ConsolePane implements FieldChangeListener, CursorMoveListener,
     telnetState.setDo3270Extended(server.getExtended());
     telnetState.setDoTerminalType(true);
 
-    TelnetListener telnetListener = new TelnetListener(screen, telnetState);
-    terminalServer =
-        new TerminalServer(server.getURL(), server.getPort(), socketFactory, telnetListener);
+    telnetListener = new TelnetListener(screen, telnetState);
+    telnetListener.setConnectionListener(connectionListener);
+    telnetListener.setRecordBufferPool(recordBufferPool);
+    telnetListener.setMaxRecordSize(maxRecordSize);
+    telnetListener.setExecutor(sessionExecutor);
+    if (inboundQueueSize > 0) {
+      Executor executor = sessionExecutor;
+      if (executor == null) {
+        processingExecutor = Executors.newSingleThreadExecutor(threadFactory);
+        executor = processingExecutor;
+      }
+      telnetListener.setInboundQueue(inboundQueueSize, executor);
+    }
+    if (eventLoopGroup != null) {
+      if (socketFactory instanceof SSLSocketFactory) {
+        throw new IllegalStateException(
+            "SSL socket factories are not supported by selector event loop connections");
+      }
+      NioTerminalServer nioTerminalServer = new NioTerminalServer(server.getURL(),
+          server.getPort(), eventLoopGroup, telnetListener);
+      configureTerminalServer(nioTerminalServer);
+      nioTerminalServer.connect();
+    } else {
+      TerminalServer blockingTerminalServer =
+          new TerminalServer(server.getURL(), server.getPort(), socketFactory, telnetListener);
+      configureTerminalServer(blockingTerminalServer);
+      terminalServerThread = threadFactory.newThread(blockingTerminalServer);
+      terminalServerThread.start();
+    }
+  }
+
+  private void configureTerminalServer(TerminalTransport terminalServer) {
+    this.terminalServer = terminalServer;
     terminalServer.setConnectionTimeoutMillis(connectionTimeoutMillis);
     terminalServer.setConnectionListener(connectionListener);
+    terminalServer.setTelnetState(telnetState);
     telnetState.setTerminalServer(terminalServer);
-
-    terminalServerThread = new Thread(terminalServer);
-    terminalServerThread.start();
   }
 
   public void disconnect() throws InterruptedException {
@@ -109,6 +201,10 @@ public class ConsolePane implements FieldChangeListener, CursorMoveListener,
       terminalServerThread.interrupt();
       terminalServerThread.join();
     }
+
+    if (processingExecutor != null) {
+      processingExecutor.shutdown();
+    }
   }
 
   @Override
@@ -2,6 +2,7 @@ package com.bytezone.dm3270.attributes;
 
 import com.bytezone.dm3270.display.ScreenContext;
 import java.util.Optional;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,20 +61,31 @@ public abstract class Attribute {
     return attributeType;
   }
 
+  /**
+   * Gets the attribute with the given code and value.
+   * <p>
+   * Attributes other than {@link StartFieldAttribute} are immutable, so the same instance is
+   * returned every time for the same code and value.
+   *
+   * @param attributeCode type of the attribute.
+   * @param attributeValue value of the attribute.
+   * @return the attribute, or empty if the attribute type is not supported.
+   */
   public static Optional<Attribute> getAttribute(byte attributeCode, byte attributeValue) {
     switch (attributeCode) {
       case 0:
-        return Optional.of(new ResetAttribute(attributeValue));
+        return Attributes.RESETS[attributeValue & 0xFF];
       case XA_START_FIELD:
+        // start field attributes are modified by fields, so each one needs its own instance
         return Optional.of(new StartFieldAttribute(attributeValue));
       case XA_HIGHLIGHTING:
-        return Optional.of(new ExtendedHighlight(attributeValue));
+        return Attributes.HIGHLIGHTS[attributeValue & 0xFF];
       case XA_BGCOLOR:
-        return Optional.of(new BackgroundColor(attributeValue));
+        return Attributes.BACKGROUND_COLORS[attributeValue & 0xFF];
       case XA_FGCOLOR:
-        return Optional.of(new ForegroundColor(attributeValue));
+        return Attributes.FOREGROUND_COLORS[attributeValue & 0xFF];
       case XA_CHARSET:
-        return Optional.of(new Charset(attributeValue));
+        return Attributes.CHARSETS[attributeValue & 0xFF];
       case XA_VALIDATION:
         LOG.warn("Validation not written");
         return Optional.empty();
@@ -123,4 +135,24 @@ public abstract class Attribute {
     return String.format("%-12s : %02X", name(), attributeValue);
   }
 
+  // shared instances of the immutable attributes, for every possible value
+  private static final class Attributes {
+
+    private static final Optional<Attribute>[] RESETS = build(ResetAttribute::new);
+    private static final Optional<Attribute>[] HIGHLIGHTS = build(ExtendedHighlight::new);
+    private static final Optional<Attribute>[] BACKGROUND_COLORS = build(BackgroundColor::new);
+    private static final Optional<Attribute>[] FOREGROUND_COLORS = build(ForegroundColor::new);
+    private static final Optional<Attribute>[] CHARSETS = build(Charset::new);
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Optional<Attribute>[] build(Function<Byte, Attribute> constructor) {
+      Optional<Attribute>[] attributes = new Optional[256];
+      for (int i = 0; i < attributes.length; i++) {
+        attributes[i] = Optional.of(constructor.apply((byte) i));
+      }
+      return attributes;
+    }
+
+  }
+
 }
@@ -11,6 +11,15 @@ public class StartFieldAttribute extends Attribute {
   private static final Color GREEN = ColorAttribute.COLORS[4];
   private static final Color BLACK = ColorAttribute.COLORS[8];
 
+  private static final ScreenContext PROTECTED_CONTEXT =
+      ScreenContext.of(BLUE, BLACK, (byte) 0, false, false);
+  private static final ScreenContext UNPROTECTED_CONTEXT =
+      ScreenContext.of(GREEN, BLACK, (byte) 0, false, false);
+  private static final ScreenContext PROTECTED_INTENSE_CONTEXT =
+      ScreenContext.of(WHITE, BLACK, (byte) 0, true, false);
+  private static final ScreenContext UNPROTECTED_INTENSE_CONTEXT =
+      ScreenContext.of(RED, BLACK, (byte) 0, true, false);
+
   private final boolean isProtected;      // bit 2
   private final boolean isNumeric;        // bit 3
   private final boolean isModified;       // bit 7
@@ -84,9 +93,10 @@ public class StartFieldAttribute extends Attribute {
   public ScreenContext process(ScreenContext unused1, ScreenContext unused2) {
     assert unused1 == null && unused2 == null;
 
-    Color color = isHighIntensity ? isProtected ? WHITE : RED : isProtected ? BLUE : GREEN;
-
-    return new ScreenContext(color, BLACK, (byte) 0, isHighIntensity, false);
+    if (isHighIntensity) {
+      return isProtected ? PROTECTED_INTENSE_CONTEXT : UNPROTECTED_INTENSE_CONTEXT;
+    }
+    return isProtected ? PROTECTED_CONTEXT : UNPROTECTED_CONTEXT;
   }
 
   private String getColorName() {
@@ -5,16 +5,24 @@ import com.bytezone.dm3270.display.Cursor;
 import com.bytezone.dm3270.display.Screen;
 import com.bytezone.dm3270.display.Screen.ScreenOption;
 import com.bytezone.dm3270.orders.Order;
+import com.bytezone.dm3270.orders.OrderStreamProcessor;
 import com.bytezone.dm3270.orders.TextOrder;
 import java.util.ArrayList;
 import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class WriteCommand extends Command {
 
+  private static final Logger LOG = LoggerFactory.getLogger(WriteCommand.class);
+  private static final int ORDERS_OFFSET = 2;
+
   private final boolean eraseWrite;
   private final boolean alternate;
   private final WriteControlCharacter writeControlCharacter;
-  private final List<Order> orders = new ArrayList<>();
+  private final Charset charset;
+  // only created when tracing or for toString, since orders are usually processed as a stream
+  private List<Order> orders;
 
   public WriteCommand(byte[] buffer, int offset, int length, Charset charset) {
     super(buffer, offset, length);
@@ -30,23 +38,38 @@ public class WriteCommand extends Command {
         || buffer[offset] == Command.ERASE_WRITE_ALTERNATE_7E;
     writeControlCharacter =
         length > 1 ? new WriteControlCharacter(buffer[offset + 1]) : null;
+    this.charset = charset;
+  }
+
+  private boolean hasOrders() {
+    return data.length > ORDERS_OFFSET;
+  }
 
-    int ptr = offset + 2;
+  private List<Order> getOrders() {
+    if (orders != null) {
+      return orders;
+    }
+
+    // orders reference the copy of the buffer owned by this command
+    List<Order> parsedOrders = new ArrayList<>();
+    int ptr = ORDERS_OFFSET;
     Order previousOrder = null;
 
-    int max = offset + length;
+    int max = data.length;
     while (ptr < max) {
-      Order order = Order.getOrder(buffer, ptr, max, charset);
+      Order order = Order.getOrder(data, ptr, max, charset);
 
       if (order.matchesPreviousOrder(previousOrder)) {
         previousOrder.incrementDuplicates();           // and discard this Order
       } else {
-        orders.add(order);
+        parsedOrders.add(order);
         previousOrder = order;
       }
 
       ptr += order.size();
     }
+    orders = parsedOrders;
+    return orders;
   }
 
   @Override
@@ -66,9 +89,14 @@ public class WriteCommand extends Command {
       screen.lockKeyboard("Write");
     }
 
-    if (orders.size() > 0) {
-      for (Order order : orders) {
-        order.process(screen);         // modifies pen
+    if (hasOrders()) {
+      if (LOG.isTraceEnabled()) {
+        for (Order order : getOrders()) {
+          order.process(screen);         // modifies pen
+        }
+        LOG.trace("Processed {}", this);
+      } else {
+        OrderStreamProcessor.process(data, ORDERS_OFFSET, data.length, screen);
       }
 
       cursor.moveTo(cursorLocation);
@@ -85,7 +113,7 @@ public class WriteCommand extends Command {
 
     // should check for suppressDisplay
     if (!screen.isKeyboardLocked() && screen.getFieldManager().size() > 0) {
-      if (orders.size() > 0 || !writeControlCharacter.isResetModified()) {
+      if (hasOrders() || !writeControlCharacter.isResetModified()) {
         setReply(null);
       }
     }
@@ -107,12 +135,13 @@ public class WriteCommand extends Command {
     text.append(getName());
     text.append("\nWCC : ").append(writeControlCharacter);
 
+    List<Order> writeOrders = getOrders();
     // if the list begins with a TextOrder then tab out the missing columns
-    if (orders.size() > 0 && orders.get(0) instanceof TextOrder) {
+    if (writeOrders.size() > 0 && writeOrders.get(0) instanceof TextOrder) {
       text.append(String.format("%40s", ""));
     }
 
-    for (Order order : orders) {
+    for (Order order : writeOrders) {
       String fmt = (order.isText()) ? "%s" : "%n%-40s";
       text.append(String.format(fmt, order));
     }
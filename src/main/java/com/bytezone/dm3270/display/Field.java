@@ -1,8 +1,6 @@
 package com.bytezone.dm3270.display;
 
 import com.bytezone.dm3270.attributes.StartFieldAttribute;
-import java.io.UnsupportedEncodingException;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -32,7 +30,7 @@ public class Field implements Iterable<ScreenPosition> {
     ScreenPosition firstScreenPosition = positions.get(0);
     ScreenPosition lastScreenPosition = positions.get(positions.size() - 1);
 
-    screenPositions = new ArrayList<>(positions);
+    screenPositions = positions;
     startFieldAttribute = firstScreenPosition.getStartFieldAttribute();
 
     startPosition = firstScreenPosition.getPosition();
@@ -71,6 +69,10 @@ public class Field implements Iterable<ScreenPosition> {
     return screenDimensions.size - startPosition + cursorLocation;
   }
 
+  StartFieldAttribute getStartFieldAttribute() {
+    return startFieldAttribute;
+  }
+
   public boolean isHidden() {
     return startFieldAttribute.isHidden();
   }
@@ -167,12 +169,8 @@ public class Field implements Iterable<ScreenPosition> {
   }
 
   public void setText(String text) {
-    try {
-      erase();                                     // sets the field to modified
-      setText(text.getBytes(screen.getCharset().name()));
-    } catch (UnsupportedEncodingException e) {
-      e.printStackTrace();
-    }
+    erase();                                     // sets the field to modified
+    setText(screen.getCharset().getBytes(text));
   }
 
   public void setText(byte[] buffer) {
@@ -3,6 +3,7 @@ package com.bytezone.dm3270.display;
 import com.bytezone.dm3270.attributes.Attribute;
 import com.bytezone.dm3270.attributes.StartFieldAttribute;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -17,8 +18,11 @@ public class FieldManager {
 
   private final List<Field> fields = new CopyOnWriteArrayList<>();
   private final List<Field> unprotectedFields = new ArrayList<>();
+  // replaced as a whole when fields are built, so readers always see a consistent index
+  private volatile FieldIndex fieldIndex = FieldIndex.EMPTY;
 
   private final Set<ScreenChangeListener> screenChangeListeners = ConcurrentHashMap.newKeySet();
+  private final Set<ScreenDeltaListener> screenDeltaListeners = ConcurrentHashMap.newKeySet();
 
   public FieldManager(Screen screen, ScreenDimensions screenDimensions) {
     this.screen = screen;
@@ -34,25 +38,113 @@ public class FieldManager {
   public void reset() {
     fields.clear();
     unprotectedFields.clear();
+    fieldIndex = FieldIndex.EMPTY;
   }
 
-  // this is called after the pen and screen positions have been modified
-  public void buildFields(ScreenPosition[] screenPositions) {
+  /**
+   * Updates the fields after the pen has modified some screen positions.
+   * <p>
+   * When start fields are still in the same positions only the fields which overlap the modified
+   * positions are processed again, and the rest of {@link Field} instances are kept. Otherwise all
+   * the fields are built again.
+   *
+   * @param screenBuffer contents of the screen.
+   * @param pen the pen which recorded the modified positions.
+   */
+  public void updateFields(ScreenBuffer screenBuffer, Pen pen) {
+    int firstModified = pen.getFirstModifiedPosition();
+    int lastModified = pen.getLastModifiedPosition();
+    int[] startPositions = getStartPositions(screenBuffer);
+    FieldIndex currentIndex = fieldIndex;
+    boolean layoutChanged = !Arrays.equals(startPositions, currentIndex.startPositions)
+        || currentIndex.fieldIndexes.length != screenBuffer.size();
+    if (layoutChanged) {
+      buildAllFields(screenBuffer, startPositions);
+    } else if (firstModified >= 0) {
+      updateModifiedFields(screenBuffer, currentIndex, firstModified, lastModified);
+    }
+    screenWatcher.check();
+    fireScreenChanged(screenWatcher);
+    if (!screenDeltaListeners.isEmpty()) {
+      fireScreenDelta(buildScreenDelta(layoutChanged, pen.getModifiedRegions()));
+    }
+  }
+
+  private void buildAllFields(ScreenBuffer screenBuffer, int[] startPositions) {
     reset();
 
     //to avoid inefficiency when coping and adding in a 
     // CopyOnWriteArrayList we use this list to add all at once;
     List<Field> auxFields = new ArrayList<>();
-    for (List<ScreenPosition> protoField : divide(screenPositions)) {
-      auxFields.add(new Field(screen, protoField));
-      setContexts(protoField);
+    short[] fieldIndexes = new short[screenBuffer.size()];
+    Arrays.fill(fieldIndexes, (short) -1);
+    for (int i = 0; i < startPositions.length; i++) {
+      int first = startPositions[i];
+      int length = getFieldLength(startPositions, i, screenBuffer.size());
+      auxFields.add(new Field(screen, screenBuffer.getScreenPositions(first, length)));
+      setContexts(screenBuffer, first, length);
+      for (int j = 0, position = first; j < length; j++) {
+        fieldIndexes[position] = (short) i;
+        if (++position == fieldIndexes.length) {
+          position = 0;
+        }
+      }
     }
 
     fields.addAll(auxFields);
+    linkFields();
+    fieldIndex = new FieldIndex(auxFields.toArray(new Field[0]), startPositions, fieldIndexes);
+  }
+
+  // start fields are in the same positions, so only the contents of some fields changed
+  private void updateModifiedFields(ScreenBuffer screenBuffer, FieldIndex currentIndex,
+      int firstModified, int lastModified) {
+    int[] startPositions = currentIndex.startPositions;
+    boolean replaced = false;
+    for (int i = 0; i < startPositions.length; i++) {
+      int first = startPositions[i];
+      int length = getFieldLength(startPositions, i, screenBuffer.size());
+      if (!overlaps(first, length, firstModified, lastModified, screenBuffer.size())) {
+        continue;
+      }
+      // a new start field attribute may have been written in the same position
+      if (fields.get(i).getStartFieldAttribute() != screenBuffer.getStartFieldAttribute(first)) {
+        fields.set(i, new Field(screen, screenBuffer.getScreenPositions(first, length)));
+        replaced = true;
+      }
+      setContexts(screenBuffer, first, length);
+    }
+
+    if (replaced) {
+      linkFields();
+      fieldIndex = new FieldIndex(fields.toArray(new Field[0]), startPositions,
+          currentIndex.fieldIndexes);
+    }
+  }
+
+  private static int getFieldLength(int[] startPositions, int fieldNo, int screenSize) {
+    int first = startPositions[fieldNo];
+    int next = startPositions[(fieldNo + 1) % startPositions.length];
+    return next > first ? next - first : next - first + screenSize;
+  }
+
+  // checks if a field, which may wrap around the end of the screen, overlaps a range
+  private static boolean overlaps(int first, int length, int rangeFirst, int rangeLast,
+      int screenSize) {
+    int last = first + length - 1;
+    if (last < screenSize) {
+      return rangeFirst <= last && rangeLast >= first;
+    }
+    return rangeLast >= first || rangeFirst <= last - screenSize;
+  }
+
+  private void linkFields() {
+    unprotectedFields.clear();
     // link uprotected fields
     Field previousUnprotectedField = null;
 
     for (Field field : fields) {
+      field.setCircular(false);
       if (field.isUnprotected()) {
         unprotectedFields.add(field);
         if (previousUnprotectedField != null) {
@@ -80,8 +172,6 @@ public class FieldManager {
       }
     }
     configureCircularField();
-    screenWatcher.check();
-    fireScreenChanged(screenWatcher);
   }
 
   private void configureCircularField() {
@@ -98,9 +188,8 @@ public class FieldManager {
     fields.add(field);
   }
 
-  // should this be indexed?
   public Optional<Field> getFieldAt(int position) {
-    return fields.parallelStream().filter(f -> f.contains(position)).findAny();
+    return fieldIndex.getFieldAt(position);
   }
 
   public List<Field> getUnprotectedFields() {
@@ -203,83 +292,142 @@ public class FieldManager {
   }
 
   // ---------------------------------------------------------------------------------//
-  // Divide the ScreenPositions into fields
+  // ScreenDeltaListeners
   // ---------------------------------------------------------------------------------//
 
-  private static List<List<ScreenPosition>> divide(ScreenPosition[] screenPositions) {
-    List<List<ScreenPosition>> components = new ArrayList<>();
-    List<ScreenPosition> positions = new ArrayList<>();
-
-    boolean inField = false;
-    int ptr = 0;
-
-    while (ptr < screenPositions.length) {
-      ScreenPosition screenPosition = screenPositions[ptr++];
+  private ScreenDelta buildScreenDelta(boolean layoutChanged, List<ScreenDelta.Region> regions) {
+    FieldIndex currentIndex = fieldIndex;
+    if (layoutChanged) {
+      return new ScreenDelta(true, regions, Arrays.asList(currentIndex.fields));
+    }
 
-      // check for the start of a new field
-      if (screenPosition.isStartField()) {
-        if (inField) {
-          components.add(new ArrayList<>(positions));
-          positions.clear();
+    boolean[] changed = new boolean[currentIndex.fields.length];
+    int columns = screenDimensions.columns;
+    for (ScreenDelta.Region region : regions) {
+      int first = region.getRow() * columns + region.getFirstColumn();
+      int last = region.getRow() * columns + region.getLastColumn();
+      for (int position = first; position <= last; position++) {
+        short index = currentIndex.fieldIndexes[position];
+        if (index >= 0) {
+          changed[index] = true;
         }
-        inField = true;
       }
+    }
 
-      if (inField) {
-        positions.add(screenPosition);
+    List<Field> changedFields = new ArrayList<>();
+    for (int i = 0; i < changed.length; i++) {
+      if (changed[i]) {
+        changedFields.add(currentIndex.fields[i]);
       }
     }
+    return new ScreenDelta(false, regions, changedFields);
+  }
 
-    if (inField && !positions.isEmpty()) {
-      //check if is a circular screen position component
-      if (positions.get(0) == screenPositions[0] || !components.isEmpty() && !components.get(0)
-          .get(0).equals(screenPositions[0])) {
-        int circularUntil = !components.isEmpty() ? components.get(0).get(0).getPosition()
-            : positions.get(0).getPosition();
-        ptr = 0;
-        while (ptr < circularUntil) {
-          positions.add(screenPositions[ptr++]);
-        }
+  private void fireScreenDelta(ScreenDelta screenDelta) {
+    screenDeltaListeners.forEach(listener -> listener.screenChanged(screenDelta));
+  }
+
+  public void addScreenDeltaListener(ScreenDeltaListener listener) {
+    screenDeltaListeners.add(listener);
+  }
+
+  public void removeScreenDeltaListener(ScreenDeltaListener listener) {
+    screenDeltaListeners.remove(listener);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  // Divide the ScreenPositions into fields
+  // ---------------------------------------------------------------------------------//
+
+  // each field goes from its start position to the next one, and the last one wraps around
+  private static int[] getStartPositions(ScreenBuffer screenBuffer) {
+    int count = 0;
+    for (int i = 0; i < screenBuffer.size(); i++) {
+      if (screenBuffer.isStartField(i)) {
+        count++;
       }
-      components.add(new ArrayList<>(positions));
     }
 
-    return components;
+    int[] startPositions = new int[count];
+    int ptr = 0;
+    for (int i = 0; ptr < count; i++) {
+      if (screenBuffer.isStartField(i)) {
+        startPositions[ptr++] = i;
+      }
+    }
+    return startPositions;
   }
 
   // ---------------------------------------------------------------------------------//
   // Process a field's ScreenPositions
   // ---------------------------------------------------------------------------------//
 
-  private void setContexts(List<ScreenPosition> positions) {
-    StartFieldAttribute startFieldAttribute = positions.get(0).getStartFieldAttribute();
+  private void setContexts(ScreenBuffer screenBuffer, int first, int length) {
+    StartFieldAttribute startFieldAttribute = screenBuffer.getStartFieldAttribute(first);
     ScreenContext defaultContext = startFieldAttribute.process(null, null);
 
     if (startFieldAttribute.isExtended()) {
-      setExtendedContext(defaultContext, positions);
+      setExtendedContext(defaultContext, screenBuffer, first, length);
     } else {
-      positions.forEach(sp -> sp.setScreenContext(defaultContext));
+      for (int i = 0, position = first; i < length; i++) {
+        screenBuffer.setContext(position, defaultContext);
+        if (++position == screenBuffer.size()) {
+          position = 0;
+        }
+      }
     }
 
   }
 
-  private void setExtendedContext(ScreenContext defaultContext,
-      List<ScreenPosition> positions) {
-    boolean first = true;
+  private void setExtendedContext(ScreenContext defaultContext, ScreenBuffer screenBuffer,
+      int first, int length) {
+    boolean isFirst = true;
     ScreenContext currentContext = defaultContext;
 
-    for (ScreenPosition screenPosition : positions) {
-      for (Attribute attribute : screenPosition.getAttributes()) {
+    for (int i = 0, position = first; i < length; i++) {
+      for (Attribute attribute : screenBuffer.getAttributes(position)) {
         currentContext =
             attribute.process(defaultContext, currentContext);
       }
 
-      if (first) {
-        first = false;
+      if (isFirst) {
+        isFirst = false;
         defaultContext = currentContext;
       }
-      screenPosition.setScreenContext(currentContext);
+      screenBuffer.setContext(position, currentContext);
+      if (++position == screenBuffer.size()) {
+        position = 0;
+      }
     }
   }
 
+  // ---------------------------------------------------------------------------------//
+  // Index of the field containing each position
+  // ---------------------------------------------------------------------------------//
+
+  private static final class FieldIndex {
+
+    private static final FieldIndex EMPTY =
+        new FieldIndex(new Field[0], new int[0], new short[0]);
+
+    private final Field[] fields;
+    private final int[] startPositions;
+    private final short[] fieldIndexes;
+
+    private FieldIndex(Field[] fields, int[] startPositions, short[] fieldIndexes) {
+      this.fields = fields;
+      this.startPositions = startPositions;
+      this.fieldIndexes = fieldIndexes;
+    }
+
+    private Optional<Field> getFieldAt(int position) {
+      if (position < 0 || position >= fieldIndexes.length) {
+        return Optional.empty();
+      }
+      short index = fieldIndexes[position];
+      return index < 0 ? Optional.empty() : Optional.of(fields[index]);
+    }
+
+  }
+
 }
@@ -1,14 +1,13 @@
 package com.bytezone.dm3270.display;
 
-import com.bytezone.dm3270.Charset;
 import com.bytezone.dm3270.attributes.Attribute;
 import com.bytezone.dm3270.attributes.StartFieldAttribute;
+import java.util.List;
 
 public interface Pen extends Iterable<ScreenPosition> {
 
-  static Pen getInstance(ScreenPosition[] screenPositions, ScreenDimensions screenDimensions,
-      Charset charset) {
-    return new PenType1(screenPositions, screenDimensions, charset);
+  static Pen getInstance(ScreenBuffer screenBuffer, ScreenDimensions screenDimensions) {
+    return new PenType1(screenBuffer, screenDimensions);
   }
 
   void clearScreen();
@@ -23,6 +22,8 @@ public interface Pen extends Iterable<ScreenPosition> {
 
   void write(byte b);
 
+  void write(byte[] buffer, int offset, int length);
+
   void moveRight();
 
   void moveToNextLine();
@@ -39,4 +40,13 @@ public interface Pen extends Iterable<ScreenPosition> {
 
   Iterable<ScreenPosition> fromCurrentPosition();
 
+  // range of positions modified since the last reset, or -1 if none was modified
+  int getFirstModifiedPosition();
+
+  int getLastModifiedPosition();
+
+  List<ScreenDelta.Region> getModifiedRegions();
+
+  void resetModifiedPositions();
+
 }
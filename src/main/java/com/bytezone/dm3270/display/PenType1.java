@@ -1,9 +1,9 @@
 package com.bytezone.dm3270.display;
 
-import com.bytezone.dm3270.Charset;
 import com.bytezone.dm3270.attributes.Attribute;
 import com.bytezone.dm3270.attributes.StartFieldAttribute;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import org.slf4j.Logger;
@@ -12,32 +12,35 @@ import org.slf4j.LoggerFactory;
 class PenType1 implements Pen {
 
   private static final Logger LOG = LoggerFactory.getLogger(PenType1.class);
+  private static final Attribute APL_CHARSET =
+      Attribute.getAttribute(Attribute.XA_CHARSET, (byte) 0xf1).get();
 
-  private final ScreenPosition[] screenPositions;   // owned by Screen
+  private final ScreenBuffer screenBuffer;          // owned by Screen
 
   private int currentPosition;
   private boolean formattedScreen;
   private ScreenDimensions screenDimensions;
 
+  // positions modified since the fields were last updated, as a whole and by row
+  private int firstModifiedPosition;
+  private int lastModifiedPosition;
+  private int[] firstModifiedColumns;
+  private int[] lastModifiedColumns;
+
   private final List<Attribute> pendingAttributes = new ArrayList<>();
 
   // created by Screen and HistoryScreen
-  PenType1(ScreenPosition[] screenPositions, ScreenDimensions screenDimensions,
-      Charset charset) {
-    this.screenPositions = screenPositions;
+  PenType1(ScreenBuffer screenBuffer, ScreenDimensions screenDimensions) {
+    this.screenBuffer = screenBuffer;
     this.screenDimensions = screenDimensions;
-
-    for (int i = 0; i < screenPositions.length; i++) {
-      screenPositions[i] = new ScreenPosition(i, ScreenContext.DEFAULT_CONTEXT, charset);
-    }
+    createModifiedRows();
   }
 
   @Override
   public void clearScreen() {
     currentPosition = 0;
-    for (ScreenPosition screenPosition : screenPositions) {
-      screenPosition.reset();
-    }
+    screenBuffer.clear();
+    setAllModified();
 
     formattedScreen = false;
   }
@@ -46,10 +49,9 @@ class PenType1 implements Pen {
   public void startField(StartFieldAttribute startFieldAttribute) {
     formattedScreen = true;
 
-    ScreenPosition screenPosition = screenPositions[currentPosition];
-
-    screenPosition.reset();
-    screenPosition.setStartField(startFieldAttribute);
+    screenBuffer.reset(currentPosition);
+    screenBuffer.setStartField(currentPosition, startFieldAttribute);
+    setModified(currentPosition);
 
     // sometimes a reset attribute is overwritten by a new SFA
     if (pendingAttributes.size() > 0) {
@@ -69,32 +71,54 @@ class PenType1 implements Pen {
 
   @Override
   public void writeGraphics(byte b) {
-    ScreenPosition screenPosition = screenPositions[currentPosition];
-    screenPosition.reset();
-    screenPosition.setAplGraphicChar(b);
-    screenPosition.addAttribute(new com.bytezone.dm3270.attributes.Charset((byte) 0xf1));
+    screenBuffer.reset(currentPosition);
+    screenBuffer.setAplGraphicChar(currentPosition, b);
+    screenBuffer.addAttribute(currentPosition, APL_CHARSET);
+    setModified(currentPosition);
     moveRight();
   }
 
   @Override
   public void write(byte b) {
-    ScreenPosition screenPosition = screenPositions[currentPosition];
-    screenPosition.reset();
-    screenPosition.setChar(b);
+    screenBuffer.resetChar(currentPosition, b);
+    setModified(currentPosition);
     moveRight();
   }
 
-  private void applyAttributes(ScreenPosition screenPosition) {
+  @Override
+  public void write(byte[] buffer, int offset, int length) {
+    if (length == 0) {
+      return;
+    }
+    // first one applies any pending attribute
+    write(buffer[offset]);
+    if (length == 1) {
+      return;
+    }
+
+    int position = currentPosition;
+    int last = position + length - 2;
+    if (last < screenBuffer.size()) {
+      setModified(position, last);
+    } else {
+      setAllModified();
+    }
+    screenBuffer.resetChars(position, buffer, offset + 1, length - 1);
+    currentPosition = (position + length - 1) % screenBuffer.size();
+  }
+
+  private void applyAttributes(int position) {
     for (Attribute attribute : pendingAttributes) {
-      screenPosition.addAttribute(attribute);
+      screenBuffer.addAttribute(position, attribute);
     }
+    setModified(position);
     pendingAttributes.clear();
   }
 
   @Override
   public void moveRight() {
     if (pendingAttributes.size() > 0) {
-      applyAttributes(screenPositions[currentPosition]);
+      applyAttributes(currentPosition);
     }
 
     currentPosition = validate(currentPosition + 1);
@@ -103,7 +127,7 @@ class PenType1 implements Pen {
   @Override
   public void moveToNextLine() {
     if (pendingAttributes.size() > 0) {
-      applyAttributes(screenPositions[currentPosition]);
+      applyAttributes(currentPosition);
     }
     int currentRow = (currentPosition / screenDimensions.columns);
     currentPosition = validate((currentRow + 1) * screenDimensions.columns);
@@ -117,20 +141,19 @@ class PenType1 implements Pen {
     }
 
     while (true) {
-      ScreenPosition screenPosition = screenPositions[currentPosition];
-      if (screenPosition.isStartField()) {
+      if (screenBuffer.isStartField(currentPosition)) {
         break;
       }
-      screenPosition.setChar((byte) 0);
+      screenBuffer.setChar(currentPosition, (byte) 0);
+      setModified(currentPosition);
       moveRight();
     }
   }
 
   @Override
   public void tab() {
-    ScreenPosition screenPosition = screenPositions[currentPosition];
-    if (screenPosition.isStartField()
-        && !screenPosition.getStartFieldAttribute().isProtected()) {
+    if (screenBuffer.isStartField(currentPosition)
+        && !screenBuffer.getStartFieldAttribute(currentPosition).isProtected()) {
       currentPosition = validate(currentPosition + 1);
       return;
     }
@@ -142,8 +165,7 @@ class PenType1 implements Pen {
         currentPosition = 0;
         break;
       }
-      screenPosition = screenPositions[next];
-      if (!screenPosition.getStartFieldAttribute().isProtected()) {
+      if (!screenBuffer.getStartFieldAttribute(next).isProtected()) {
         currentPosition = validate(next + 1);
         break;
       }
@@ -160,7 +182,7 @@ class PenType1 implements Pen {
         }
         LOG.debug("Unapplied attributes at {}: {}", currentPosition, attrs);
       }
-      applyAttributes(screenPositions[currentPosition]);
+      applyAttributes(currentPosition);
     }
     currentPosition = validate(position);
   }
@@ -169,9 +191,7 @@ class PenType1 implements Pen {
     int pos = position;
     while (true) {
       pos = validate(pos + 1);
-      ScreenPosition screenPosition = screenPositions[pos];
-
-      if (screenPosition.isStartField()) {
+      if (screenBuffer.isStartField(pos)) {
         return pos;
       }
 
@@ -187,11 +207,11 @@ class PenType1 implements Pen {
   @Override
   public int validate(int position) {
     while (position < 0) {
-      position += screenPositions.length;
+      position += screenBuffer.size();
     }
 
-    while (position >= screenPositions.length) {
-      position -= screenPositions.length;
+    while (position >= screenBuffer.size()) {
+      position -= screenBuffer.size();
     }
 
     return position;
@@ -200,6 +220,7 @@ class PenType1 implements Pen {
   @Override
   public void setScreenDimensions(ScreenDimensions screenDimensions) {
     this.screenDimensions = screenDimensions;
+    createModifiedRows();
   }
 
   @Override
@@ -210,12 +231,12 @@ class PenType1 implements Pen {
 
           @Override
           public boolean hasNext() {
-            return screenPositions.length > pos;
+            return screenBuffer.size() > pos;
           }
 
           @Override
           public ScreenPosition next() {
-            return screenPositions[pos++];
+            return screenBuffer.getScreenPosition(pos++);
           }
 
           @Override
@@ -225,6 +246,81 @@ class PenType1 implements Pen {
         };
   }
 
+  @Override
+  public int getFirstModifiedPosition() {
+    return firstModifiedPosition;
+  }
+
+  @Override
+  public int getLastModifiedPosition() {
+    return lastModifiedPosition;
+  }
+
+  @Override
+  public List<ScreenDelta.Region> getModifiedRegions() {
+    List<ScreenDelta.Region> regions = new ArrayList<>();
+    for (int row = 0; row < firstModifiedColumns.length; row++) {
+      if (firstModifiedColumns[row] >= 0) {
+        regions.add(
+            new ScreenDelta.Region(row, firstModifiedColumns[row], lastModifiedColumns[row]));
+      }
+    }
+    return regions;
+  }
+
+  @Override
+  public void resetModifiedPositions() {
+    firstModifiedPosition = -1;
+    lastModifiedPosition = -1;
+    Arrays.fill(firstModifiedColumns, -1);
+    Arrays.fill(lastModifiedColumns, -1);
+  }
+
+  private void createModifiedRows() {
+    int columns = screenDimensions.columns;
+    int rows = (screenBuffer.size() + columns - 1) / columns;
+    firstModifiedColumns = new int[rows];
+    lastModifiedColumns = new int[rows];
+    setAllModified();
+  }
+
+  private void setModified(int position) {
+    setModified(position, position);
+  }
+
+  private void setModified(int first, int last) {
+    if (firstModifiedPosition < 0 || first < firstModifiedPosition) {
+      firstModifiedPosition = first;
+    }
+    if (last > lastModifiedPosition) {
+      lastModifiedPosition = last;
+    }
+
+    int columns = screenDimensions.columns;
+    int firstRow = first / columns;
+    int lastRow = last / columns;
+    for (int row = firstRow; row <= lastRow; row++) {
+      int firstColumn = row == firstRow ? first % columns : 0;
+      int lastColumn = row == lastRow ? last % columns : columns - 1;
+      if (firstModifiedColumns[row] < 0 || firstColumn < firstModifiedColumns[row]) {
+        firstModifiedColumns[row] = firstColumn;
+      }
+      if (lastColumn > lastModifiedColumns[row]) {
+        lastModifiedColumns[row] = lastColumn;
+      }
+    }
+  }
+
+  private void setAllModified() {
+    firstModifiedPosition = 0;
+    lastModifiedPosition = screenBuffer.size() - 1;
+    int columns = screenDimensions.columns;
+    for (int row = 0; row < firstModifiedColumns.length; row++) {
+      firstModifiedColumns[row] = 0;
+      lastModifiedColumns[row] = Math.min(columns, screenBuffer.size() - row * columns) - 1;
+    }
+  }
+
   // ---------------------------------------------------------------------------------//
   // Debugging
   // ---------------------------------------------------------------------------------//
@@ -236,12 +332,12 @@ class PenType1 implements Pen {
 
       @Override
       public boolean hasNext() {
-        return screenPositions.length > pos;
+        return screenBuffer.size() > pos;
       }
 
       @Override
       public ScreenPosition next() {
-        return screenPositions[pos++];
+        return screenBuffer.getScreenPosition(pos++);
       }
 
       @Override
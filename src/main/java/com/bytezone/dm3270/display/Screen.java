@@ -1,6 +1,7 @@
 package com.bytezone.dm3270.display;
 
 import com.bytezone.dm3270.Charset;
+import com.bytezone.dm3270.ConnectionPhase;
 import com.bytezone.dm3270.application.ConsolePane;
 import com.bytezone.dm3270.application.KeyboardStatusChangedEvent;
 import com.bytezone.dm3270.application.KeyboardStatusListener;
@@ -10,7 +11,6 @@ import com.bytezone.dm3270.commands.Command;
 import com.bytezone.dm3270.orders.BufferAddress;
 import com.bytezone.dm3270.streams.TelnetState;
 import com.bytezone.dm3270.structuredfields.SetReplyModeSF;
-import java.io.UnsupportedEncodingException;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,7 +25,11 @@ public class Screen implements DisplayScreen {
       {Attribute.XA_HIGHLIGHTING, Attribute.XA_FGCOLOR, Attribute.XA_CHARSET,
           Attribute.XA_BGCOLOR, Attribute.XA_TRANSPARENCY};
 
-  private ScreenPosition[] screenPositions;
+  private ScreenBuffer screenBuffer;
+  // generation of previous screen buffers, so the generation never goes back on a screen switch
+  private long generationBase;
+  private volatile ScreenText screenText;
+  private volatile ScreenSnapshot snapshot;
   private final FieldManager fieldManager;
   private ScreenPacker screenPacker;
 
@@ -72,8 +76,8 @@ public class Screen implements DisplayScreen {
 
     fieldManager = new FieldManager(this, screenDimensions);
 
-    screenPositions = new ScreenPosition[screenDimensions.size];
-    pen = Pen.getInstance(screenPositions, screenDimensions, charset);
+    screenBuffer = new ScreenBuffer(screenDimensions.size, charset);
+    pen = Pen.getInstance(screenBuffer, screenDimensions);
 
     screenPacker = new ScreenPacker(pen, fieldManager, charset);
 
@@ -159,7 +163,9 @@ public class Screen implements DisplayScreen {
   }
 
   public void buildFields() {
-    fieldManager.buildFields(screenPositions);        // what about resetModified?
+    // what about resetModified?
+    fieldManager.updateFields(screenBuffer, pen);
+    pen.resetModifiedPositions();
   }
 
   public void checkRecording() {
@@ -187,25 +193,96 @@ public class Screen implements DisplayScreen {
   }
 
   public void setFieldText(Field field, String text) {
-    field.setText(getTextBytes(text));
+    field.setText(charset.getBytes(text));
     field.setModified(true);
   }
 
-  private byte[] getTextBytes(String text) {
-    try {
-      return text.getBytes(charset.name());
-    } catch (UnsupportedEncodingException e) {
-      throw new RuntimeException(e);
+  public void setPositionText(int position, String text) {
+    byte[] bytes = charset.getBytes(text);
+    for (int i = 0; i < bytes.length && position + i < screenBuffer.size(); i++) {
+      screenBuffer.setChar(position + i, bytes[i]);
     }
   }
 
-  public void setPositionText(int position, String text) {
-    byte[] bytes = getTextBytes(text);
-    for (int i = 0; i < bytes.length && position + i < screenPositions.length; i++) {
-      screenPositions[position + i].setChar(bytes[i]);
+  // ---------------------------------------------------------------------------------//
+  // Screen text
+  // ---------------------------------------------------------------------------------//
+
+  /**
+   * Gets the generation of the screen contents, which changes every time they are modified.
+   *
+   * @return the generation number. If two calls return the same number the screen has not been
+   * modified between them.
+   */
+  public long getGeneration() {
+    return generationBase + screenBuffer.getGeneration();
+  }
+
+  // rows are separated by newlines
+  public String getText() {
+    return getScreenText().text;
+  }
+
+  public String getTextWithoutNewlines() {
+    return getScreenText().getTextWithoutNewlines();
+  }
+
+  // rows start from 0
+  public String getRowText(int row) {
+    return getScreenText().getRow(row);
+  }
+
+  /**
+   * Publishes a snapshot of the current state of the screen for other threads.
+   * <p>
+   * This is called by the thread which modifies the screen, when a set of changes is complete.
+   */
+  public void publishSnapshot() {
+    ScreenSnapshot current = snapshot;
+    if (current == null || !current.matches(this)) {
+      snapshot = new ScreenSnapshot(this);
     }
   }
 
+  public ScreenSnapshot getSnapshot() {
+    ScreenSnapshot current = snapshot;
+    if (current == null) {
+      // nothing has been published yet, so the screen is not being modified
+      current = new ScreenSnapshot(this);
+      snapshot = current;
+    }
+    return current;
+  }
+
+  private ScreenText getScreenText() {
+    // the generation is read before building the text, so changes made meanwhile invalidate it
+    long generation = getGeneration();
+    ScreenText current = screenText;
+    if (current == null || current.generation != generation) {
+      current = new ScreenText(generation, buildText(), getScreenDimensions().columns);
+      screenText = current;
+    }
+    return current;
+  }
+
+  private String buildText() {
+    ScreenDimensions screenDimensions = getScreenDimensions();
+    int positionsCount = Math.min(screenDimensions.size, screenBuffer.size());
+    StringBuilder text = new StringBuilder(positionsCount + screenDimensions.rows);
+    boolean visible = true;
+    for (int pos = 0; pos < positionsCount; pos++) {
+      ScreenPosition sp = screenBuffer.getScreenPosition(pos);
+      if (sp.isStartField()) {
+        visible = sp.getStartFieldAttribute().isVisible();
+      }
+      text.append(visible ? sp.getChar() : ' ');
+      if ((pos + 1) % screenDimensions.columns == 0) {
+        text.append("\n");
+      }
+    }
+    return text.toString();
+  }
+
   // ---------------------------------------------------------------------------------//
   // DisplayScreen interface methods
   // ---------------------------------------------------------------------------------//
@@ -217,7 +294,7 @@ public class Screen implements DisplayScreen {
 
   @Override
   public ScreenPosition getScreenPosition(int position) {
-    return screenPositions[position];
+    return screenBuffer.getScreenPosition(position);
   }
 
   @Override
@@ -231,8 +308,9 @@ public class Screen implements DisplayScreen {
       ScreenDimensions size = requestedScreenOption.equals(ScreenOption.DEFAULT)
           ? defaultScreenDimensions
           : alternateScreenDimensions;
-      screenPositions = new ScreenPosition[size.size];
-      pen = Pen.getInstance(screenPositions, size, charset);
+      generationBase += screenBuffer.getGeneration() + 1;
+      screenBuffer = new ScreenBuffer(size.size, charset);
+      pen = Pen.getInstance(screenBuffer, size);
 
       screenPacker = new ScreenPacker(pen, fieldManager, charset);
       currentScreen = requestedScreenOption;
@@ -305,6 +383,9 @@ public class Screen implements DisplayScreen {
     setAID(AIDCommand.NO_AID_SPECIFIED);
     cursor.setVisible(true);
     keyboardLocked = false;
+    // recorded before notifying listeners, so they already see the times and are not included
+    telnetState.keyboardUnlocked();
+    telnetState.recordConnectionPhase(ConnectionPhase.FIRST_SCREEN);
     fireKeyboardStatusChange("");
   }
 
@@ -340,4 +421,45 @@ public class Screen implements DisplayScreen {
     keyboardChangeListeners.remove(listener);
   }
 
+  // text of the screen for a given generation, with the derived texts built on demand
+  private static final class ScreenText {
+
+    private final long generation;
+    private final String text;
+    private final int columns;
+    private String textWithoutNewlines;
+    private String[] rows;
+
+    private ScreenText(long generation, String text, int columns) {
+      this.generation = generation;
+      this.text = text;
+      this.columns = columns;
+    }
+
+    private String getTextWithoutNewlines() {
+      String ret = textWithoutNewlines;
+      if (ret == null) {
+        ret = text.replace("\n", "");
+        textWithoutNewlines = ret;
+      }
+      return ret;
+    }
+
+    private String getRow(int row) {
+      String[] currentRows = rows;
+      if (currentRows == null) {
+        currentRows = new String[text.length() / (columns + 1)];
+        rows = currentRows;
+      }
+      String ret = currentRows[row];
+      if (ret == null) {
+        int start = row * (columns + 1);
+        ret = text.substring(start, start + columns);
+        currentRows[row] = ret;
+      }
+      return ret;
+    }
+
+  }
+
 }
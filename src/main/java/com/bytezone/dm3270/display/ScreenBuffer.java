@@ -0,0 +1,302 @@
+package com.bytezone.dm3270.display;
+
+import com.bytezone.dm3270.Charset;
+import com.bytezone.dm3270.attributes.Attribute;
+import com.bytezone.dm3270.attributes.StartFieldAttribute;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Contents of every position of a screen, stored in parallel primitive arrays.
+ * <p>
+ * Each position only takes a character byte, a flags byte and a short index into a table of the
+ * distinct {@link ScreenContext} used by the screen. Start field attributes and extended
+ * attributes are only present in a few positions, so they are kept in sparse tables indexed by
+ * position. {@link ScreenPosition} instances are just views over one position of this buffer.
+ * <p>
+ * The buffer keeps a generation number which changes on every modification, so its contents can
+ * be cached while the generation does not change.
+ */
+final class ScreenBuffer {
+
+  private static final byte START_FIELD = 0x01;
+  private static final byte ATTRIBUTES = 0x02;
+
+  private final Charset charset;
+  private final byte[] chars;
+  private final byte[] flags;
+  private final short[] contextIndexes;
+
+  private ScreenContext[] contexts = new ScreenContext[8];
+  private int contextsCount;
+  private ScreenContext lastContext;
+  private short lastContextIndex;
+
+  private final SparseArray<StartFieldAttribute> startFields = new SparseArray<>();
+  private final SparseArray<List<Attribute>> attributes = new SparseArray<>();
+
+  private volatile long generation;
+
+  ScreenBuffer(int size, Charset charset) {
+    this(size, charset, ScreenContext.DEFAULT_CONTEXT);
+  }
+
+  ScreenBuffer(int size, Charset charset, ScreenContext screenContext) {
+    this.charset = charset;
+    chars = new byte[size];
+    flags = new byte[size];
+    contextIndexes = new short[size];
+    Arrays.fill(contextIndexes, getContextIndex(screenContext));
+  }
+
+  int size() {
+    return chars.length;
+  }
+
+  Charset getCharset() {
+    return charset;
+  }
+
+  long getGeneration() {
+    return generation;
+  }
+
+  private void modified() {
+    // buffers are only modified by one thread at a time, so there is no need for atomic updates
+    generation++;
+  }
+
+  ScreenPosition getScreenPosition(int position) {
+    return new ScreenPosition(this, position, position);
+  }
+
+  // positions from first, wrapping around the end of the screen
+  List<ScreenPosition> getScreenPositions(int first, int length) {
+    return new ScreenPositionRange(first, length);
+  }
+
+  void clear() {
+    Arrays.fill(chars, (byte) 0);
+    Arrays.fill(flags, (byte) 0);
+    startFields.clear();
+    attributes.clear();
+    for (int i = 0; i < chars.length; i++) {
+      resetGraphic(i);
+    }
+    modified();
+  }
+
+  void reset(int position) {
+    resetChar(position, (byte) 0);
+  }
+
+  // same as a reset followed by setChar
+  void resetChar(int position, byte value) {
+    resetPosition(position, value);
+    modified();
+  }
+
+  // same as resetChar for each value, wrapping around the end of the screen
+  void resetChars(int position, byte[] values, int offset, int length) {
+    int max = offset + length;
+    for (int ptr = offset; ptr < max; ptr++) {
+      resetPosition(position, values[ptr]);
+      if (++position == chars.length) {
+        position = 0;
+      }
+    }
+    modified();
+  }
+
+  private void resetPosition(int position, byte value) {
+    chars[position] = value;
+    resetGraphic(position);
+    if (flags[position] != 0) {
+      flags[position] = 0;
+      startFields.remove(position);
+      attributes.remove(position);
+    }
+  }
+
+  byte getByte(int position) {
+    return chars[position];
+  }
+
+  void setChar(int position, byte value) {
+    chars[position] = value;
+    resetGraphic(position);
+    modified();
+  }
+
+  void setAplGraphicChar(int position, byte value) {
+    chars[position] = value;
+    setContext(position, getContext(position).withGraphic(true));
+    modified();
+  }
+
+  private void resetGraphic(int position) {
+    ScreenContext screenContext = getContext(position);
+    if (screenContext.isGraphic()) {
+      setContext(position, screenContext.withGraphic(false));
+    }
+  }
+
+  boolean isStartField(int position) {
+    return (flags[position] & START_FIELD) != 0;
+  }
+
+  StartFieldAttribute getStartFieldAttribute(int position) {
+    return isStartField(position) ? startFields.get(position) : null;
+  }
+
+  void setStartField(int position, StartFieldAttribute startFieldAttribute) {
+    if (startFieldAttribute == null) {
+      if (isStartField(position)) {
+        startFields.remove(position);
+        attributes.remove(position);
+        flags[position] = 0;
+        modified();
+      }
+      return;
+    }
+    startFields.put(position, startFieldAttribute);
+    flags[position] |= START_FIELD;
+    modified();
+  }
+
+  List<Attribute> getAttributes(int position) {
+    if ((flags[position] & ATTRIBUTES) == 0) {
+      return Collections.emptyList();
+    }
+    return attributes.get(position);
+  }
+
+  void addAttribute(int position, Attribute attribute) {
+    List<Attribute> positionAttributes;
+    if ((flags[position] & ATTRIBUTES) == 0) {
+      positionAttributes = new ArrayList<>(2);
+      attributes.put(position, positionAttributes);
+      flags[position] |= ATTRIBUTES;
+    } else {
+      positionAttributes = attributes.get(position);
+    }
+    positionAttributes.add(attribute);
+    modified();
+  }
+
+  ScreenContext getContext(int position) {
+    return contexts[contextIndexes[position]];
+  }
+
+  void setContext(int position, ScreenContext screenContext) {
+    short index = getContextIndex(screenContext);
+    if (contextIndexes[position] != index) {
+      contextIndexes[position] = index;
+      modified();
+    }
+  }
+
+  // equal contexts share the same entry in the table
+  private short getContextIndex(ScreenContext screenContext) {
+    if (screenContext == lastContext) {
+      return lastContextIndex;
+    }
+    int index = 0;
+    while (index < contextsCount && !contexts[index].equals(screenContext)) {
+      index++;
+    }
+    if (index == contextsCount) {
+      if (contextsCount == Short.MAX_VALUE) {
+        throw new IllegalStateException("Too many screen contexts");
+      }
+      if (contextsCount == contexts.length) {
+        contexts = Arrays.copyOf(contexts, contextsCount * 2);
+      }
+      contexts[contextsCount++] = screenContext;
+    }
+    lastContext = screenContext;
+    lastContextIndex = (short) index;
+    return lastContextIndex;
+  }
+
+  private final class ScreenPositionRange extends AbstractList<ScreenPosition>
+      implements RandomAccess {
+
+    private final int first;
+    private final int length;
+
+    private ScreenPositionRange(int first, int length) {
+      this.first = first;
+      this.length = length;
+    }
+
+    @Override
+    public ScreenPosition get(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+      }
+      int position = first + index;
+      return getScreenPosition(position < chars.length ? position : position - chars.length);
+    }
+
+    @Override
+    public int size() {
+      return length;
+    }
+
+  }
+
+  // values indexed by position, for the few positions which have one
+  private static final class SparseArray<T> {
+
+    private int[] keys = new int[16];
+    private Object[] values = new Object[16];
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    private T get(int key) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      return index >= 0 ? (T) values[index] : null;
+    }
+
+    private void put(int key, T value) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      if (index >= 0) {
+        values[index] = value;
+        return;
+      }
+      index = -index - 1;
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      System.arraycopy(keys, index, keys, index + 1, size - index);
+      System.arraycopy(values, index, values, index + 1, size - index);
+      keys[index] = key;
+      values[index] = value;
+      size++;
+    }
+
+    private void remove(int key) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      if (index < 0) {
+        return;
+      }
+      size--;
+      System.arraycopy(keys, index + 1, keys, index, size - index);
+      System.arraycopy(values, index + 1, values, index, size - index);
+      values[size] = null;
+    }
+
+    private void clear() {
+      Arrays.fill(values, 0, size, null);
+      size = 0;
+    }
+
+  }
+
+}
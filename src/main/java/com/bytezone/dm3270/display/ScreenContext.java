@@ -2,18 +2,40 @@ package com.bytezone.dm3270.display;
 
 import com.bytezone.dm3270.attributes.ColorAttribute;
 import java.awt.Color;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Colors and highlighting of a screen position.
+ * <p>
+ * Contexts are immutable and there are only a few distinct ones, so {@link #of} and the
+ * {@code with} methods return a shared canonical instance for each combination of values. Each
+ * context remembers the contexts derived from it, so once they have been used deriving a context
+ * does not allocate anything.
+ */
 public class ScreenContext {
 
-  public static final ScreenContext DEFAULT_CONTEXT = new ScreenContext(ColorAttribute.COLORS[0],
+  public static final ScreenContext DEFAULT_CONTEXT = of(ColorAttribute.COLORS[0],
       ColorAttribute.COLORS[8], (byte) 0, false, false);
 
+  // constant expressions, so they can be used while DEFAULT_CONTEXT is created
+  private static final int COLORS_COUNT = 16;
+  // highlight values used by the 3270 data stream are 0x00 and 0xF0 to 0xFF
+  private static final int HIGHLIGHTS_COUNT = 17;
+
   public final Color foregroundColor;
   public final Color backgroundColor;
   public final byte highlight;
   public final boolean highIntensity;
   public final boolean isGraphic;
 
+  // contexts derived from this one, filled as they are requested
+  private final ScreenContext[] foregroundVariants = new ScreenContext[COLORS_COUNT];
+  private final ScreenContext[] backgroundVariants = new ScreenContext[COLORS_COUNT];
+  private final ScreenContext[] highlightVariants = new ScreenContext[HIGHLIGHTS_COUNT];
+  private ScreenContext graphicVariant;
+
   public ScreenContext(Color foregroundColor, Color backgroundColor, byte highlight,
       boolean highIntensity, boolean isGraphic) {
     this.foregroundColor = foregroundColor;
@@ -23,22 +45,93 @@ public class ScreenContext {
     this.isGraphic = isGraphic;
   }
 
+  /**
+   * Gets the canonical context with the given values.
+   *
+   * @param foregroundColor color of the text.
+   * @param backgroundColor color of the background.
+   * @param highlight extended highlighting of the text.
+   * @param highIntensity whether the text is displayed with high intensity.
+   * @param isGraphic whether the text uses the APL graphic charset.
+   * @return the shared context instance with the given values.
+   */
+  public static ScreenContext of(Color foregroundColor, Color backgroundColor, byte highlight,
+      boolean highIntensity, boolean isGraphic) {
+    return intern(new ScreenContext(foregroundColor, backgroundColor, highlight, highIntensity,
+        isGraphic));
+  }
+
+  private static ScreenContext intern(ScreenContext screenContext) {
+    ScreenContext canonical = Contexts.CONTEXTS.putIfAbsent(screenContext, screenContext);
+    return canonical != null ? canonical : screenContext;
+  }
+
   public ScreenContext withBackgroundColor(Color color) {
-    return new ScreenContext(foregroundColor, color, highlight, highIntensity, isGraphic);
+    int index = getColorIndex(color);
+    if (index < 0) {
+      return of(foregroundColor, color, highlight, highIntensity, isGraphic);
+    }
+    ScreenContext variant = backgroundVariants[index];
+    if (variant == null) {
+      variant = of(foregroundColor, color, highlight, highIntensity, isGraphic);
+      backgroundVariants[index] = variant;
+    }
+    return variant;
   }
 
   public ScreenContext withHighlight(byte highlight) {
-    return new ScreenContext(foregroundColor, backgroundColor, highlight, highIntensity,
-        isGraphic);
+    int index = getHighlightIndex(highlight);
+    if (index < 0) {
+      return of(foregroundColor, backgroundColor, highlight, highIntensity, isGraphic);
+    }
+    ScreenContext variant = highlightVariants[index];
+    if (variant == null) {
+      variant = of(foregroundColor, backgroundColor, highlight, highIntensity, isGraphic);
+      highlightVariants[index] = variant;
+    }
+    return variant;
   }
 
   public ScreenContext withForeground(Color color) {
-    return new ScreenContext(color, backgroundColor, highlight, highIntensity, isGraphic);
+    int index = getColorIndex(color);
+    if (index < 0) {
+      return of(color, backgroundColor, highlight, highIntensity, isGraphic);
+    }
+    ScreenContext variant = foregroundVariants[index];
+    if (variant == null) {
+      variant = of(color, backgroundColor, highlight, highIntensity, isGraphic);
+      foregroundVariants[index] = variant;
+    }
+    return variant;
   }
 
   public ScreenContext withGraphic(boolean isGraphic) {
-    return new ScreenContext(foregroundColor, backgroundColor, highlight, highIntensity,
-        isGraphic);
+    // contexts are immutable, so there is no need to create a new one if nothing changes
+    if (isGraphic == this.isGraphic) {
+      return this;
+    }
+    ScreenContext variant = graphicVariant;
+    if (variant == null) {
+      variant = of(foregroundColor, backgroundColor, highlight, highIntensity, isGraphic);
+      graphicVariant = variant;
+    }
+    return variant;
+  }
+
+  private static int getColorIndex(Color color) {
+    for (int i = 0; i < COLORS_COUNT; i++) {
+      if (ColorAttribute.COLORS[i] == color) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int getHighlightIndex(byte highlight) {
+    if (highlight == 0) {
+      return HIGHLIGHTS_COUNT - 1;
+    }
+    return (highlight & 0xF0) == 0xF0 ? highlight & 0x0F : -1;
   }
 
   @Override
@@ -49,7 +142,37 @@ public class ScreenContext {
         (highIntensity ? 'x' : ' '), highlight);
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ScreenContext that = (ScreenContext) o;
+    return highlight == that.highlight
+        && highIntensity == that.highIntensity
+        && isGraphic == that.isGraphic
+        && Objects.equals(foregroundColor, that.foregroundColor)
+        && Objects.equals(backgroundColor, that.backgroundColor);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(foregroundColor, backgroundColor, highlight, highIntensity, isGraphic);
+  }
+
   public boolean isGraphic() {
     return isGraphic;
   }
+
+  // holds the canonical contexts, initialized before DEFAULT_CONTEXT is created
+  private static final class Contexts {
+
+    private static final ConcurrentMap<ScreenContext, ScreenContext> CONTEXTS =
+        new ConcurrentHashMap<>();
+
+  }
+
 }
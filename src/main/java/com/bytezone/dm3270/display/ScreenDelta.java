@@ -0,0 +1,110 @@
+package com.bytezone.dm3270.display;
+
+import java.util.List;
+
+/**
+ * Changes made to the screen by a write from the host.
+ * <p>
+ * Changes are recorded while the write is processed, so listeners can check which parts of the
+ * screen changed without comparing its whole contents with the previous ones.
+ */
+public class ScreenDelta {
+
+  private final boolean layoutChanged;
+  private final List<Region> regions;
+  private final List<Field> fields;
+
+  ScreenDelta(boolean layoutChanged, List<Region> regions, List<Field> fields) {
+    this.layoutChanged = layoutChanged;
+    this.regions = regions;
+    this.fields = fields;
+  }
+
+  /**
+   * Checks if the fields of the screen were built again, for example because the screen was
+   * cleared or a field was added or removed. In that case all the fields are reported as changed.
+   *
+   * @return true if fields were built again, false if only the contents of some fields changed.
+   */
+  public boolean isLayoutChanged() {
+    return layoutChanged;
+  }
+
+  /**
+   * Gets the modified parts of each row, sorted by row.
+   *
+   * @return the list of modified regions, empty when the write did not modify any position.
+   */
+  public List<Region> getRegions() {
+    return regions;
+  }
+
+  /**
+   * Gets the fields containing any modified position, in screen order.
+   *
+   * @return the list of changed fields.
+   */
+  public List<Field> getFields() {
+    return fields;
+  }
+
+  /**
+   * Checks if any position of a row has been modified.
+   *
+   * @param row the row number, starting from 0.
+   * @return true if the row has been modified, false otherwise.
+   */
+  public boolean isRowChanged(int row) {
+    for (Region region : regions) {
+      if (region.row == row) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean isEmpty() {
+    return regions.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("[Layout changed:%s, Regions:%s, Fields:%d]", layoutChanged, regions,
+        fields.size());
+  }
+
+  /**
+   * Range of modified columns in a row.
+   */
+  public static class Region {
+
+    private final int row;
+    private final int firstColumn;
+    private final int lastColumn;
+
+    Region(int row, int firstColumn, int lastColumn) {
+      this.row = row;
+      this.firstColumn = firstColumn;
+      this.lastColumn = lastColumn;
+    }
+
+    public int getRow() {
+      return row;
+    }
+
+    public int getFirstColumn() {
+      return firstColumn;
+    }
+
+    public int getLastColumn() {
+      return lastColumn;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%02d:%02d-%02d", row, firstColumn, lastColumn);
+    }
+
+  }
+
+}
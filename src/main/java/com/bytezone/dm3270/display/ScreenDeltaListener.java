@@ -0,0 +1,7 @@
+package com.bytezone.dm3270.display;
+
+public interface ScreenDeltaListener {
+
+  void screenChanged(ScreenDelta screenDelta);
+
+}
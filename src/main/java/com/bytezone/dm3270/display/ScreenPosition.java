@@ -3,64 +3,63 @@ package com.bytezone.dm3270.display;
 import com.bytezone.dm3270.Charset;
 import com.bytezone.dm3270.attributes.Attribute;
 import com.bytezone.dm3270.attributes.StartFieldAttribute;
-import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * A position of the screen.
+ * <p>
+ * Screen contents are kept in a {@link ScreenBuffer}, and instances of this class are just views
+ * over one of its positions, so they are cheap to create and don't need to be retained.
+ */
 public final class ScreenPosition {
 
+  private final ScreenBuffer buffer;
+  private final int index;
   private final int position;
 
-  private StartFieldAttribute startFieldAttribute;
-  private final List<Attribute> attributes = new ArrayList<>();
-
-  private byte value;
-  private ScreenContext screenContext;
-  private final Charset charset;
-
   public ScreenPosition(int position, ScreenContext screenContext,
       Charset charset) {
-    this.position = position;
-    this.screenContext = screenContext;
-    this.charset = charset;
+    this(new ScreenBuffer(1, charset, screenContext), 0, position);
     reset();
   }
 
+  ScreenPosition(ScreenBuffer buffer, int index, int position) {
+    this.buffer = buffer;
+    this.index = index;
+    this.position = position;
+  }
+
   public void reset() {
-    value = 0;
-    screenContext = screenContext.withGraphic(false);
-    startFieldAttribute = null;
-    attributes.clear();
+    buffer.reset(index);
+  }
+
+  // same as a reset followed by setChar
+  void resetChar(byte value) {
+    buffer.resetChar(index, value);
   }
 
   public void setChar(byte value) {
-    this.value = value;
-    screenContext = screenContext.withGraphic(false);
+    buffer.setChar(index, value);
   }
 
   public void setAplGraphicChar(byte value) {
-    this.value = value;
-    screenContext = screenContext.withGraphic(true);
+    buffer.setAplGraphicChar(index, value);
   }
 
   public StartFieldAttribute getStartFieldAttribute() {
-    return startFieldAttribute;
+    return buffer.getStartFieldAttribute(index);
   }
 
   public void setStartField(StartFieldAttribute startFieldAttribute) {
-    if (startFieldAttribute == null) {
-      if (this.startFieldAttribute != null) {
-        attributes.clear();
-      }
-    }
-    this.startFieldAttribute = startFieldAttribute;
+    buffer.setStartField(index, startFieldAttribute);
   }
 
   public void addAttribute(Attribute attribute) {
-    attributes.add(attribute);
+    buffer.addAttribute(index, attribute);
   }
 
   public List<Attribute> getAttributes() {
-    return attributes;
+    return buffer.getAttributes(index);
   }
 
   public int getPosition() {
@@ -72,22 +71,23 @@ public final class ScreenPosition {
     if (screenContext == null) {
       throw new IllegalArgumentException("ScreenContext cannot be null");
     }
-    this.screenContext = screenContext;
+    buffer.setContext(index, screenContext);
   }
 
   public ScreenContext getScreenContext() {
-    return screenContext;
+    return buffer.getContext(index);
   }
 
   public boolean isStartField() {
-    return startFieldAttribute != null;
+    return buffer.isStartField(index);
   }
 
   public boolean isGraphic() {
-    return screenContext.isGraphic();
+    return getScreenContext().isGraphic();
   }
 
   public char getChar() {
+    byte value = getByte();
     if (value == 0) {
       return '\u0000';
     }
@@ -95,11 +95,11 @@ public final class ScreenPosition {
       return ' ';
     }
 
-    if (screenContext.isGraphic()) {
+    if (isGraphic()) {
       return convertGraphicChar(value);
     }
 
-    return charset.getChar(value);
+    return buffer.getCharset().getChar(value);
   }
 
   private static char convertGraphicChar(byte val) {
@@ -136,29 +136,30 @@ public final class ScreenPosition {
       return " ";
     }
 
-    if (screenContext.isGraphic()) {
+    byte value = getByte();
+    if (isGraphic()) {
       return String.valueOf(convertGraphicChar(value));
     }
 
-    char ret = charset.getChar(value);
+    char ret = buffer.getCharset().getChar(value);
     return ret < ' ' ? " " : String.valueOf(ret);
   }
 
   public byte getByte() {
-    return value;
+    return buffer.getByte(index);
   }
 
   public boolean isNull() {
-    return value == 0;
+    return getByte() == 0;
   }
 
   @Override
   public String toString() {
     StringBuilder text = new StringBuilder();
     if (isStartField()) {
-      text.append("..").append(startFieldAttribute);
+      text.append("..").append(getStartFieldAttribute());
     } else {
-      for (Attribute attribute : attributes) {
+      for (Attribute attribute : getAttributes()) {
         text.append("--").append(attribute);
       }
     }
@@ -0,0 +1,136 @@
+package com.bytezone.dm3270.display;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of the state of the screen after a complete record from the server.
+ * <p>
+ * Snapshots are built by the thread which processes server records and published through a single
+ * reference, so any thread can read a consistent view of the screen without locks. They are not
+ * updated by later changes, like setting the text of a field, until the next record is processed.
+ */
+public class ScreenSnapshot {
+
+  private final long generation;
+  private final ScreenDimensions screenDimensions;
+  private final String text;
+  private final List<FieldState> fields;
+  private final int cursorLocation;
+  private final boolean cursorVisible;
+  private final boolean keyboardLocked;
+
+  ScreenSnapshot(Screen screen) {
+    generation = screen.getGeneration();
+    screenDimensions = screen.getScreenDimensions();
+    text = screen.getText();
+    List<FieldState> fieldStates = new ArrayList<>();
+    for (Field field : screen.getFieldManager().getFields()) {
+      fieldStates.add(new FieldState(field));
+    }
+    fields = Collections.unmodifiableList(fieldStates);
+    Cursor cursor = screen.getScreenCursor();
+    cursorLocation = cursor.getLocation();
+    cursorVisible = cursor.isVisible();
+    keyboardLocked = screen.isKeyboardLocked();
+  }
+
+  public long getGeneration() {
+    return generation;
+  }
+
+  public ScreenDimensions getScreenDimensions() {
+    return screenDimensions;
+  }
+
+  // rows are separated by newlines
+  public String getText() {
+    return text;
+  }
+
+  // rows start from 0
+  public String getRowText(int row) {
+    int start = row * (screenDimensions.columns + 1);
+    return text.substring(start, start + screenDimensions.columns);
+  }
+
+  public List<FieldState> getFields() {
+    return fields;
+  }
+
+  public int getCursorLocation() {
+    return cursorLocation;
+  }
+
+  public boolean isCursorVisible() {
+    return cursorVisible;
+  }
+
+  public boolean isKeyboardLocked() {
+    return keyboardLocked;
+  }
+
+  // checks if the snapshot still matches the screen, so it doesn't need to be built again
+  boolean matches(Screen screen) {
+    Cursor cursor = screen.getScreenCursor();
+    return generation == screen.getGeneration()
+        && cursorLocation == cursor.getLocation()
+        && cursorVisible == cursor.isVisible()
+        && keyboardLocked == screen.isKeyboardLocked();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("[Generation:%d, Fields:%d, Cursor:%d, Locked:%s]", generation,
+        fields.size(), cursorLocation, keyboardLocked);
+  }
+
+  /**
+   * Immutable copy of a {@link Field}.
+   */
+  public static class FieldState {
+
+    private final int firstLocation;
+    private final int displayLength;
+    private final boolean isProtected;
+    private final boolean isHidden;
+    private final String text;
+
+    private FieldState(Field field) {
+      firstLocation = field.getFirstLocation();
+      displayLength = field.getDisplayLength();
+      isProtected = field.isProtected();
+      isHidden = field.isHidden();
+      text = field.getText();
+    }
+
+    public int getFirstLocation() {
+      return firstLocation;
+    }
+
+    public int getDisplayLength() {
+      return displayLength;
+    }
+
+    public boolean isProtected() {
+      return isProtected;
+    }
+
+    public boolean isHidden() {
+      return isHidden;
+    }
+
+    public String getText() {
+      return text;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%04d %s%s [%s]", firstLocation, isProtected ? "P" : "p",
+          isHidden ? "v" : "V", text);
+    }
+
+  }
+
+}
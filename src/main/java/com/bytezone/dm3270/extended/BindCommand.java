@@ -1,6 +1,7 @@
 package com.bytezone.dm3270.extended;
 
 import com.bytezone.dm3270.Charset;
+import com.bytezone.dm3270.ConnectionPhase;
 import com.bytezone.dm3270.display.Screen;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -156,6 +157,7 @@ public class BindCommand extends AbstractExtendedCommand {
 
   @Override
   public void process(Screen screen) {
+    screen.getTelnetState().recordConnectionPhase(ConnectionPhase.BIND_RECEIVED);
   }
 
   @Override
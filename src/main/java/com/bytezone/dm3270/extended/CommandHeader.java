@@ -115,6 +115,14 @@ public class CommandHeader extends AbstractReplyBuffer {
     return dataType;
   }
 
+  public int getSequenceNumber() {
+    return commandSeq;
+  }
+
+  public boolean isNegativeResponse() {
+    return responseType == ResponseType.NEGATIVE_RESPONSE;
+  }
+
   @Override
   public void process(Screen screen) {
     if (responseType == ResponseType.ALWAYS_RESPONSE) {
@@ -1,6 +1,7 @@
 package com.bytezone.dm3270.extended;
 
 import com.bytezone.dm3270.Charset;
+import com.bytezone.dm3270.display.Screen;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,6 +18,13 @@ public class ResponseCommand extends AbstractExtendedCommand {
     }
   }
 
+  @Override
+  public void process(Screen screen) {
+    super.process(screen);
+    screen.getTelnetState().hostResponseReceived(commandHeader.getSequenceNumber(),
+        !commandHeader.isNegativeResponse(), data.length > 0 ? data[0] & 0xFF : -1);
+  }
+
   @Override
   public String getName() {
     return "Response";
@@ -17,12 +17,13 @@ public class SscpLuDataCommand extends Command {
   public SscpLuDataCommand(byte[] buffer, int offset, int length, Charset charset) {
     super(buffer, offset, length);
 
-    int ptr = offset;
+    // orders reference the copy of the buffer owned by this command
+    int ptr = 0;
     Order previousOrder = null;
 
-    int max = offset + length;
+    int max = data.length;
     while (ptr < max) {
-      Order order = Order.getOrder(buffer, ptr, max, charset);
+      Order order = Order.getOrder(data, ptr, max, charset);
 
       if (order.matchesPreviousOrder(previousOrder)) {
         previousOrder.incrementDuplicates();           // and discard this Order
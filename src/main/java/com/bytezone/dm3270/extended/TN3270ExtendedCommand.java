@@ -46,6 +46,7 @@ public class TN3270ExtendedCommand extends AbstractExtendedCommand {
   @Override
   public void process(Screen screen) {
     commandHeader.process(screen);
+    telnetState.hostDataReceived();
     command.process(screen);
   }
 
@@ -11,11 +11,9 @@ public class EraseUnprotectedToAddressOrder extends Order {
   private final BufferAddress stopAddress;
 
   public EraseUnprotectedToAddressOrder(byte[] buffer, int offset) {
+    super(buffer, offset, 3);
     assert buffer[offset] == Order.ERASE_UNPROTECTED;
     stopAddress = new BufferAddress(buffer[offset + 1], buffer[offset + 2]);
-
-    this.buffer = new byte[3];
-    System.arraycopy(buffer, offset, this.buffer, 0, this.buffer.length);
   }
 
   @Override
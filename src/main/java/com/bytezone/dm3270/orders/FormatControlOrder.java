@@ -13,8 +13,7 @@ public class FormatControlOrder extends Order {
           "EOM", "8 ones"};
 
   public FormatControlOrder(byte[] buffer, int offset) {
-    this.buffer = new byte[1];
-    this.buffer[0] = buffer[offset];
+    super(buffer, offset, 1);
   }
 
   @Override
@@ -30,12 +29,12 @@ public class FormatControlOrder extends Order {
   @Override
   public boolean matchesPreviousOrder(Order order) {
     return order instanceof FormatControlOrder
-        && this.buffer[0] == ((FormatControlOrder) order).buffer[0];
+        && getType() == order.getType();
   }
 
   @Override
   public String toString() {
-    byte value = buffer[0];
+    byte value = getType();
     String text = "????";
     for (int i = 0; i < orderValues.length; i++) {
       if (value == orderValues[i]) {
@@ -44,7 +43,7 @@ public class FormatControlOrder extends Order {
       }
     }
     String duplicateText = duplicates == 0 ? "" : "x " + (duplicates + 1);
-    return String.format("FCO : %-12s : %02X %s", text, buffer[0], duplicateText);
+    return String.format("FCO : %-12s : %02X %s", text, value, duplicateText);
   }
 
 }
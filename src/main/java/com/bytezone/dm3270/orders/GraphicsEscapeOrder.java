@@ -8,12 +8,9 @@ public class GraphicsEscapeOrder extends Order {
   private final byte code;
 
   public GraphicsEscapeOrder(byte[] buffer, int offset) {
+    super(buffer, offset, 2);
     assert buffer[offset] == Order.GRAPHICS_ESCAPE;
     code = buffer[offset + 1];
-
-    this.buffer = new byte[2];
-    this.buffer[0] = buffer[offset];
-    this.buffer[1] = buffer[offset + 1];
   }
 
   @Override
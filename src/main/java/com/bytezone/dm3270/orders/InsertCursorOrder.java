@@ -6,10 +6,8 @@ import com.bytezone.dm3270.display.Pen;
 public class InsertCursorOrder extends Order {
 
   public InsertCursorOrder(byte[] buffer, int offset) {
+    super(buffer, offset, 1);
     assert buffer[offset] == Order.INSERT_CURSOR;
-
-    this.buffer = new byte[1];
-    this.buffer[0] = buffer[offset];
   }
 
   @Override
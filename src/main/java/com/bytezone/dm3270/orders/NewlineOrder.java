@@ -6,8 +6,7 @@ import com.bytezone.dm3270.display.Pen;
 public class NewlineOrder extends Order {
 
   public NewlineOrder(byte[] buffer, int offset) {
-    this.buffer = new byte[1];
-    this.buffer[0] = buffer[offset];
+    super(buffer, offset, 1);
   }
 
   @Override
@@ -27,7 +26,7 @@ public class NewlineOrder extends Order {
   @Override
   public String toString() {
     String duplicateText = duplicates == 0 ? "" : "x " + (duplicates + 1);
-    return String.format("FCO : %-12s : %02X %s", "FCO_NEWLINE", buffer[0], duplicateText);
+    return String.format("FCO : %-12s : %02X %s", "FCO_NEWLINE", getType(), duplicateText);
   }
 
 }
@@ -2,6 +2,7 @@ package com.bytezone.dm3270.orders;
 
 import com.bytezone.dm3270.Charset;
 import com.bytezone.dm3270.display.DisplayScreen;
+import java.util.Arrays;
 
 public abstract class Order {
 
@@ -35,9 +36,27 @@ public abstract class Order {
           FCO_FORM_FEED, FCO_CARRIAGE_RETURN, FCO_NEWLINE, FCO_END_OF_MEDIUM,
           FCO_EIGHT_ONES};
 
-  protected byte[] buffer;
+  // lookup table for isOrder, so each byte of a command is checked without searching orderValues
+  private static final boolean[] ORDER_BYTES = new boolean[256];
+
+  static {
+    for (byte orderValue : orderValues) {
+      ORDER_BYTES[orderValue & 0xFF] = true;
+    }
+  }
+
+  // orders are views of the buffer of the command containing them, to avoid copying every order
+  protected final byte[] buffer;
+  protected final int offset;
+  protected final int length;
   protected int duplicates;
 
+  protected Order(byte[] buffer, int offset, int length) {
+    this.buffer = buffer;
+    this.offset = offset;
+    this.length = length;
+  }
+
   public static Order getOrder(byte[] buffer, int ptr, int max, Charset charset) {
     switch (buffer[ptr]) {
       case START_FIELD:
@@ -86,12 +105,16 @@ public abstract class Order {
     }
   }
 
+  public static boolean isOrder(byte value) {
+    return ORDER_BYTES[value & 0xFF];
+  }
+
   public void incrementDuplicates() {
     duplicates++;
   }
 
   public byte getType() {
-    return buffer[0];
+    return buffer[offset];
   }
 
   public boolean isText() {
@@ -105,11 +128,11 @@ public abstract class Order {
   }
 
   public int size() {
-    return buffer.length;
+    return length;
   }
 
   public byte[] getBuffer() {
-    return buffer;
+    return Arrays.copyOfRange(buffer, offset, offset + length);
   }
 
   public abstract void process(DisplayScreen screen);
@@ -0,0 +1,169 @@
+package com.bytezone.dm3270.orders;
+
+import com.bytezone.dm3270.attributes.Attribute;
+import com.bytezone.dm3270.attributes.StartFieldAttribute;
+import com.bytezone.dm3270.display.DisplayScreen;
+import com.bytezone.dm3270.display.Pen;
+import com.bytezone.dm3270.display.Screen;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a stream of orders to a screen in a single pass, without creating any {@link Order}.
+ * <p>
+ * This has the same effect as creating the orders with {@link Order#getOrder} and processing
+ * them, but avoids allocating one object per order on every received screen.
+ */
+public final class OrderStreamProcessor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OrderStreamProcessor.class);
+
+  private OrderStreamProcessor() {
+  }
+
+  public static void process(byte[] buffer, int offset, int max, DisplayScreen screen) {
+    Pen pen = screen.getPen();
+    boolean previousText = false;
+    int ptr = offset;
+
+    while (ptr < max) {
+      byte value = buffer[ptr];
+      boolean text = false;
+
+      switch (value) {
+        case Order.START_FIELD:
+          pen.startField(new StartFieldAttribute(buffer[ptr + 1]));
+          pen.moveRight();
+          ptr += 2;
+          break;
+
+        case Order.START_FIELD_EXTENDED:
+          ptr = processStartFieldExtended(buffer, ptr, pen);
+          break;
+
+        case Order.SET_BUFFER_ADDRESS:
+          pen.moveTo(BufferAddress.getLocation(buffer[ptr + 1], buffer[ptr + 2]));
+          ptr += 3;
+          break;
+
+        case Order.SET_ATTRIBUTE:
+          Optional<Attribute> attribute = Attribute.getAttribute(buffer[ptr + 1], buffer[ptr + 2]);
+          assert attribute.isPresent();
+          pen.addAttribute(attribute.get());
+          ptr += 3;
+          break;
+
+        case Order.MODIFY_FIELD:
+          ptr += (buffer[ptr + 1] & 0xFF) * 2 + 2;
+          break;
+
+        case Order.INSERT_CURSOR:
+          screen.insertCursor(pen.getPosition());
+          ptr++;
+          break;
+
+        case Order.PROGRAM_TAB:
+          // if the previous data was text then erase the remainder of the field
+          if (previousText) {
+            pen.eraseEOF();
+          }
+          pen.tab();
+          ptr++;
+          break;
+
+        case Order.REPEAT_TO_ADDRESS:
+          ptr = processRepeatToAddress(buffer, ptr, screen);
+          break;
+
+        case Order.ERASE_UNPROTECTED:
+          LOG.warn("EraseUnprotectedToAddress not finished");
+          ptr += 3;
+          break;
+
+        case Order.GRAPHICS_ESCAPE:
+          pen.writeGraphics(buffer[ptr + 1]);
+          ptr += 2;
+          break;
+
+        case Order.FCO_NULL:
+        case Order.FCO_SUBSTITUTE:
+        case Order.FCO_DUPLICATE:
+        case Order.FCO_FIELD_MARK:
+        case Order.FCO_FORM_FEED:
+        case Order.FCO_CARRIAGE_RETURN:
+        case Order.FCO_END_OF_MEDIUM:
+        case Order.FCO_EIGHT_ONES:
+          pen.write((byte) 0x40);
+          ptr++;
+          break;
+
+        case Order.FCO_NEWLINE:
+          pen.moveToNextLine();
+          ptr++;
+          break;
+
+        default:
+          int length = TextOrder.getDataLength(buffer, ptr, max);
+          pen.write(buffer, ptr, length);
+          ptr += length;
+          text = true;
+      }
+
+      previousText = text;
+    }
+  }
+
+  private static int processStartFieldExtended(byte[] buffer, int offset, Pen pen) {
+    int totalAttributePairs = buffer[offset + 1] & 0xFF;
+    int ptr = offset + 2;
+    int max = ptr + totalAttributePairs * 2;
+
+    // There has to be a StartFieldAttribute, but it could be anywhere in the list
+    StartFieldAttribute startFieldAttribute = null;
+    for (int i = ptr; i < max; i += 2) {
+      if (buffer[i] == Attribute.XA_START_FIELD) {
+        startFieldAttribute = new StartFieldAttribute(buffer[i + 1]);
+      }
+    }
+    if (startFieldAttribute != null) {
+      startFieldAttribute.setExtended();
+      pen.startField(startFieldAttribute);
+    } else {
+      pen.startField(new StartFieldAttribute((byte) 0));
+    }
+
+    for (int i = ptr; i < max; i += 2) {
+      if (buffer[i] != Attribute.XA_START_FIELD) {
+        Attribute.getAttribute(buffer[i], buffer[i + 1]).ifPresent(pen::addAttribute);
+      }
+    }
+
+    pen.moveRight();
+    return max;
+  }
+
+  private static int processRepeatToAddress(byte[] buffer, int offset, DisplayScreen screen) {
+    int stopLocation = BufferAddress.getLocation(buffer[offset + 1], buffer[offset + 2]);
+    byte rptChar;
+    int size;
+    if (buffer[offset + 3] == Order.GRAPHICS_ESCAPE) {
+      rptChar = buffer[offset + 4];
+      size = 6;
+    } else {
+      rptChar = buffer[offset + 3];
+      size = 4;
+    }
+
+    Pen pen = screen.getPen();
+    if (pen.getPosition() == stopLocation) {
+      screen.clearScreen(((Screen) screen).getCurrentScreenOption());
+    } else {
+      while (pen.getPosition() != stopLocation) {
+        pen.write(rptChar);
+      }
+    }
+    return offset + size;
+  }
+
+}
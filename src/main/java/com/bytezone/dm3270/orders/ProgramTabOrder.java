@@ -8,10 +8,8 @@ public class ProgramTabOrder extends Order {
   private Order previousOrder;
 
   public ProgramTabOrder(byte[] buffer, int offset) {
+    super(buffer, offset, 1);
     assert buffer[offset] == Order.PROGRAM_TAB;
-
-    this.buffer = new byte[1];
-    this.buffer[0] = buffer[offset];
   }
 
   @Override
@@ -12,6 +12,7 @@ public class RepeatToAddressOrder extends Order {
   private byte rptChar;
 
   public RepeatToAddressOrder(byte[] buffer, int offset, Charset charset) {
+    super(buffer, offset, buffer[offset + 3] == Order.GRAPHICS_ESCAPE ? 6 : 4);
     assert buffer[offset] == Order.REPEAT_TO_ADDRESS;
 
     stopAddress = new BufferAddress(buffer[offset + 1], buffer[offset + 2]);
@@ -20,17 +21,11 @@ public class RepeatToAddressOrder extends Order {
       repeatCharacter = charset.getChar(buffer[offset + 4]);
       // offset + 5 can be used, but I haven't seen one yet
       rptChar = buffer[offset + 4];
-
-      this.buffer = new byte[6];
     } else {
       repeatCharacter = charset.getChar(buffer[offset + 3]);
       rptChar = buffer[offset + 3];
-
-      this.buffer = new byte[4];
     }
 
-    System.arraycopy(buffer, offset, this.buffer, 0, this.buffer.length);
-
     if (rptChar == 0) {
       repeatCharacter = ' ';
     }
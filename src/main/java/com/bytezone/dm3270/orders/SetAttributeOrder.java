@@ -10,15 +10,13 @@ public class SetAttributeOrder extends Order {
   private final Attribute attribute;
 
   public SetAttributeOrder(byte[] buffer, int offset) {
+    super(buffer, offset, 3);
     assert buffer[offset] == Order.SET_ATTRIBUTE;
 
     Optional<Attribute> opt =
         Attribute.getAttribute(buffer[offset + 1], buffer[offset + 2]);
     assert opt.isPresent();
     attribute = opt.get();
-
-    this.buffer = new byte[3];
-    System.arraycopy(buffer, offset, this.buffer, 0, this.buffer.length);
   }
 
   public Attribute getAttribute() {
@@ -8,12 +8,10 @@ public class SetBufferAddressOrder extends Order implements BufferAddressSource
   private final BufferAddress bufferAddress;
 
   public SetBufferAddressOrder(byte[] buffer, int offset) {
+    super(buffer, offset, 3);
     assert buffer[offset] == Order.SET_BUFFER_ADDRESS;
 
     bufferAddress = new BufferAddress(buffer[offset + 1], buffer[offset + 2]);
-
-    this.buffer = new byte[3];
-    System.arraycopy(buffer, offset, this.buffer, 0, 3);
   }
 
   @Override
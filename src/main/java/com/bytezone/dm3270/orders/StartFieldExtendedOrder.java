@@ -15,20 +15,15 @@ public class StartFieldExtendedOrder extends Order {
   private int location = -1;
 
   public StartFieldExtendedOrder(byte[] buffer, int offset) {
+    super(buffer, offset, (buffer[offset + 1] & 0xFF) * 2 + 2);
     assert buffer[offset] == Order.START_FIELD_EXTENDED;
 
     int totalAttributePairs = buffer[offset + 1] & 0xFF;
-    this.buffer = new byte[totalAttributePairs * 2 + 2];
-    this.buffer[0] = buffer[offset];
-    this.buffer[1] = buffer[offset + 1];
-
-    int bptr = 2;
     int ptr = offset + 2;
 
     while (totalAttributePairs-- > 0) {
       Optional<Attribute> opt = Attribute.getAttribute(buffer[ptr], buffer[ptr + 1]);
-      this.buffer[bptr++] = buffer[ptr++];
-      this.buffer[bptr++] = buffer[ptr++];
+      ptr += 2;
 
       if (opt.isPresent()) {
         Attribute attribute = opt.get();
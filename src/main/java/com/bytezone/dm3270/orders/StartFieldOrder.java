@@ -10,13 +10,10 @@ public class StartFieldOrder extends Order {
   private int location = -1;
 
   public StartFieldOrder(byte[] buffer, int offset) {
+    super(buffer, offset, 2);
     assert buffer[offset] == Order.START_FIELD;
 
     startFieldAttribute = new StartFieldAttribute(buffer[offset + 1]);
-
-    this.buffer = new byte[2];
-    this.buffer[0] = buffer[offset];
-    this.buffer[1] = buffer[offset + 1];
   }
 
   @Override
@@ -9,26 +9,16 @@ public class TextOrder extends Order {
   private final Charset charset;
 
   public TextOrder(byte[] buffer, int ptr, int max, Charset charset) {
+    super(buffer, ptr, getDataLength(buffer, ptr, max));
     this.charset = charset;
-    int dataLength = getDataLength(buffer, ptr, max);
-    this.buffer = new byte[dataLength];
-    System.arraycopy(buffer, ptr, this.buffer, 0, dataLength);
   }
 
-  private int getDataLength(byte[] buffer, int offset, int max) {
+  static int getDataLength(byte[] buffer, int offset, int max) {
     int ptr = offset + 1;
-    int length = 1;
-    while (ptr < max) {
-      byte value = buffer[ptr++];
-      for (byte orderValue : orderValues) {
-        if (value == orderValue) {
-          return length;
-        }
-      }
-      length++;
+    while (ptr < max && !isOrder(buffer[ptr])) {
+      ptr++;
     }
-
-    return length;
+    return ptr - offset;
   }
 
   @Override
@@ -39,14 +29,12 @@ public class TextOrder extends Order {
   @Override
   public void process(DisplayScreen screen) {
     Pen pen = screen.getPen();
-    for (byte b : buffer) {
-      pen.write(b);
-    }
+    pen.write(buffer, offset, length);
   }
 
   @Override
   public String toString() {
-    return buffer.length == 0 ? "" : "Text: [" + charset.getString(buffer) + "]";
+    return length == 0 ? "" : "Text: [" + charset.getString(buffer, offset, length) + "]";
   }
 
 }
@@ -4,8 +4,10 @@ import java.time.LocalDateTime;
 
 public interface BufferListener {
 
-  void listen(TelnetSocket.Source targetRole, byte[] message, LocalDateTime dateTime,
-              boolean genuine);
+  // The message is only valid during the call, since the caller reuses the buffer for next
+  // reads, so it must be copied if kept.
+  void listen(TelnetSocket.Source targetRole, byte[] message, int offset, int length,
+              LocalDateTime dateTime, boolean genuine);
 
   void close();
 
@@ -0,0 +1,245 @@
+package com.bytezone.dm3270.streams;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timer which keeps its tasks in a wheel of buckets, each one covering a fixed tick duration.
+ * <p>
+ * Scheduling and cancelling a task are constant time operations, and a single thread serves all
+ * the tasks, which makes it suitable for keeping timeouts of many sessions, where most of the
+ * tasks are cancelled or rescheduled before they expire. Tasks are executed in the timer thread,
+ * so they must be short and never block.
+ * <p>
+ * Tasks expire with up to one tick of delay, since the wheel is only checked once per tick.
+ */
+public class HashedWheelTimer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+  private final String name;
+  private final long tickMillis;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+  private volatile long startTimeMillis = -1;
+  private volatile boolean running;
+  private boolean stopped;
+  private Thread workerThread;
+  private long tick;
+
+  /**
+   * Creates a new timer.
+   *
+   * @param name name used for the timer thread.
+   * @param tickMillis duration of each tick, which is the granularity of the timer.
+   * @param ticksPerWheel number of buckets in the wheel. It is rounded up to a power of two.
+   */
+  public HashedWheelTimer(String name, long tickMillis, int ticksPerWheel) {
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("Tick duration must be positive: " + tickMillis);
+    }
+    if (ticksPerWheel <= 0) {
+      throw new IllegalArgumentException("Ticks per wheel must be positive: " + ticksPerWheel);
+    }
+    this.name = name;
+    this.tickMillis = tickMillis;
+    int wheelSize = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+    wheel = new Bucket[Math.max(wheelSize, 1)];
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new Bucket();
+    }
+    mask = wheel.length - 1;
+  }
+
+  public long getTickMillis() {
+    return tickMillis;
+  }
+
+  /**
+   * Schedules a task to be run once after the given delay.
+   *
+   * @param task the task to run in the timer thread.
+   * @param delay time to wait before running the task.
+   * @param unit unit of the delay.
+   * @return the {@link Timeout} which allows cancelling the task.
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    start();
+    long deadline = currentTimeMillis() - startTimeMillis + unit.toMillis(Math.max(delay, 0));
+    Timeout timeout = new Timeout(task, deadline);
+    pendingTimeouts.add(timeout);
+    return timeout;
+  }
+
+  private synchronized void start() {
+    if (stopped) {
+      throw new IllegalStateException("Timer " + name + " has already been stopped");
+    }
+    if (running) {
+      return;
+    }
+    startTimeMillis = currentTimeMillis();
+    running = true;
+    workerThread = new Thread(this::run, name);
+    workerThread.setDaemon(true);
+    workerThread.start();
+  }
+
+  /**
+   * Stops the timer thread, discarding all the tasks not yet run.
+   */
+  public synchronized void stop() {
+    stopped = true;
+    running = false;
+    if (workerThread != null) {
+      workerThread.interrupt();
+      workerThread = null;
+    }
+  }
+
+  private static long currentTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+
+  private void run() {
+    while (running) {
+      long tickDeadline = tickMillis * (tick + 1);
+      long sleep = tickDeadline - (currentTimeMillis() - startTimeMillis);
+      if (sleep > 0) {
+        try {
+          Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+          if (running) {
+            LOG.debug("{} was interrupted", name);
+          }
+          break;
+        }
+      }
+      transferPendingTimeouts();
+      wheel[(int) (tick & mask)].expireTimeouts();
+      tick++;
+    }
+  }
+
+  private void transferPendingTimeouts() {
+    Timeout timeout;
+    while ((timeout = pendingTimeouts.poll()) != null) {
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long calculated = timeout.deadline / tickMillis;
+      timeout.remainingRounds = (calculated - tick) / wheel.length;
+      // deadlines already passed are run in current tick
+      long ticks = Math.max(calculated, tick);
+      wheel[(int) (ticks & mask)].add(timeout);
+    }
+  }
+
+  /**
+   * Handle of a task scheduled in the timer.
+   */
+  public static final class Timeout {
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(ST_INIT);
+    private long remainingRounds;
+    private Timeout next;
+    private Timeout prev;
+
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the task if it has not been run yet.
+     *
+     * @return true if the task was cancelled, false if it already run or was cancelled before.
+     */
+    public boolean cancel() {
+      // cancelled timeouts are removed from the wheel when the timer reaches their bucket
+      return state.compareAndSet(ST_INIT, ST_CANCELLED);
+    }
+
+    public boolean isCancelled() {
+      return state.get() == ST_CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return state.get() == ST_EXPIRED;
+    }
+
+    private void expire() {
+      if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+        return;
+      }
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        LOG.warn("Problem running timer task {}", task, e);
+      }
+    }
+
+  }
+
+  // only accessed by the timer thread
+  private static final class Bucket {
+
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      if (head == null) {
+        head = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+      }
+      tail = timeout;
+    }
+
+    private void expireTimeouts() {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.isCancelled()) {
+          remove(timeout);
+        } else if (timeout.remainingRounds <= 0) {
+          remove(timeout);
+          timeout.expire();
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    private void remove(Timeout timeout) {
+      if (timeout.prev != null) {
+        timeout.prev.next = timeout.next;
+      } else {
+        head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      } else {
+        tail = timeout.prev;
+      }
+      timeout.next = null;
+      timeout.prev = null;
+    }
+
+  }
+
+}
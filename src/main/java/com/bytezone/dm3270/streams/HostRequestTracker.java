@@ -0,0 +1,146 @@
+package com.bytezone.dm3270.streams;
+
+import com.bytezone.dm3270.HostResponse;
+import com.bytezone.dm3270.HostResponseListener;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Table of the TN3270E requests sent to the host which have not been completed yet, keyed by
+ * their sequence number.
+ * <p>
+ * Responses of the host carry the sequence number of the request, so they complete the matching
+ * request. Data records carry the sequence numbers of the host instead, so they are attributed to
+ * the oldest request still waiting for data, which stops waiting when the keyboard is unlocked,
+ * and is completed then if it did not ask for a response. Since the host completes requests in
+ * order, completing a request discards any older one still in flight.
+ */
+class HostRequestTracker {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HostRequestTracker.class);
+  // requests the host never completes are eventually discarded
+  private static final int MAX_IN_FLIGHT = 64;
+
+  private final ArrayDeque<InFlightRequest> inFlight = new ArrayDeque<>();
+  private HostResponseListener listener;
+
+  void setListener(HostResponseListener listener) {
+    this.listener = listener;
+  }
+
+  synchronized void requestSent(int sequenceNumber, boolean responseRequested, long nanos) {
+    if (inFlight.size() >= MAX_IN_FLIGHT) {
+      InFlightRequest discarded = inFlight.poll();
+      LOG.debug("Discarding request {} never completed by host", discarded.sequenceNumber);
+    }
+    inFlight.add(new InFlightRequest(sequenceNumber, responseRequested, nanos));
+  }
+
+  synchronized void dataReceived(long nanos) {
+    InFlightRequest request = findAwaitingData();
+    if (request != null) {
+      if (request.records == 0) {
+        request.firstRecordNanos = nanos;
+      }
+      request.records++;
+    }
+  }
+
+  void responseReceived(int sequenceNumber, boolean positive, int responseCode, long nanos) {
+    InFlightRequest request = null;
+    synchronized (this) {
+      for (InFlightRequest next : inFlight) {
+        if (next.sequenceNumber == sequenceNumber) {
+          request = next;
+          break;
+        }
+      }
+      if (request != null) {
+        complete(request);
+      }
+    }
+    if (request == null) {
+      LOG.debug("Response received for unknown request {}", sequenceNumber);
+      return;
+    }
+    notify(request, positive ? HostResponse.Outcome.POSITIVE : HostResponse.Outcome.NEGATIVE,
+        nanos, responseCode);
+  }
+
+  void keyboardUnlocked(long nanos) {
+    InFlightRequest request;
+    synchronized (this) {
+      request = findAwaitingData();
+      if (request == null || request.records == 0) {
+        return;
+      }
+      // the host is done sending data for it, so next records belong to newer requests
+      request.dataCompleted = true;
+      if (request.responseRequested) {
+        return;
+      }
+      complete(request);
+    }
+    notify(request, HostResponse.Outcome.DATA, nanos, -1);
+  }
+
+  private InFlightRequest findAwaitingData() {
+    for (InFlightRequest request : inFlight) {
+      if (!request.dataCompleted) {
+        return request;
+      }
+    }
+    return null;
+  }
+
+  /*
+   * The host completes requests in order, so older requests still in flight when a newer one is
+   * completed will never get their response.
+   */
+  private void complete(InFlightRequest request) {
+    Iterator<InFlightRequest> it = inFlight.iterator();
+    while (it.hasNext()) {
+      InFlightRequest next = it.next();
+      it.remove();
+      if (next == request) {
+        return;
+      }
+      LOG.debug("Discarding request {} never completed by host", next.sequenceNumber);
+    }
+  }
+
+  synchronized void clear() {
+    inFlight.clear();
+  }
+
+  private void notify(InFlightRequest request, HostResponse.Outcome outcome, long nanos,
+      int responseCode) {
+    HostResponseListener l = listener;
+    if (l != null) {
+      l.onHostResponse(new HostResponse(request.sequenceNumber, outcome,
+          nanos - request.sentNanos,
+          request.records == 0 ? -1 : request.firstRecordNanos - request.sentNanos,
+          request.records, responseCode));
+    }
+  }
+
+  private static final class InFlightRequest {
+
+    private final int sequenceNumber;
+    private final boolean responseRequested;
+    private final long sentNanos;
+    private long firstRecordNanos;
+    private int records;
+    private boolean dataCompleted;
+
+    private InFlightRequest(int sequenceNumber, boolean responseRequested, long sentNanos) {
+      this.sequenceNumber = sequenceNumber;
+      this.responseRequested = responseRequested;
+      this.sentNanos = sentNanos;
+    }
+
+  }
+
+}
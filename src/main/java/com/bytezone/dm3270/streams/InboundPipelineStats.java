@@ -0,0 +1,69 @@
+package com.bytezone.dm3270.streams;
+
+/**
+ * Statistics of the records received from the server and processed through an inbound queue.
+ * <p>
+ * The time records wait in the queue reflects how much the processing lags behind the network,
+ * while the processing time is the time spent parsing records and updating the screen.
+ */
+public final class InboundPipelineStats {
+
+  private final long processedRecords;
+  private final long queuedNanos;
+  private final long processingNanos;
+  private final int maxQueuedRecords;
+  private final int capacity;
+
+  InboundPipelineStats(long processedRecords, long queuedNanos, long processingNanos,
+      int maxQueuedRecords, int capacity) {
+    this.processedRecords = processedRecords;
+    this.queuedNanos = queuedNanos;
+    this.processingNanos = processingNanos;
+    this.maxQueuedRecords = maxQueuedRecords;
+    this.capacity = capacity;
+  }
+
+  public long getProcessedRecords() {
+    return processedRecords;
+  }
+
+  /**
+   * Gets the time records waited in the queue.
+   *
+   * @return the sum of the nanos from the moment each record was received until it started being
+   * processed.
+   */
+  public long getQueuedNanos() {
+    return queuedNanos;
+  }
+
+  /**
+   * Gets the time spent processing records.
+   *
+   * @return the sum of the nanos spent processing each record.
+   */
+  public long getProcessingNanos() {
+    return processingNanos;
+  }
+
+  /**
+   * Gets the maximum number of records found in the queue when processing started.
+   *
+   * @return the maximum number of queued records. When it reaches the capacity, the thread reading
+   * from the connection had to wait for the processing.
+   */
+  public int getMaxQueuedRecords() {
+    return maxQueuedRecords;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("records=%d, queued=%,d us, processing=%,d us, maxQueued=%d/%d",
+        processedRecords, queuedNanos / 1000, processingNanos / 1000, maxQueuedRecords, capacity);
+  }
+
+}
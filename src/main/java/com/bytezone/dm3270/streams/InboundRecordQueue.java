@@ -0,0 +1,155 @@
+package com.bytezone.dm3270.streams;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded queue of the records framed by the thread reading from the connection, which are
+ * processed in order by an executor.
+ * <p>
+ * It is a ring buffer with a single producer, the reading thread, and a single consumer, the
+ * processing task, so it needs no locks. When the ring is full the reading thread waits for the
+ * processing to catch up, which stops reading from the connection.
+ */
+class InboundRecordQueue {
+
+  private static final Logger LOG = LoggerFactory.getLogger(InboundRecordQueue.class);
+  // records processed before giving the executor thread back, so busy sessions don't starve others
+  private static final int MAX_RECORDS_PER_RUN = 64;
+  private static final long FULL_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Record[] ring;
+  private final int mask;
+  private final Executor executor;
+  private final RecordProcessor processor;
+  private final AtomicLong head = new AtomicLong();          // next record to process
+  private final AtomicLong tail = new AtomicLong();          // next record to add
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private volatile Thread waitingProducer;
+
+  // only updated by the consumer
+  private volatile long processedRecords;
+  private volatile long queuedNanos;
+  private volatile long processingNanos;
+  private volatile int maxQueuedRecords;
+
+  enum RecordType {
+    RECORD, TELNET_COMMAND, TELNET_SUBCOMMAND
+  }
+
+  @FunctionalInterface
+  interface RecordProcessor {
+
+    void process(RecordType type, byte[] data, int length, long queuedNanos);
+
+  }
+
+  InboundRecordQueue(int capacity, Executor executor, RecordProcessor processor) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity);
+    size = size < capacity ? size << 1 : size;
+    this.ring = new Record[size];
+    this.mask = size - 1;
+    this.executor = executor;
+    this.processor = processor;
+  }
+
+  // the data is copied, since the telnet processor reuses its buffer for next records
+  void put(RecordType type, byte[] data, int length) {
+    byte[] copy = new byte[length];
+    System.arraycopy(data, 0, copy, 0, length);
+    Record record = new Record(type, copy, System.nanoTime());
+
+    long t = tail.get();
+    while (t - head.get() >= ring.length) {
+      waitingProducer = Thread.currentThread();
+      if (t - head.get() >= ring.length) {
+        LockSupport.parkNanos(this, FULL_WAIT_NANOS);
+      }
+      waitingProducer = null;
+    }
+    ring[(int) (t & mask)] = record;
+    tail.set(t + 1);
+    schedule();
+  }
+
+  private void schedule() {
+    if (head.get() != tail.get() && scheduled.compareAndSet(false, true)) {
+      try {
+        executor.execute(this::processRecords);
+      } catch (RuntimeException e) {
+        scheduled.set(false);
+        throw e;
+      }
+    }
+  }
+
+  private void processRecords() {
+    try {
+      int queued = (int) (tail.get() - head.get());
+      if (queued > maxQueuedRecords) {
+        maxQueuedRecords = queued;
+      }
+      for (int i = 0; i < MAX_RECORDS_PER_RUN; i++) {
+        long h = head.get();
+        if (h == tail.get()) {
+          break;
+        }
+        int index = (int) (h & mask);
+        Record record = ring[index];
+        ring[index] = null;
+        head.set(h + 1);
+        Thread producer = waitingProducer;
+        if (producer != null) {
+          LockSupport.unpark(producer);
+        }
+        process(record);
+      }
+    } finally {
+      scheduled.set(false);
+      // pending records, or records added after the ring was found empty but before releasing
+      // it. Also done when processing throws an error, so the remaining records are processed.
+      schedule();
+    }
+  }
+
+  private void process(Record record) {
+    long start = System.nanoTime();
+    try {
+      processor.process(record.type, record.data, record.data.length, record.queuedAt);
+    } catch (RuntimeException e) {
+      LOG.error("Error processing record", e);
+    }
+    long end = System.nanoTime();
+    queuedNanos += start - record.queuedAt;
+    processingNanos += end - start;
+    processedRecords++;
+  }
+
+  InboundPipelineStats getStats() {
+    return new InboundPipelineStats(processedRecords, queuedNanos, processingNanos,
+        maxQueuedRecords, ring.length);
+  }
+
+  private static final class Record {
+
+    private final RecordType type;
+    private final byte[] data;
+    private final long queuedAt;
+
+    private Record(RecordType type, byte[] data, long queuedAt) {
+      this.type = type;
+      this.data = data;
+      this.queuedAt = queuedAt;
+    }
+
+  }
+
+}
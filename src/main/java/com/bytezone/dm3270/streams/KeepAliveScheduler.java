@@ -0,0 +1,147 @@
+package com.bytezone.dm3270.streams;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a NOOP to the terminal server of each registered session which has not communicated with
+ * the server for a given idle period.
+ * <p>
+ * All the sessions registered in a scheduler share a single {@link HashedWheelTimer} thread, so
+ * idle sessions don't require any thread of their own. Since the timer thread must not block, the
+ * NOOPs of blocking connections are written by a separate executor.
+ */
+public class KeepAliveScheduler {
+
+  public static final long DEFAULT_IDLE_LIMIT_MILLIS = 120000;
+  public static final long DEFAULT_TICK_MILLIS = 1000;
+
+  private static final int MAX_TICKS_PER_WHEEL = 4096;
+  private static final KeepAliveScheduler DEFAULT_SCHEDULER =
+      new KeepAliveScheduler(DEFAULT_IDLE_LIMIT_MILLIS, DEFAULT_TICK_MILLIS);
+
+  private final long idleLimitMillis;
+  private final HashedWheelTimer timer;
+  private final Executor writeExecutor;
+  private final ExecutorService ownedWriteExecutor;
+
+  /**
+   * Creates a new scheduler.
+   *
+   * @param idleLimitMillis number of millis without communication with the server after which a
+   * NOOP is sent.
+   * @param tickMillis granularity of the timer used to check idle sessions. Bigger values reduce
+   * the overhead of the timer, at the cost of less precision in the moment a NOOP is sent.
+   */
+  public KeepAliveScheduler(long idleLimitMillis, long tickMillis) {
+    this(idleLimitMillis, tickMillis, null);
+  }
+
+  /**
+   * Creates a new scheduler which writes the NOOPs of blocking connections in the given executor.
+   *
+   * @param idleLimitMillis number of millis without communication with the server after which a
+   * NOOP is sent.
+   * @param tickMillis granularity of the timer used to check idle sessions.
+   * @param writeExecutor executor which writes the NOOPs of connections which block while
+   * writing. If null, a pool of daemon threads created as needed is used, and stopped with the
+   * scheduler.
+   */
+  public KeepAliveScheduler(long idleLimitMillis, long tickMillis, Executor writeExecutor) {
+    if (idleLimitMillis <= 0) {
+      throw new IllegalArgumentException("Idle limit must be positive: " + idleLimitMillis);
+    }
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("Tick duration must be positive: " + tickMillis);
+    }
+    this.idleLimitMillis = idleLimitMillis;
+    int ticksPerWheel = (int) Math.min(idleLimitMillis / tickMillis + 1, MAX_TICKS_PER_WHEEL);
+    timer = new HashedWheelTimer("dm3270-keepalive", tickMillis, ticksPerWheel);
+    if (writeExecutor == null) {
+      ownedWriteExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "dm3270-keepalive-write");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.writeExecutor = ownedWriteExecutor;
+    } else {
+      ownedWriteExecutor = null;
+      this.writeExecutor = writeExecutor;
+    }
+  }
+
+  /**
+   * Gets the scheduler shared by all sessions which have not been configured with a specific
+   * one.
+   *
+   * @return the default scheduler, which sends a NOOP after 120 seconds of inactivity.
+   */
+  public static KeepAliveScheduler getDefault() {
+    return DEFAULT_SCHEDULER;
+  }
+
+  public long getIdleLimitMillis() {
+    return idleLimitMillis;
+  }
+
+  Registration register(TelnetState telnetState) {
+    Registration registration = new Registration(telnetState);
+    registration.schedule(idleLimitMillis);
+    return registration;
+  }
+
+  /**
+   * Stops the timer thread of the scheduler. No more sessions can be registered afterwards.
+   */
+  public void stop() {
+    timer.stop();
+    if (ownedWriteExecutor != null) {
+      ownedWriteExecutor.shutdown();
+    }
+  }
+
+  final class Registration implements Runnable {
+
+    private final TelnetState telnetState;
+    private volatile HashedWheelTimer.Timeout timeout;
+    private volatile boolean cancelled;
+
+    private Registration(TelnetState telnetState) {
+      this.telnetState = telnetState;
+    }
+
+    private void schedule(long delayMillis) {
+      timeout = timer.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+      // cancel may have run while scheduling
+      if (cancelled) {
+        timeout.cancel();
+      }
+    }
+
+    @Override
+    public void run() {
+      if (cancelled) {
+        return;
+      }
+      long idleMillis = System.currentTimeMillis() - telnetState.getLastAccess();
+      // allow one tick of difference between the timer and the clock used for last access
+      if (idleMillis + timer.getTickMillis() >= idleLimitMillis) {
+        telnetState.writeNoOpLater(writeExecutor);
+        idleMillis = 0;
+      }
+      schedule(idleLimitMillis - idleMillis);
+    }
+
+    void cancel() {
+      cancelled = true;
+      HashedWheelTimer.Timeout current = timeout;
+      if (current != null) {
+        current.cancel();
+      }
+    }
+
+  }
+
+}
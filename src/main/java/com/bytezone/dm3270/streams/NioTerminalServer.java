@@ -0,0 +1,283 @@
+package com.bytezone.dm3270.streams;
+
+import com.bytezone.dm3270.ConnectionListener;
+import com.bytezone.dm3270.ConnectionPhase;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Non blocking alternative to {@link TerminalServer} which is served by a {@link
+ * SelectorEventLoopGroup} instead of a dedicated thread.
+ * <p>
+ * Received data is passed to the listener in the selector thread, so the listener should not
+ * block, since that would delay the rest of connections served by the same selector.
+ */
+public class NioTerminalServer implements TerminalTransport {
+
+  private final String serverURL;
+  private final int serverPort;
+  private final SelectorEventLoopGroup eventLoopGroup;
+  private int connectionTimeoutMillis;
+
+  private volatile SelectorEventLoop eventLoop;
+  private volatile SocketChannel channel;
+  private SelectionKey key;
+  private long connectDeadline;
+  private final Queue<ByteBuffer> pendingWrites = new ArrayDeque<>();
+  private volatile boolean running;
+  private volatile boolean closed;
+
+  private final BufferListener telnetListener;
+  private ConnectionListener connectionListener;
+  private TelnetState telnetState;
+
+  public NioTerminalServer(String serverURL, int serverPort,
+      SelectorEventLoopGroup eventLoopGroup, BufferListener listener) {
+    this.serverURL = serverURL;
+    this.serverPort = serverPort;
+    this.eventLoopGroup = eventLoopGroup;
+    this.telnetListener = listener;
+  }
+
+  @Override
+  public void setConnectionTimeoutMillis(int connectionTimeoutMillis) {
+    this.connectionTimeoutMillis = connectionTimeoutMillis;
+  }
+
+  @Override
+  public void setConnectionListener(ConnectionListener connectionListener) {
+    this.connectionListener = connectionListener;
+  }
+
+  @Override
+  public void setTelnetState(TelnetState telnetState) {
+    this.telnetState = telnetState;
+  }
+
+  public void connect() {
+    // resolve the address in calling thread to avoid blocking the selector thread
+    InetSocketAddress address = new InetSocketAddress(serverURL, serverPort);
+    eventLoop = eventLoopGroup.next();
+    eventLoop.execute(() -> startConnect(address));
+  }
+
+  // ---------------------------------------------------------------------------------//
+  // Methods invoked in the selector thread
+  // ---------------------------------------------------------------------------------//
+
+  private void startConnect(InetSocketAddress address) {
+    if (closed) {
+      return;
+    }
+    try {
+      if (address.isUnresolved()) {
+        throw new UnknownHostException(serverURL);
+      }
+      channel = SocketChannel.open();
+      channel.configureBlocking(false);
+      if (channel.connect(address)) {
+        connected();
+      } else {
+        key = channel.register(eventLoop.getSelector(), SelectionKey.OP_CONNECT, this);
+        if (connectionTimeoutMillis > 0) {
+          connectDeadline = System.currentTimeMillis() + connectionTimeoutMillis;
+          eventLoop.addConnecting(this);
+        }
+      }
+    } catch (IOException e) {
+      closeChannel();
+      handleException(e);
+    }
+  }
+
+  void finishConnect() {
+    eventLoop.removeConnecting(this);
+    try {
+      channel.finishConnect();
+      connected();
+    } catch (IOException e) {
+      closeChannel();
+      handleException(e);
+    }
+  }
+
+  private void connected() throws ClosedChannelException {
+    synchronized (pendingWrites) {
+      // writes requested while connecting are flushed once the channel is writable
+      int ops = pendingWrites.isEmpty() ? SelectionKey.OP_READ
+          : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+      if (key == null) {
+        key = channel.register(eventLoop.getSelector(), ops, this);
+      } else {
+        key.interestOps(ops);
+      }
+      running = true;
+    }
+    if (telnetState != null) {
+      telnetState.recordConnectionPhase(ConnectionPhase.TCP_CONNECTED);
+    }
+    if (connectionListener != null) {
+      connectionListener.onConnection();
+    }
+  }
+
+  void checkConnectTimeout(long now) {
+    if (closed) {
+      eventLoop.removeConnecting(this);
+    } else if (now >= connectDeadline) {
+      eventLoop.removeConnecting(this);
+      closeChannel();
+      handleException(new SocketTimeoutException("connect timed out"));
+    }
+  }
+
+  void read(ByteBuffer readBuffer) {
+    readBuffer.clear();
+    int bytesRead;
+    try {
+      bytesRead = channel.read(readBuffer);
+    } catch (IOException e) {
+      if (running) {
+        close();
+        handleException(e);
+      }
+      return;
+    }
+
+    if (bytesRead < 0) {
+      if (running) {
+        close();
+        if (connectionListener != null) {
+          connectionListener.onConnectionClosed();
+        }
+      }
+      return;
+    }
+
+    telnetListener.listen(TelnetSocket.Source.SERVER, readBuffer.array(), 0, bytesRead,
+        LocalDateTime.now(), true);
+  }
+
+  void flush() {
+    synchronized (pendingWrites) {
+      try {
+        while (!pendingWrites.isEmpty()) {
+          ByteBuffer buffer = pendingWrites.peek();
+          channel.write(buffer);
+          if (buffer.hasRemaining()) {
+            return;                         // wait for the channel to be writable again
+          }
+          pendingWrites.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+      } catch (IOException e) {
+        close();
+        handleException(e);
+      }
+    }
+  }
+
+  private void enableWrites() {
+    if (key != null && key.isValid()) {
+      key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+  }
+
+  // invoked when processing of received data fails, to avoid affecting other connections
+  void fail(RuntimeException ex) {
+    close();
+    handleException(ex);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  // Methods which may be invoked from any thread
+  // ---------------------------------------------------------------------------------//
+
+  @Override
+  public void write(byte[] buffer) {
+    // the no-op may come here if socket is closed from remote end and client has not been closed
+    if (!running && buffer == TelnetState.NO_OP) {
+      return;
+    }
+
+    synchronized (pendingWrites) {
+      if (closed) {
+        handleException(new IOException("Not connected to " + serverURL + ":" + serverPort));
+        return;
+      }
+      ByteBuffer data = ByteBuffer.wrap(buffer);
+      // until connected writes are just queued, since the channel can't be written yet
+      if (running && pendingWrites.isEmpty()) {
+        try {
+          channel.write(data);
+        } catch (IOException e) {
+          close();
+          handleException(e);
+          return;
+        }
+      }
+      if (data.hasRemaining()) {
+        pendingWrites.add(data);
+        if (running) {
+          eventLoop.execute(this::enableWrites);
+        }
+      }
+    }
+  }
+
+  // writes don't block, but the selector thread avoids contention with the calling thread
+  @Override
+  public void writeLater(byte[] buffer, Executor executor) {
+    SelectorEventLoop loop = eventLoop;
+    if (loop != null) {
+      loop.execute(() -> write(buffer));
+    } else {
+      write(buffer);
+    }
+  }
+
+  private void handleException(Exception ex) {
+    if (connectionListener != null) {
+      connectionListener.onException(ex);
+    } else {
+      ex.printStackTrace();
+    }
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    closed = true;
+    closeChannel();
+
+    if (telnetListener != null) {
+      telnetListener.close();
+    }
+  }
+
+  private void closeChannel() {
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      handleException(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("NioTerminalServer connected to %s : %d", serverURL, serverPort);
+  }
+
+}
@@ -0,0 +1,146 @@
+package com.bytezone.dm3270.streams;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single thread which serves the channels of many {@link NioTerminalServer} through one {@link
+ * Selector}.
+ * <p>
+ * Every operation on a registered channel (connect, read, write interest changes) happens in the
+ * loop thread, other threads only submit tasks through {@link #execute(Runnable)}.
+ */
+class SelectorEventLoop implements Runnable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SelectorEventLoop.class);
+
+  private static final int READ_BUFFER_SIZE = 4096;
+  private static final long CONNECT_CHECK_MILLIS = 100;
+
+  private final Selector selector;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  // shared by all the channels of this loop, since reads only happen in the loop thread
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+  private final Set<NioTerminalServer> connecting = new HashSet<>();
+  private volatile boolean running = true;
+
+  SelectorEventLoop() {
+    try {
+      selector = Selector.open();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  Selector getSelector() {
+    return selector;
+  }
+
+  void execute(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  void addConnecting(NioTerminalServer server) {
+    connecting.add(server);
+  }
+
+  void removeConnecting(NioTerminalServer server) {
+    connecting.remove(server);
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      try {
+        if (connecting.isEmpty()) {
+          selector.select();
+        } else {
+          selector.select(CONNECT_CHECK_MILLIS);
+        }
+        runTasks();
+        processSelectedKeys();
+        checkConnectTimeouts();
+      } catch (ClosedSelectorException e) {
+        break;
+      } catch (IOException | RuntimeException e) {
+        // one failing session must not stop the rest of the sessions served by this loop
+        LOG.error("Unexpected error in selector loop", e);
+      }
+    }
+    closeSelector();
+    LOG.debug("Selector loop stopped");
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private void processSelectedKeys() {
+    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+    while (keys.hasNext()) {
+      SelectionKey key = keys.next();
+      keys.remove();
+      NioTerminalServer server = (NioTerminalServer) key.attachment();
+      if (!key.isValid()) {
+        continue;
+      }
+      try {
+        if (key.isConnectable()) {
+          server.finishConnect();
+        } else {
+          if (key.isWritable()) {
+            server.flush();
+          }
+          if (key.isValid() && key.isReadable()) {
+            server.read(readBuffer);
+          }
+        }
+      } catch (RuntimeException e) {
+        server.fail(e);
+      }
+    }
+  }
+
+  private void checkConnectTimeouts() {
+    if (connecting.isEmpty()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    // copy since the check may remove the server from the set
+    for (NioTerminalServer server : new HashSet<>(connecting)) {
+      server.checkConnectTimeout(now);
+    }
+  }
+
+  void shutdown() {
+    running = false;
+    selector.wakeup();
+  }
+
+  private void closeSelector() {
+    try {
+      for (SelectionKey key : selector.keys()) {
+        ((NioTerminalServer) key.attachment()).close();
+      }
+      selector.close();
+    } catch (IOException e) {
+      LOG.warn("Problem closing selector", e);
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+package com.bytezone.dm3270.streams;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of selector threads which multiplex the connections of many terminal clients.
+ * <p>
+ * Each connection is assigned to one of the loops in round robin fashion, and the assigned loop
+ * thread does all the socket reads and writes of such connection. This allows serving thousands of
+ * connections with a few threads, instead of using a dedicated blocking thread per connection.
+ * <p>
+ * The same group is expected to be shared by many clients, and closed once all of them are
+ * disconnected.
+ */
+public class SelectorEventLoopGroup implements AutoCloseable {
+
+  private static final AtomicInteger GROUP_COUNT = new AtomicInteger();
+
+  private final SelectorEventLoop[] loops;
+  private final AtomicInteger nextLoop = new AtomicInteger();
+
+  /**
+   * Creates a new group of selector threads.
+   *
+   * @param threads number of threads (each one with its own selector) used to serve
+   * connections.
+   */
+  public SelectorEventLoopGroup(int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+    }
+    int groupId = GROUP_COUNT.incrementAndGet();
+    loops = new SelectorEventLoop[threads];
+    for (int i = 0; i < threads; i++) {
+      loops[i] = new SelectorEventLoop();
+      Thread thread = new Thread(loops[i], "dm3270-selector-" + groupId + "-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  SelectorEventLoop next() {
+    return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+  }
+
+  /**
+   * Stops all the selector threads and closes any connection still served by them.
+   */
+  @Override
+  public void close() {
+    for (SelectorEventLoop loop : loops) {
+      loop.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+package com.bytezone.dm3270.streams;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor which runs its tasks one at a time, in submission order, on a delegate executor.
+ * <p>
+ * Each session uses its own serial executor to run all the changes to its screen, while the
+ * delegate executor, usually a thread pool, can be shared by many sessions. So sessions don't
+ * need a thread each, and the screen of a session is never changed by two threads at once.
+ * <p>
+ * Tasks only hold a thread of the delegate while they are running, so they should never block
+ * waiting for other tasks of the same executor.
+ */
+public class SerialExecutor implements Executor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SerialExecutor.class);
+  // tasks run before giving the delegate thread back, so busy sessions don't starve others
+  private static final int MAX_TASKS_PER_RUN = 64;
+
+  private final Executor delegate;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private volatile Thread runningThread;
+
+  public SerialExecutor(Executor delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    tasks.add(task);
+    schedule();
+  }
+
+  /**
+   * Checks if the current thread is running a task of this executor.
+   *
+   * @return true when called from a task of this executor.
+   */
+  public boolean isInExecutorThread() {
+    return runningThread == Thread.currentThread();
+  }
+
+  private void schedule() {
+    if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+      try {
+        delegate.execute(this::runTasks);
+      } catch (RuntimeException e) {
+        scheduled.set(false);
+        throw e;
+      }
+    }
+  }
+
+  private void runTasks() {
+    runningThread = Thread.currentThread();
+    try {
+      for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+        Runnable task = tasks.poll();
+        if (task == null) {
+          break;
+        }
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          LOG.error("Error running task", e);
+        }
+      }
+    } finally {
+      runningThread = null;
+      scheduled.set(false);
+      // pending tasks, or tasks added after the queue was found empty but before releasing it.
+      // Also done when a task throws an error, so the remaining tasks still run.
+      schedule();
+    }
+  }
+
+}
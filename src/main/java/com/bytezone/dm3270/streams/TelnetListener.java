@@ -1,6 +1,7 @@
 package com.bytezone.dm3270.streams;
 
 import com.bytezone.dm3270.Charset;
+import com.bytezone.dm3270.ConnectionListener;
 import com.bytezone.dm3270.buffers.Buffer;
 import com.bytezone.dm3270.buffers.ReplyBuffer;
 import com.bytezone.dm3270.commands.Command;
@@ -13,6 +14,8 @@ import com.bytezone.dm3270.extended.TN3270ExtendedCommand;
 import com.bytezone.dm3270.extended.UnbindCommand;
 import com.bytezone.dm3270.session.SessionRecord;
 import com.bytezone.dm3270.session.SessionRecord.SessionRecordType;
+import com.bytezone.dm3270.telnet.RecordBufferPool;
+import com.bytezone.dm3270.telnet.RecordTooLargeException;
 import com.bytezone.dm3270.telnet.TN3270ExtendedSubcommand;
 import com.bytezone.dm3270.telnet.TelnetCommand;
 import com.bytezone.dm3270.telnet.TelnetCommandProcessor;
@@ -20,7 +23,9 @@ import com.bytezone.dm3270.telnet.TelnetProcessor;
 import com.bytezone.dm3270.telnet.TelnetSubcommand;
 import com.bytezone.dm3270.telnet.TerminalTypeSubcommand;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +40,11 @@ public class TelnetListener implements BufferListener, TelnetCommandProcessor {
   private final Screen screen;
 
   private final TelnetProcessor telnetProcessor = new TelnetProcessor(this);
+  private ConnectionListener connectionListener;
+  private Executor executor;
+  private InboundRecordQueue inboundQueue;
+  // nanoTime at which the data being framed was read
+  private long readNanos;
 
   // Use this when not recording the session and running in TERMINAL mode.
   public TelnetListener(Screen screen, TelnetState telnetState) {
@@ -45,17 +55,72 @@ public class TelnetListener implements BufferListener, TelnetCommandProcessor {
     this.source = TelnetSocket.Source.SERVER;                  // listening to a server
   }
 
-  // This method is always called with a copy of the original buffer. It can be
-  // called from a background thread, so any GUI calls must be placed on the EDT.
+  public void setConnectionListener(ConnectionListener connectionListener) {
+    this.connectionListener = connectionListener;
+  }
+
+  /**
+   * Sets the executor which processes the received data, instead of the thread reading it.
+   * <p>
+   * It must run tasks one at a time in submission order, like {@link SerialExecutor}.
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Enables processing the received records in a separate stage from reading them.
+   * <p>
+   * The thread reading from the connection just frames the records and puts them in a bounded
+   * queue, and the given executor processes them in order, so reads from the network overlap
+   * with the processing of previous records. When the queue is full the reading thread waits for
+   * the processing to catch up. The executor must run tasks one at a time in submission order,
+   * like {@link SerialExecutor}, and takes precedence over the one set with {@link
+   * #setExecutor(Executor)}.
+   *
+   * @param capacity maximum number of queued records. It is rounded up to a power of two.
+   * @param processingExecutor the executor which processes the records.
+   */
+  public void setInboundQueue(int capacity, Executor processingExecutor) {
+    inboundQueue = new InboundRecordQueue(capacity, processingExecutor, this::processQueued);
+  }
+
+  public Optional<InboundPipelineStats> getInboundPipelineStats() {
+    return Optional.ofNullable(inboundQueue).map(InboundRecordQueue::getStats);
+  }
+
+  public void setRecordBufferPool(RecordBufferPool recordBufferPool) {
+    telnetProcessor.setBufferPool(recordBufferPool);
+  }
+
+  public void setMaxRecordSize(int maxRecordSize) {
+    telnetProcessor.setMaxRecordSize(maxRecordSize);
+  }
+
+  // This method is called with the read buffer of the socket, which is reused for next
+  // reads, so the telnet processor copies its content while assembling the records.
   // Converts buffer arrays to Messages.
 
   @Override
-  public synchronized void listen(TelnetSocket.Source source, byte[] buffer, LocalDateTime dateTime,
-      boolean genuine) {
+  public synchronized void listen(TelnetSocket.Source source, byte[] buffer, int offset,
+      int length, LocalDateTime dateTime, boolean genuine) {
     assert source == this.source : "Incorrect source: " + source + ", expecting: "
         + this.source;
 
-    telnetProcessor.listen(buffer);     // will call one of the processXXX routines
+    long now = System.nanoTime();
+    telnetState.dataReceived(now);
+    if (executor != null && inboundQueue == null) {
+      // the read buffer is reused, so the executor gets its own copy
+      byte[] data = Arrays.copyOfRange(buffer, offset, offset + length);
+      executor.execute(() -> {
+        readNanos = now;
+        telnetProcessor.listen(data, 0, data.length);
+      });
+    } else {
+      readNanos = now;
+      // will call one of the processXXX routines, which queue the records in pipeline mode
+      telnetProcessor.listen(buffer, offset, length);
+    }
 
     telnetState.setLastAccess();
   }
@@ -71,6 +136,30 @@ public class TelnetListener implements BufferListener, TelnetCommandProcessor {
 
   @Override
   public void processRecord(byte[] data, int dataPtr) {
+    if (inboundQueue != null) {
+      inboundQueue.put(InboundRecordQueue.RecordType.RECORD, data, dataPtr);
+    } else {
+      telnetState.recordReceived(readNanos);
+      handleRecord(data, dataPtr);
+    }
+  }
+
+  private void processQueued(InboundRecordQueue.RecordType type, byte[] data, int length,
+      long queuedNanos) {
+    switch (type) {
+      case RECORD:
+        telnetState.recordReceived(queuedNanos);
+        handleRecord(data, length);
+        break;
+      case TELNET_COMMAND:
+        handleTelnetCommand(data, length);
+        break;
+      default:
+        handleTelnetSubcommand(data, length);
+    }
+  }
+
+  private void handleRecord(byte[] data, int dataPtr) {
     int offset;
     int length;
     CommandHeader.DataType dataType;
@@ -139,10 +228,19 @@ public class TelnetListener implements BufferListener, TelnetCommandProcessor {
       default:
         LOG.warn("Data type not written: {}, {}", dataType, charset.toHex(data, offset, length));
     }
+    screen.publishSnapshot();
   }
 
   @Override
   public void processTelnetCommand(byte[] data, int dataPtr) {
+    if (inboundQueue != null) {
+      inboundQueue.put(InboundRecordQueue.RecordType.TELNET_COMMAND, data, dataPtr);
+    } else {
+      handleTelnetCommand(data, dataPtr);
+    }
+  }
+
+  private void handleTelnetCommand(byte[] data, int dataPtr) {
     TelnetCommand telnetCommand = new TelnetCommand(telnetState, data, dataPtr);
     addDataRecord(telnetCommand, SessionRecord.SessionRecordType.TELNET);
     telnetCommand.process(screen);       // updates TelnetState
@@ -150,6 +248,14 @@ public class TelnetListener implements BufferListener, TelnetCommandProcessor {
 
   @Override
   public void processTelnetSubcommand(byte[] data, int dataPtr) {
+    if (inboundQueue != null) {
+      inboundQueue.put(InboundRecordQueue.RecordType.TELNET_SUBCOMMAND, data, dataPtr);
+    } else {
+      handleTelnetSubcommand(data, dataPtr);
+    }
+  }
+
+  private void handleTelnetSubcommand(byte[] data, int dataPtr) {
     TelnetSubcommand subcommand = null;
 
     if (data[2] == TelnetSubcommand.TERMINAL_TYPE) {
@@ -163,15 +269,19 @@ public class TelnetListener implements BufferListener, TelnetCommandProcessor {
     addDataRecord(subcommand, SessionRecord.SessionRecordType.TELNET);
   }
 
+  @Override
+  public void processDiscardedRecord(int length, int maxLength) {
+    RecordTooLargeException ex = new RecordTooLargeException(length, maxLength);
+    LOG.warn(ex.getMessage());
+    if (connectionListener != null) {
+      connectionListener.onException(ex);
+    }
+  }
+
   private void addDataRecord(ReplyBuffer message,
       SessionRecord.SessionRecordType sessionRecordType) {
-    // no gui involved
-    if (sessionRecordType == SessionRecord.SessionRecordType.TELNET) {
-      processMessage(message);
-    } else {
-      //TODO should we run this in a separate thread?
-      processMessage(message);
-    }
+    // records are processed apart from the reading thread when an inbound queue is set
+    processMessage(message);
   }
 
   private void processMessage(ReplyBuffer message) {
@@ -68,10 +68,7 @@ public class TelnetSocket implements Runnable {
           return;
         }
 
-        // take a copy of the input buffer and send it to the TelnetListener
-        byte[] message = new byte[bytesRead];
-        System.arraycopy(buffer, 0, message, 0, message.length);
-        telnetListener.listen(source, message, LocalDateTime.now(), GENUINE);
+        telnetListener.listen(source, buffer, 0, bytesRead, LocalDateTime.now(), GENUINE);
       } catch (IOException e) {
         if (running) {
           LOG.error("{} closing due to IOException", name, e);
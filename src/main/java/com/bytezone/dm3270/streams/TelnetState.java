@@ -1,13 +1,20 @@
 package com.bytezone.dm3270.streams;
 
+import com.bytezone.dm3270.ConnectionPhase;
+import com.bytezone.dm3270.ConnectionPhaseListener;
+import com.bytezone.dm3270.ConnectionPhases;
+import com.bytezone.dm3270.HostResponseListener;
+import com.bytezone.dm3270.ResponseTimes;
 import com.bytezone.dm3270.display.ScreenDimensions;
 import com.bytezone.dm3270.telnet.TN3270ExtendedSubcommand;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class TelnetState implements Runnable {
+public class TelnetState {
 
   public static final byte[] NO_OP = {(byte) 0xFF, (byte) 0xF1};
 
@@ -33,15 +40,30 @@ public class TelnetState implements Runnable {
   private List<TN3270ExtendedSubcommand.Function> functions;
 
   private String terminal = "";
-  private TerminalServer terminalServer;
+  private TerminalTransport terminalServer;
 
   // IO
   private AtomicLong lastAccess;
-  private volatile boolean running = false;
-  private Thread thread;
+  private KeepAliveScheduler keepAliveScheduler = KeepAliveScheduler.getDefault();
+  private KeepAliveScheduler.Registration keepAliveRegistration;
 
   private ScreenDimensions secondary = new ScreenDimensions(24, 80);
 
+  // nanoTime at which each phase of the connection was first reached, or 0 if not reached
+  private final long[] phaseNanos = new long[ConnectionPhase.values().length];
+  private ConnectionPhaseListener connectionPhaseListener;
+
+  // nanoTime of the AID waiting for a response (0 if none), its first data and last record
+  private final Object responseLock = new Object();
+  private long requestNanos;
+  private long firstDataNanos;
+  private long lastRecordNanos;
+  // nanoTime at which the record being processed was read
+  private long receivedRecordNanos;
+  private final HostRequestTracker hostRequests = new HostRequestTracker();
+  private final ResponseTimes responseTimes = new ResponseTimes();
+  private ResponseTimes aggregateResponseTimes;
+
   public TelnetState() {
     setDo3270Extended(true);       // prefer extended
     setDoDeviceType(2);
@@ -52,16 +74,189 @@ public class TelnetState implements Runnable {
     lastAccess = new AtomicLong(System.currentTimeMillis());
   }
 
-  public void setTerminalServer(TerminalServer terminalServer) {
+  public void setKeepAliveScheduler(KeepAliveScheduler keepAliveScheduler) {
+    this.keepAliveScheduler = keepAliveScheduler;
+  }
+
+  // The keep alive scheduler exists simply to keep the connection alive. It issues
+  // a NOOP if nothing else has communicated with the server for a certain period.
+  public void setTerminalServer(TerminalTransport terminalServer) {
     this.terminalServer = terminalServer;
-    thread = new Thread(this);
-    thread.start();
+    keepAliveRegistration = keepAliveScheduler.register(this);
+  }
+
+  public void setConnectionPhaseListener(ConnectionPhaseListener connectionPhaseListener) {
+    this.connectionPhaseListener = connectionPhaseListener;
+  }
+
+  /**
+   * Clears the phases of any previous connection and records the request of a new one.
+   */
+  public void startConnectionPhases() {
+    synchronized (phaseNanos) {
+      Arrays.fill(phaseNanos, 0);
+    }
+    recordConnectionPhase(ConnectionPhase.CONNECT_STARTED);
+  }
+
+  /**
+   * Records that a phase of the current connection has been reached.
+   * <p>
+   * Only the first time each phase is reached is recorded, and notified to the connection phase
+   * listener, so this can be safely invoked on every occurrence of the event.
+   *
+   * @param phase the phase reached.
+   */
+  public void recordConnectionPhase(ConnectionPhase phase) {
+    long now = System.nanoTime();
+    long start;
+    synchronized (phaseNanos) {
+      start = phaseNanos[ConnectionPhase.CONNECT_STARTED.ordinal()];
+      // phases reached without a connection request, like in replays, are ignored
+      if (phaseNanos[phase.ordinal()] != 0
+          || start == 0 && phase != ConnectionPhase.CONNECT_STARTED) {
+        return;
+      }
+      phaseNanos[phase.ordinal()] = now;
+    }
+    LOG.debug("Connection phase {}", phase);
+    if (connectionPhaseListener != null) {
+      connectionPhaseListener.onConnectionPhase(phase, start == 0 ? 0 : now - start);
+    }
+  }
+
+  public ConnectionPhases getConnectionPhases() {
+    synchronized (phaseNanos) {
+      return new ConnectionPhases(phaseNanos.clone());
+    }
+  }
+
+  public ResponseTimes getResponseTimes() {
+    return responseTimes;
+  }
+
+  /**
+   * Sets response times where to record the responses of this session, besides its own.
+   *
+   * @param aggregateResponseTimes response times shared by many sessions, or null to only record
+   * the ones of this session.
+   */
+  public void setAggregateResponseTimes(ResponseTimes aggregateResponseTimes) {
+    this.aggregateResponseTimes = aggregateResponseTimes;
+  }
+
+  /**
+   * Records that an AID is about to be written, which starts the timing of its response.
+   */
+  public void requestSent() {
+    startResponseTiming(System.nanoTime());
+  }
+
+  /**
+   * Records that a TN3270E request is about to be written, which starts the timing of its
+   * response and keeps it in flight until the host completes it.
+   *
+   * @param sequenceNumber sequence number in the header of the request.
+   * @param responseRequested whether the header asks the host for a response.
+   */
+  public void requestSent(int sequenceNumber, boolean responseRequested) {
+    long now = System.nanoTime();
+    startResponseTiming(now);
+    hostRequests.requestSent(sequenceNumber, responseRequested, now);
+  }
+
+  private void startResponseTiming(long now) {
+    synchronized (responseLock) {
+      requestNanos = now;
+      firstDataNanos = 0;
+      lastRecordNanos = 0;
+    }
+  }
+
+  public void setHostResponseListener(HostResponseListener hostResponseListener) {
+    hostRequests.setListener(hostResponseListener);
+  }
+
+  /**
+   * Records that a TN3270E data record is being processed.
+   */
+  public void hostDataReceived() {
+    hostRequests.dataReceived(getReceivedRecordNanos());
+  }
+
+  /**
+   * Records that a TN3270E response is being processed, which completes the request with the
+   * same sequence number, if it is in flight.
+   *
+   * @param sequenceNumber sequence number in the header of the response.
+   * @param positive whether the response is positive or negative.
+   * @param responseCode the code in the response, or -1 if it has none.
+   */
+  public void hostResponseReceived(int sequenceNumber, boolean positive, int responseCode) {
+    hostRequests.responseReceived(sequenceNumber, positive, responseCode,
+        getReceivedRecordNanos());
+  }
+
+  private long getReceivedRecordNanos() {
+    synchronized (responseLock) {
+      return receivedRecordNanos;
+    }
+  }
+
+  void dataReceived(long nanos) {
+    synchronized (responseLock) {
+      if (requestNanos != 0 && firstDataNanos == 0) {
+        firstDataNanos = nanos;
+      }
+    }
+  }
+
+  void recordReceived(long nanos) {
+    synchronized (responseLock) {
+      receivedRecordNanos = nanos;
+      if (requestNanos != 0) {
+        lastRecordNanos = nanos;
+      }
+    }
+  }
+
+  /**
+   * Records that the keyboard has been unlocked, which completes the response of the pending
+   * AID, if any.
+   */
+  public void keyboardUnlocked() {
+    long now = System.nanoTime();
+    long request;
+    long firstData;
+    long lastRecord;
+    long receivedRecord;
+    synchronized (responseLock) {
+      request = requestNanos;
+      firstData = firstDataNanos;
+      lastRecord = lastRecordNanos;
+      receivedRecord = receivedRecordNanos;
+      requestNanos = 0;
+    }
+    hostRequests.keyboardUnlocked(receivedRecord);
+    // the keyboard may be unlocked without a response, for example when disconnecting
+    if (request == 0 || lastRecord == 0) {
+      return;
+    }
+    responseTimes.record(firstData - request, lastRecord - request, now - request);
+    ResponseTimes aggregate = aggregateResponseTimes;
+    if (aggregate != null) {
+      aggregate.record(firstData - request, lastRecord - request, now - request);
+    }
   }
 
   public void setLastAccess() {
     lastAccess.set(System.currentTimeMillis());
   }
 
+  long getLastAccess() {
+    return lastAccess.get();
+  }
+
   public void write(byte[] buffer) {
     if (terminalServer != null) {
       terminalServer.write(buffer);
@@ -70,48 +265,26 @@ public class TelnetState implements Runnable {
     lastAccess.set(System.currentTimeMillis());
   }
 
-  public int nextCommandHeaderSeq() {
-    return commandHeaderCount++;
-  }
+  // used by the keep alive timer, which must not block on the write
+  void writeNoOpLater(Executor executor) {
+    TerminalTransport server = terminalServer;
+    if (server != null) {
+      server.writeLater(NO_OP, executor);
+    }
 
-  // This thread exists simply to keep the connection alive. It sleeps for a
-  // certain period, and when it wakes it issues a NOOP if nothing else has
-  // communicated with the server.
+    lastAccess.set(System.currentTimeMillis());
+  }
 
-  @Override
-  public void run() {
-    long lastTimeIChecked;
-    running = true;
-    long limit = 120;      // seconds to wait
-
-    while (running) {
-      try {
-        lastTimeIChecked = lastAccess.get();
-        long delay = (System.currentTimeMillis() - lastTimeIChecked) / 1000;
-        long sleep = limit - delay;
-
-        if (sleep > 1) {
-          Thread.sleep(sleep * 1000);
-        }
-
-        if (lastTimeIChecked == lastAccess.get()) {
-          write(NO_OP);
-        }
-      } catch (InterruptedException e) {
-        if (running) {
-          LOG.debug("TelnetState was interrupted.");
-        }
-        close();
-        return;
-      }
-    }
+  public int nextCommandHeaderSeq() {
+    return commandHeaderCount++;
   }
 
   public void close() {
-    if (thread != null) {
-      running = false;
-      thread.interrupt();
+    if (keepAliveRegistration != null) {
+      keepAliveRegistration.cancel();
+      keepAliveRegistration = null;
     }
+    hostRequests.clear();
   }
 
   public ScreenDimensions getSecondary() {
@@ -130,11 +303,17 @@ public class TelnetState implements Runnable {
   public void setDoesEOR(boolean state) {
     LOG.debug("Does EOR: {}", state);
     doesEOR = state;
+    if (state) {
+      recordConnectionPhase(ConnectionPhase.END_OF_RECORD);
+    }
   }
 
   public void setDoesBinary(boolean state) {
     LOG.debug("Does Binary: {}", state);
     doesBinary = state;
+    if (state) {
+      recordConnectionPhase(ConnectionPhase.BINARY);
+    }
   }
 
   public void setDoesTerminalType(boolean state) {
@@ -145,11 +324,13 @@ public class TelnetState implements Runnable {
   public void setTerminal(String terminal) {
     LOG.debug("Terminal: {}", terminal);
     this.terminal = terminal;
+    recordConnectionPhase(ConnectionPhase.TERMINAL_TYPE);
   }
 
   public void setDeviceType(String deviceType) {
     LOG.debug("Device Type: {}", deviceType);
     this.deviceType = deviceType;
+    recordConnectionPhase(ConnectionPhase.TN3270E_DEVICE_TYPE);
 
     int modelNo = 0;
     for (int i = 2; i <= 5; i++) {
@@ -181,6 +362,7 @@ public class TelnetState implements Runnable {
   public void setFunctions(List<TN3270ExtendedSubcommand.Function> functions) {
     LOG.debug("Functions: {}", functions);
     this.functions = functions;
+    recordConnectionPhase(ConnectionPhase.TN3270E_FUNCTIONS);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -203,6 +385,12 @@ public class TelnetState implements Runnable {
     return doesTerminalType || does3270Extended;
   }
 
+  public boolean doesResponses() {
+    List<TN3270ExtendedSubcommand.Function> agreed = functions;
+    return does3270Extended && agreed != null
+        && agreed.contains(TN3270ExtendedSubcommand.Function.RESPONSES);
+  }
+
   // ---------------------------------------------------------------------------------//
   // Ask preferences
   // ---------------------------------------------------------------------------------//
@@ -1,15 +1,18 @@
 package com.bytezone.dm3270.streams;
 
 import com.bytezone.dm3270.ConnectionListener;
+import com.bytezone.dm3270.ConnectionPhase;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
 import javax.net.SocketFactory;
+import javax.net.ssl.SSLSocket;
 
-public class TerminalServer implements Runnable {
+public class TerminalServer implements TerminalTransport, Runnable {
 
   private final String serverURL;
   private final int serverPort;
@@ -23,6 +26,7 @@ public class TerminalServer implements Runnable {
 
   private final BufferListener telnetListener;
   private ConnectionListener connectionListener;
+  private TelnetState telnetState;
 
   public TerminalServer(String serverURL, int serverPort, SocketFactory socketFactory,
       BufferListener listener) {
@@ -32,20 +36,33 @@ public class TerminalServer implements Runnable {
     this.telnetListener = listener;
   }
 
+  @Override
   public void setConnectionTimeoutMillis(int connectionTimeoutMillis) {
     this.connectionTimeoutMillis = connectionTimeoutMillis;
   }
 
+  @Override
   public void setConnectionListener(ConnectionListener connectionListener) {
     this.connectionListener = connectionListener;
   }
 
+  @Override
+  public void setTelnetState(TelnetState telnetState) {
+    this.telnetState = telnetState;
+  }
+
   @Override
   public void run() {
     try {
       try {
         serverSocket = socketFactory.createSocket();
         serverSocket.connect(new InetSocketAddress(serverURL, serverPort), connectionTimeoutMillis);
+        recordConnectionPhase(ConnectionPhase.TCP_CONNECTED);
+        if (serverSocket instanceof SSLSocket) {
+          // otherwise the handshake is done on first read or write, and can't be told apart
+          ((SSLSocket) serverSocket).startHandshake();
+          recordConnectionPhase(ConnectionPhase.TLS_HANDSHAKE_COMPLETED);
+        }
         connectionListener.onConnection();
       } catch (IOException ex) {
         handleException(ex);
@@ -66,9 +83,8 @@ public class TerminalServer implements Runnable {
           break;
         }
 
-        byte[] message = new byte[bytesRead];
-        System.arraycopy(buffer, 0, message, 0, bytesRead);
-        telnetListener.listen(TelnetSocket.Source.SERVER, message, LocalDateTime.now(), true);
+        telnetListener.listen(TelnetSocket.Source.SERVER, buffer, 0, bytesRead,
+            LocalDateTime.now(), true);
       }
     } catch (IOException e) {
       if (running) {
@@ -78,6 +94,12 @@ public class TerminalServer implements Runnable {
     }
   }
 
+  private void recordConnectionPhase(ConnectionPhase phase) {
+    if (telnetState != null) {
+      telnetState.recordConnectionPhase(phase);
+    }
+  }
+
   private void handleException(IOException ex) {
     if (connectionListener != null) {
       connectionListener.onException(ex);
@@ -86,6 +108,7 @@ public class TerminalServer implements Runnable {
     }
   }
 
+  @Override
   public synchronized void write(byte[] buffer) {
     // the no-op may come here if socket is closed from remote end and client has not been closed
     if (!running && buffer == TelnetState.NO_OP) {
@@ -100,6 +123,12 @@ public class TerminalServer implements Runnable {
     }
   }
 
+  @Override
+  public void writeLater(byte[] buffer, Executor executor) {
+    executor.execute(() -> write(buffer));
+  }
+
+  @Override
   public void close() {
     try {
       running = false;
@@ -0,0 +1,42 @@
+package com.bytezone.dm3270.streams;
+
+import com.bytezone.dm3270.ConnectionListener;
+import java.util.concurrent.Executor;
+
+/**
+ * Connection used to exchange telnet data with a terminal server.
+ * <p>
+ * Inbound data is passed to the {@link BufferListener} provided to the implementation, while
+ * outbound data is sent through {@link #write(byte[])}.
+ */
+public interface TerminalTransport {
+
+  void setConnectionTimeoutMillis(int connectionTimeoutMillis);
+
+  void setConnectionListener(ConnectionListener connectionListener);
+
+  /**
+   * Sets the telnet state where to record the phases of the connection.
+   * <p>
+   * The transport records when the connection is established (and the TLS handshake completed,
+   * if any) before notifying the connection listener.
+   *
+   * @param telnetState the telnet state of the connection.
+   */
+  void setTelnetState(TelnetState telnetState);
+
+  void write(byte[] buffer);
+
+  /**
+   * Writes data without blocking the calling thread, for callers which must not block, like
+   * timer threads.
+   *
+   * @param buffer the data to write.
+   * @param executor executor to run the write in when the transport can only write blocking the
+   * thread. Non blocking transports may write in their own thread instead.
+   */
+  void writeLater(byte[] buffer, Executor executor);
+
+  void close();
+
+}
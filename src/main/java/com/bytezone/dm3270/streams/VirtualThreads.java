@@ -0,0 +1,67 @@
+package com.bytezone.dm3270.streams;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provides access to virtual threads when running in a JVM which supports them (JDK 21+).
+ * <p>
+ * Since the library targets java 8, virtual threads are created through reflection.
+ * <p>
+ * A blocking read in a virtual thread does not keep an OS thread busy, so the terminal server
+ * threads of idle sessions don't require an OS thread each.
+ */
+public final class VirtualThreads {
+
+  private static final Method OF_VIRTUAL = findOfVirtual();
+
+  private VirtualThreads() {
+  }
+
+  private static Method findOfVirtual() {
+    try {
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      // in JDK 19 and 20 virtual threads are a preview feature and fail when not enabled
+      ofVirtual.invoke(null);
+      return ofVirtual;
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Checks whether the running JVM supports virtual threads.
+   *
+   * @return true if virtual threads are supported, false otherwise.
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Creates a {@link ThreadFactory} which creates virtual threads.
+   *
+   * @param namePrefix prefix of the name of created threads, which is followed by a counter.
+   * @return the thread factory.
+   * @throws UnsupportedOperationException when the running JVM does not support virtual threads.
+   */
+  public static ThreadFactory factory(String namePrefix) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException(
+          "Virtual threads are not supported by this JVM: " + System.getProperty("java.version"));
+    }
+    try {
+      // methods are looked up in the public interface since the builder class is not accessible
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = OF_VIRTUAL.invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, namePrefix, 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+        | InvocationTargetException e) {
+      throw new UnsupportedOperationException("Could not create virtual thread factory", e);
+    }
+  }
+
+}
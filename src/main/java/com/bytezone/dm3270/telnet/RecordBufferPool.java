@@ -0,0 +1,76 @@
+package com.bytezone.dm3270.telnet;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of buffers used by {@link TelnetProcessor} to assemble received records.
+ * <p>
+ * Buffers are only taken from the pool while a record is being received, so idle sessions don't
+ * hold any buffer and many sessions can share a few buffers.
+ * <p>
+ * Only buffers with the pool buffer size are kept. Bigger buffers, used to assemble records which
+ * don't fit in the default size, are discarded when released.
+ */
+public class RecordBufferPool {
+
+  public static final int DEFAULT_BUFFER_SIZE = 4096;
+  public static final int DEFAULT_MAX_POOLED_BUFFERS = 1024;
+
+  private static final RecordBufferPool DEFAULT_POOL =
+      new RecordBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+
+  private final int bufferSize;
+  private final int maxPooledBuffers;
+  private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+  /**
+   * Creates a new pool.
+   *
+   * @param bufferSize size of the buffers provided by the pool.
+   * @param maxPooledBuffers maximum number of released buffers kept for reuse.
+   */
+  public RecordBufferPool(int bufferSize, int maxPooledBuffers) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+    }
+    this.bufferSize = bufferSize;
+    this.maxPooledBuffers = maxPooledBuffers;
+  }
+
+  /**
+   * Gets the pool shared by all sessions which have not been configured with a specific one.
+   *
+   * @return the default pool.
+   */
+  public static RecordBufferPool getDefault() {
+    return DEFAULT_POOL;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  public byte[] acquire() {
+    byte[] buffer = buffers.poll();
+    if (buffer == null) {
+      return new byte[bufferSize];
+    }
+    pooledBuffers.decrementAndGet();
+    return buffer;
+  }
+
+  public void release(byte[] buffer) {
+    if (buffer.length != bufferSize) {
+      return;
+    }
+    if (pooledBuffers.incrementAndGet() > maxPooledBuffers) {
+      pooledBuffers.decrementAndGet();
+      return;
+    }
+    buffers.add(buffer);
+  }
+
+}
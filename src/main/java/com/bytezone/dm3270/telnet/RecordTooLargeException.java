@@ -0,0 +1,18 @@
+package com.bytezone.dm3270.telnet;
+
+import java.io.IOException;
+
+/**
+ * Reported when a record received from the server exceeds the max record size, in which case
+ * the record is discarded.
+ */
+public class RecordTooLargeException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  public RecordTooLargeException(int length, int maxLength) {
+    super(String.format("Discarded record of %d bytes which exceeds max record size of %d bytes",
+        length, maxLength));
+  }
+
+}
@@ -10,4 +10,6 @@ public interface TelnetCommandProcessor {
 
   void processTelnetSubcommand(byte[] buffer, int length);
 
+  void processDiscardedRecord(int length, int maxLength);
+
 }
@@ -5,6 +5,8 @@ public class TelnetProcessor {
   // single-byte commands
   public static final byte EOR = (byte) 0xEF;   // End of record
 
+  public static final int DEFAULT_MAX_RECORD_SIZE = 1024 * 1024;
+
   // command prefix
   private static final byte IAC = (byte) 0xFF;
 
@@ -21,11 +23,15 @@ public class TelnetProcessor {
   private static final byte DONT = (byte) 0xFE;
 
   // state variables
-  private final byte[] data = new byte[16500];      // see also SessionReader
+  private byte[] data;                  // taken from the pool only while receiving a record
   private int dataPtr;
   private boolean pending;              // last byte was IAC, must check next byte
   private boolean weirdData;            // when stream starts with two IACs
   private byte command;                 // one of DO, DONT, WILL, WONT
+  private int discardedBytes;           // bytes of current record exceeding the max size
+
+  private RecordBufferPool bufferPool = RecordBufferPool.getDefault();
+  private int maxRecordSize = DEFAULT_MAX_RECORD_SIZE;
 
   // command processor
   private final TelnetCommandProcessor commandProcessor;
@@ -34,8 +40,48 @@ public class TelnetProcessor {
     this.commandProcessor = commandProcessor;
   }
 
+  public void setBufferPool(RecordBufferPool bufferPool) {
+    this.bufferPool = bufferPool;
+  }
+
+  public void setMaxRecordSize(int maxRecordSize) {
+    if (maxRecordSize <= 0) {
+      throw new IllegalArgumentException("Max record size must be positive: " + maxRecordSize);
+    }
+    this.maxRecordSize = maxRecordSize;
+  }
+
   public void listen(byte... buffer) {
-    for (byte thisByte : buffer) {
+    listen(buffer, 0, buffer.length);
+  }
+
+  public void listen(byte[] buffer, int offset, int length) {
+    if (data == null) {
+      data = bufferPool.acquire();
+    }
+
+    int max = offset + length;
+    int ptr = offset;
+    while (ptr < max) {
+      // copy in bulk all the bytes up to next IAC, the common case with no telnet commands
+      if (!pending && command == 0 && discardedBytes == 0) {
+        int iacPtr = indexOfIac(buffer, ptr, max);
+        int count = iacPtr - ptr;
+        if (count > 0 && ensureCapacity(count)) {
+          System.arraycopy(buffer, ptr, data, dataPtr, count);
+          dataPtr += count;
+          ptr = iacPtr;
+          continue;
+        }
+      }
+
+      byte thisByte = buffer[ptr++];
+
+      if (discardedBytes > 0 || !ensureCapacity(1)) {
+        discard(thisByte);
+        continue;
+      }
+
       data[dataPtr++] = thisByte;           // store every byte we receive
 
       if (thisByte == IAC) {
@@ -106,6 +152,56 @@ public class TelnetProcessor {
         reset();
       }
     }
+
+    // return the buffer to the pool when there is no partially received record
+    if (dataPtr == 0 && !pending && discardedBytes == 0) {
+      bufferPool.release(data);
+      data = null;
+    }
+  }
+
+  private static int indexOfIac(byte[] buffer, int from, int max) {
+    for (int i = from; i < max; i++) {
+      if (buffer[i] == IAC) {
+        return i;
+      }
+    }
+    return max;
+  }
+
+  private boolean ensureCapacity(int count) {
+    int required = dataPtr + count;
+    if (required > maxRecordSize) {
+      return false;
+    }
+    if (required <= data.length) {
+      return true;
+    }
+    byte[] grown = new byte[Math.min(Math.max(data.length * 2, required), maxRecordSize)];
+    System.arraycopy(data, 0, grown, 0, dataPtr);
+    bufferPool.release(data);
+    data = grown;
+    return true;
+  }
+
+  // Skips the rest of a record which exceeds the max record size, until the IAC EOR or IAC SE
+  // which ends it, and then reports it.
+  private void discard(byte thisByte) {
+    if (discardedBytes == 0) {
+      discardedBytes = dataPtr;
+      dataPtr = 0;
+    }
+    discardedBytes++;
+    if (thisByte == IAC) {
+      pending = !pending;
+    } else if (pending) {
+      pending = false;
+      if (thisByte == EOR || thisByte == SE) {
+        commandProcessor.processDiscardedRecord(discardedBytes, maxRecordSize);
+        discardedBytes = 0;
+        reset();
+      }
+    }
   }
 
   private void reset() {
@@ -0,0 +1,114 @@
+package com.bytezone.dm3270;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ConnectionSchedulerTest {
+
+  private static final String HOST = "localhost";
+  private static final int PORT = 23;
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  // each attempt to connect the client gets the next first screen wait
+  private TerminalClient buildClient(CompletableFuture<?>... firstScreens) {
+    TerminalClient ret = mock(TerminalClient.class);
+    Iterator<CompletableFuture<?>> screens = Arrays.asList(firstScreens).iterator();
+    when(ret.waitForKeyboardUnlock(anyLong(), anyLong()))
+        .thenAnswer(invocation -> screens.next());
+    return ret;
+  }
+
+  private static CompletableFuture<Void> failedFuture(Throwable error) {
+    CompletableFuture<Void> ret = new CompletableFuture<>();
+    ret.completeExceptionally(error);
+    return ret;
+  }
+
+  @Test
+  public void shouldStartPendingConnectionWhenInFlightConnectionGetsFirstScreen()
+      throws Exception {
+    ConnectionScheduler scheduler = ConnectionScheduler.builder()
+        .maxInFlight(2)
+        .executor(Runnable::run)
+        .build();
+    CompletableFuture<Void> firstScreen = new CompletableFuture<>();
+    TerminalClient first = buildClient(firstScreen);
+    TerminalClient third = buildClient(new CompletableFuture<Void>());
+    CompletableFuture<ConnectionResult> result = scheduler.connect(first, HOST, PORT);
+    scheduler.connect(buildClient(new CompletableFuture<Void>()), HOST, PORT);
+    scheduler.connect(third, HOST, PORT);
+    assertThat(scheduler.getInFlight()).isEqualTo(2);
+    assertThat(scheduler.getPending()).isEqualTo(1);
+    verify(third, never()).connect(HOST, PORT);
+    firstScreen.complete(null);
+    verify(third).connect(HOST, PORT);
+    assertThat(scheduler.getInFlight()).isEqualTo(2);
+    assertThat(scheduler.getPending()).isZero();
+    assertThat(result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccessful()).isTrue();
+  }
+
+  @Test
+  public void shouldStartConnectionsBeyondBurstAfterTokensAreRefilled() {
+    ConnectionScheduler scheduler = ConnectionScheduler.builder()
+        .rate(10, 2)
+        .executor(Runnable::run)
+        .build();
+    TerminalClient third = buildClient(new CompletableFuture<Void>());
+    long start = System.nanoTime();
+    scheduler.connect(buildClient(new CompletableFuture<Void>()), HOST, PORT);
+    scheduler.connect(buildClient(new CompletableFuture<Void>()), HOST, PORT);
+    scheduler.connect(third, HOST, PORT);
+    assertThat(scheduler.getPending()).isEqualTo(1);
+    verify(third, timeout(TIMEOUT_MILLIS)).connect(HOST, PORT);
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+        .isGreaterThanOrEqualTo(90);
+  }
+
+  @Test
+  public void shouldRetryAfterBackoffWhenFirstAttemptFails() throws Exception {
+    ConnectionScheduler scheduler = ConnectionScheduler.builder()
+        .retries(2, 50, 1000)
+        .executor(Runnable::run)
+        .build();
+    CompletableFuture<Void> firstScreen = new CompletableFuture<>();
+    firstScreen.complete(null);
+    TerminalClient client = buildClient(failedFuture(new IOException("test")), firstScreen);
+    ConnectionResult result = scheduler.connect(client, HOST, PORT)
+        .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(result.getAttempts()).isEqualTo(2);
+    assertThat(TimeUnit.NANOSECONDS.toMillis(result.getTotalNanos()))
+        .isGreaterThanOrEqualTo(40);
+    verify(client).disconnect();
+  }
+
+  @Test
+  public void shouldGetFailedResultWithLastErrorWhenAllAttemptsFail() throws Exception {
+    ConnectionScheduler scheduler = ConnectionScheduler.builder()
+        .retries(1, 10, 1000)
+        .executor(Runnable::run)
+        .build();
+    IOException lastError = new IOException("second");
+    TerminalClient client = buildClient(failedFuture(new IOException("first")),
+        failedFuture(lastError));
+    ConnectionResult result = scheduler.connect(client, HOST, PORT)
+        .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.getAttempts()).isEqualTo(2);
+    assertThat(result.getError()).isSameAs(lastError);
+    assertThat(scheduler.getInFlight()).isZero();
+  }
+
+}
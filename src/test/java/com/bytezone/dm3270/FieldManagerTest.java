@@ -0,0 +1,124 @@
+package com.bytezone.dm3270;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytezone.dm3270.attributes.StartFieldAttribute;
+import com.bytezone.dm3270.display.Field;
+import com.bytezone.dm3270.display.Pen;
+import com.bytezone.dm3270.display.Screen;
+import com.bytezone.dm3270.display.ScreenDelta;
+import com.bytezone.dm3270.display.ScreenDimensions;
+import com.bytezone.dm3270.display.ScreenSnapshot;
+import com.bytezone.dm3270.streams.TelnetState;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FieldManagerTest {
+
+  private static final byte PROTECTED = 0x20;
+  private static final byte UNPROTECTED = 0x00;
+
+  private Screen screen;
+
+  @Before
+  public void setup() throws Exception {
+    Charset.CP1047.load();
+    screen = new Screen(new ScreenDimensions(24, 80), null, new TelnetState(), Charset.CP1047);
+    for (int row = 0; row < 24; row++) {
+      writeField(row * 80, PROTECTED, "LABEL");
+      writeField(row * 80 + 10, UNPROTECTED, "");
+    }
+    screen.buildFields();
+  }
+
+  @Test
+  public void shouldKeepFieldsWhenWriteOnlyChangesFieldContents() throws Exception {
+    List<Field> fields = new ArrayList<>(screen.getFieldManager().getFields());
+    writeText(5 * 80 + 11, "VALUE");
+    screen.buildFields();
+    assertThat(screen.getFieldManager().getFields())
+        .usingElementComparator((f1, f2) -> f1 == f2 ? 0 : 1)
+        .containsExactlyElementsOf(fields);
+    assertThat(screen.getFieldManager().getFieldAt(5 * 80 + 11).get().getText().trim())
+        .isEqualTo("VALUE");
+  }
+
+  @Test
+  public void shouldRebuildFieldsWhenWriteAddsStartField() throws Exception {
+    int fieldsCount = screen.getFieldManager().size();
+    writeField(5 * 80 + 40, PROTECTED, "NEW");
+    screen.buildFields();
+    assertThat(screen.getFieldManager().size()).isEqualTo(fieldsCount + 1);
+  }
+
+  @Test
+  public void shouldReportModifiedRegionAndFieldWhenWriteChangesFieldContents()
+      throws Exception {
+    List<ScreenDelta> deltas = new ArrayList<>();
+    screen.getFieldManager().addScreenDeltaListener(deltas::add);
+    writeText(5 * 80 + 11, "VALUE");
+    screen.buildFields();
+    ScreenDelta delta = deltas.get(0);
+    assertThat(delta.isLayoutChanged()).isFalse();
+    assertThat(delta.getRegions()).extracting(r -> r.getRow() + ":" + r.getFirstColumn() + "-"
+        + r.getLastColumn()).containsExactly("5:11-15");
+    assertThat(delta.getFields())
+        .containsExactly(screen.getFieldManager().getFieldAt(5 * 80 + 11).get());
+  }
+
+  @Test
+  public void shouldReportOnlyWrittenPositionWhenWriteSingleCharAtLastPosition()
+      throws Exception {
+    List<ScreenDelta> deltas = new ArrayList<>();
+    screen.getFieldManager().addScreenDeltaListener(deltas::add);
+    writeText(24 * 80 - 1, "X");
+    screen.buildFields();
+    assertThat(deltas.get(0).getRegions()).extracting(r -> r.getRow() + ":" + r.getFirstColumn()
+        + "-" + r.getLastColumn()).containsExactly("23:79-79");
+  }
+
+  @Test
+  public void shouldChangeGenerationAndTextWhenWriteChangesScreen() throws Exception {
+    long generation = screen.getGeneration();
+    String text = screen.getText();
+    assertThat(screen.getGeneration()).isEqualTo(generation);
+    assertThat(screen.getText()).isSameAs(text);
+    writeText(5 * 80 + 11, "VALUE");
+    assertThat(screen.getGeneration()).isNotEqualTo(generation);
+    assertThat(screen.getRowText(5).replace('\u0000', ' ')).startsWith(" LABEL     VALUE");
+  }
+
+  @Test
+  public void shouldKeepSnapshotUntilPublishedWhenWriteChangesScreen() throws Exception {
+    screen.publishSnapshot();
+    ScreenSnapshot snapshot = screen.getSnapshot();
+    writeText(5 * 80 + 11, "VALUE");
+    screen.buildFields();
+    assertThat(screen.getSnapshot()).isSameAs(snapshot);
+    screen.publishSnapshot();
+    assertThat(screen.getSnapshot().getFields().get(11).getText().trim()).isEqualTo("VALUE");
+    assertThat(snapshot.getFields().get(11).getText().trim()).isEmpty();
+  }
+
+  private void writeField(int position, byte attribute, String text)
+      throws UnsupportedEncodingException {
+    Pen pen = screen.getPen();
+    pen.moveTo(position);
+    pen.startField(new StartFieldAttribute(attribute));
+    pen.moveRight();
+    byte[] bytes = text.getBytes(Charset.CP1047.name());
+    pen.write(bytes, 0, bytes.length);
+  }
+
+  private void writeText(int position, String text)
+      throws UnsupportedEncodingException {
+    Pen pen = screen.getPen();
+    pen.moveTo(position);
+    byte[] bytes = text.getBytes(Charset.CP1047.name());
+    pen.write(bytes, 0, bytes.length);
+  }
+
+}
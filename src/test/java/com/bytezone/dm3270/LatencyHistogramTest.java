@@ -0,0 +1,91 @@
+package com.bytezone.dm3270;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  private static final long MAX_MICROS = (1L << 32) - 1;
+
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  private void recordMicros(long... values) {
+    for (long value : values) {
+      histogram.recordNanos(TimeUnit.MICROSECONDS.toNanos(value));
+    }
+  }
+
+  @Test
+  public void shouldGetZeroValuesWhenNoValueIsRecorded() {
+    assertThat(histogram.getCount()).isZero();
+    assertThat(histogram.getMinNanos()).isZero();
+    assertThat(histogram.getMaxNanos()).isZero();
+    assertThat(histogram.getMeanNanos()).isZero();
+    assertThat(histogram.getPercentileNanos(99)).isZero();
+  }
+
+  @Test
+  public void shouldGetExactPercentilesWhenValuesAreBelowSubBucketCount() {
+    recordMicros(10, 20, 30, 40);
+    assertThat(histogram.getPercentileNanos(0)).isEqualTo(10_000);
+    assertThat(histogram.getPercentileNanos(50)).isEqualTo(20_000);
+    assertThat(histogram.getPercentileNanos(75)).isEqualTo(30_000);
+    assertThat(histogram.getPercentileNanos(100)).isEqualTo(40_000);
+  }
+
+  @Test
+  public void shouldGetHighestValueOfBucketWhenPercentileFallsInWideBucket() {
+    recordMicros(100, 1000);
+    assertThat(histogram.getPercentileNanos(50)).isEqualTo(101_000);
+  }
+
+  @Test
+  public void shouldGetMaxValueWhenPercentileFallsInBucketOfMaxValue() {
+    recordMicros(100);
+    assertThat(histogram.getPercentileNanos(50)).isEqualTo(100_000);
+  }
+
+  @Test
+  public void shouldGetPercentileWithinRelativeErrorWhenValuesSpanWholeRange() {
+    for (long micros = 1; micros < MAX_MICROS; micros = micros * 3 + 1) {
+      histogram.reset();
+      recordMicros(micros, MAX_MICROS);
+      assertThat(histogram.getPercentileNanos(50))
+          .isBetween(micros * 1000, (long) (micros * 1000 * 1.032));
+    }
+  }
+
+  @Test
+  public void shouldClampValuesWhenOutOfTrackableRange() {
+    histogram.recordNanos(-5);
+    histogram.recordNanos(Long.MAX_VALUE);
+    assertThat(histogram.getMinNanos()).isZero();
+    assertThat(histogram.getMaxNanos()).isEqualTo(MAX_MICROS * 1000);
+    assertThat(histogram.getPercentileNanos(100)).isEqualTo(MAX_MICROS * 1000);
+  }
+
+  @Test
+  public void shouldGetMinMaxAndMeanWhenValuesAreRecorded() {
+    recordMicros(10, 20, 60);
+    assertThat(histogram.getCount()).isEqualTo(3);
+    assertThat(histogram.getMinNanos()).isEqualTo(10_000);
+    assertThat(histogram.getMaxNanos()).isEqualTo(60_000);
+    assertThat(histogram.getMeanNanos()).isEqualTo(30_000);
+  }
+
+  @Test
+  public void shouldGetZeroValuesWhenReset() {
+    recordMicros(10, 20);
+    histogram.reset();
+    assertThat(histogram.getCount()).isZero();
+    assertThat(histogram.getPercentileNanos(50)).isZero();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionWhenPercentileIsAboveHundred() {
+    histogram.getPercentileNanos(101);
+  }
+
+}
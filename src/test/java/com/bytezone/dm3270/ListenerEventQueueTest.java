@@ -0,0 +1,163 @@
+package com.bytezone.dm3270;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bytezone.dm3270.ListenerDispatcher.OverflowPolicy;
+import com.bytezone.dm3270.display.ScreenWatcher;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class ListenerEventQueueTest {
+
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  private final ManualExecutor executor = new ManualExecutor();
+  private final AtomicLong discardedEvents = new AtomicLong();
+  private final List<String> events = new CopyOnWriteArrayList<>();
+
+  private ListenerEventQueue buildQueue(int maxQueuedEvents, OverflowPolicy overflowPolicy) {
+    ListenerEventQueue ret = new ListenerEventQueue(executor, maxQueuedEvents, overflowPolicy,
+        discardedEvents);
+    ret.getCursorListeners().add((oldLocation, newLocation, field) ->
+        events.add("cursor " + oldLocation + "-" + newLocation));
+    ret.getScreenListeners().add(screenWatcher -> events.add("screen"));
+    ret.getConnectionListeners().add(new ConnectionListener() {
+
+      @Override
+      public void onConnection() {
+        events.add("connection");
+      }
+
+      @Override
+      public void onException(Exception ex) {
+        events.add("exception " + ex.getMessage());
+      }
+
+      @Override
+      public void onConnectionClosed() {
+        events.add("closed");
+      }
+
+    });
+    return ret;
+  }
+
+  @Test
+  public void shouldNotifyLastCursorMoveWhenConsecutiveCursorMovesAreQueued() {
+    ListenerEventQueue queue = buildQueue(10, OverflowPolicy.BLOCK);
+    queue.cursorMoved(0, 1, null);
+    queue.cursorMoved(1, 5, null);
+    queue.cursorMoved(5, 7, null);
+    executor.runAll();
+    assertThat(events).containsExactly("cursor 0-7");
+  }
+
+  @Test
+  public void shouldNotifyOneScreenChangeWhenConsecutiveScreenChangesAreQueued() {
+    ListenerEventQueue queue = buildQueue(10, OverflowPolicy.BLOCK);
+    queue.screenChanged((ScreenWatcher) null);
+    queue.screenChanged((ScreenWatcher) null);
+    executor.runAll();
+    assertThat(events).containsExactly("screen");
+  }
+
+  @Test
+  public void shouldNotCoalesceEventsWhenOtherEventIsQueuedBetweenThem() {
+    ListenerEventQueue queue = buildQueue(10, OverflowPolicy.BLOCK);
+    queue.cursorMoved(0, 1, null);
+    queue.onConnection();
+    queue.cursorMoved(1, 5, null);
+    executor.runAll();
+    assertThat(events).containsExactly("cursor 0-1", "connection", "cursor 1-5");
+  }
+
+  @Test
+  public void shouldDiscardEventsWhenQueueIsFullWithDiscardPolicy() {
+    ListenerEventQueue queue = buildQueue(2, OverflowPolicy.DISCARD);
+    queue.onConnection();
+    queue.onException(new Exception("test"));
+    queue.onConnectionClosed();
+    executor.runAll();
+    assertThat(events).containsExactly("connection", "exception test");
+    assertThat(discardedEvents.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldBlockNotifyingThreadUntilThereIsRoomWhenQueueIsFullWithBlockPolicy()
+      throws Exception {
+    ListenerEventQueue queue = buildQueue(1, OverflowPolicy.BLOCK);
+    queue.onConnection();
+    Thread notifier = new Thread(queue::onConnectionClosed);
+    notifier.start();
+    awaitBlocked(notifier);
+    executor.runAll();
+    notifier.join(TIMEOUT_MILLIS);
+    executor.runAll();
+    assertThat(events).containsExactly("connection", "closed");
+    assertThat(discardedEvents.get()).isZero();
+  }
+
+  private void awaitBlocked(Thread thread) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+    while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+  }
+
+  @Test
+  public void shouldNotBlockListenerWhenItNotifiesEventsWithFullQueue() {
+    ListenerEventQueue queue = buildQueue(1, OverflowPolicy.BLOCK);
+    queue.getConnectionListeners().add(new ConnectionListener() {
+
+      @Override
+      public void onConnection() {
+        queue.onException(new Exception("first"));
+        queue.onException(new Exception("second"));
+      }
+
+      @Override
+      public void onException(Exception ex) {
+      }
+
+      @Override
+      public void onConnectionClosed() {
+      }
+
+    });
+    queue.onConnection();
+    executor.runAll();
+    assertThat(events).containsExactly("connection", "exception first", "exception second");
+  }
+
+  @Test
+  public void shouldNotifyRemainingEventsWhenListenerThrowsError() {
+    ListenerEventQueue queue = buildQueue(10, OverflowPolicy.BLOCK);
+    queue.getConnectionListeners().add(new ConnectionListener() {
+
+      @Override
+      public void onConnection() {
+        throw new Error("test");
+      }
+
+      @Override
+      public void onException(Exception ex) {
+      }
+
+      @Override
+      public void onConnectionClosed() {
+      }
+
+    });
+    queue.onConnection();
+    queue.onConnectionClosed();
+    assertThatThrownBy(executor::runNext).isInstanceOf(Error.class);
+    executor.runAll();
+    assertThat(events).endsWith("closed");
+  }
+
+}
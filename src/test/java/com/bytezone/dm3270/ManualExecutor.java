@@ -0,0 +1,37 @@
+package com.bytezone.dm3270;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor which just queues its tasks, so tests can run them when and in the thread they choose.
+ */
+public class ManualExecutor implements Executor {
+
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  @Override
+  public synchronized void execute(Runnable task) {
+    tasks.add(task);
+  }
+
+  public void runNext() {
+    Runnable task;
+    synchronized (this) {
+      task = tasks.remove(0);
+    }
+    task.run();
+  }
+
+  public void runAll() {
+    while (hasTasks()) {
+      runNext();
+    }
+  }
+
+  public synchronized boolean hasTasks() {
+    return !tasks.isEmpty();
+  }
+
+}
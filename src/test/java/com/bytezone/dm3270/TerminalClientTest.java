@@ -1,6 +1,7 @@
 package com.bytezone.dm3270;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.never;
@@ -14,6 +15,8 @@ import com.bytezone.dm3270.display.Screen;
 import com.bytezone.dm3270.display.ScreenContext;
 import com.bytezone.dm3270.display.ScreenDimensions;
 import com.bytezone.dm3270.display.ScreenPosition;
+import com.bytezone.dm3270.streams.SelectorEventLoopGroup;
+import com.bytezone.dm3270.telnet.RecordTooLargeException;
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
 import java.awt.Point;
@@ -24,13 +27,21 @@ import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
@@ -103,12 +114,15 @@ public class TerminalClientTest {
 
     private final CountDownLatch closeLatch = new CountDownLatch(1);
 
+    private volatile Exception exception;
+
     @Override
     public void onConnection() {
     }
 
     @Override
     public void onException(Exception ex) {
+      exception = ex;
       exceptionLatch.countDown();
     }
 
@@ -127,6 +141,15 @@ public class TerminalClientTest {
 
   }
 
+  private void connectLoginFlowWith(Consumer<TerminalClient> configurer) throws Exception {
+    cleanShutdown();
+    startServiceWithFlow("/login.yml");
+    client = new TerminalClient(TERMINAL_MODEL_TYPE_TWO, SCREEN_DIMENSIONS);
+    configurer.accept(client);
+    client.addConnectionListener(exceptionWaiter);
+    connectClient();
+  }
+
   private void connectClient() {
     client.connect(SERVICE_HOST, service.getPort());
     client.addScreenChangeListener(
@@ -247,6 +270,174 @@ public class TerminalClientTest {
     return sslContext;
   }
 
+  @Test
+  public void shouldGetUserMenuScreenWhenSendUserFieldWithSelectorEventLoopGroup()
+      throws Exception {
+    try (SelectorEventLoopGroup eventLoopGroup = new SelectorEventLoopGroup(1)) {
+      connectLoginFlowWith(c -> c.setSelectorEventLoopGroup(eventLoopGroup));
+      awaitKeyboardUnlock();
+      sendUserFieldByCoord();
+      awaitKeyboardUnlock();
+      assertThat(getScreenText())
+          .isEqualTo(getUserMenuScreen());
+    }
+  }
+
+  @Test
+  public void shouldGetConnectedSessionStatsWhenConnectAllWithSessionManager() throws Exception {
+    try (TerminalSessionManager manager = TerminalSessionManager.builder()
+        .selectorThreads(1)
+        .connectionTimeoutMillis(5000)
+        .build()) {
+      cleanShutdown();
+      startServiceWithFlow("/login.yml");
+      client = manager.newClient(TERMINAL_MODEL_TYPE_TWO, SCREEN_DIMENSIONS, Charset.CP1047);
+      manager.connectAll(SERVICE_HOST, service.getPort(), 0)
+          .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      manager.drain(TIMEOUT_MILLIS).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      awaitKeyboardUnlock();
+      assertThat(getScreenText())
+          .isEqualTo(getWelcomeScreen());
+      assertThat(manager.getStats().getSessions(SessionStats.State.CONNECTED)).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void shouldCompleteConnectAllWhenManagerIsClosedDuringRampUp() throws Exception {
+    cleanShutdown();
+    startServiceWithFlow("/login.yml");
+    CompletableFuture<Void> connections;
+    try (TerminalSessionManager manager = TerminalSessionManager.builder()
+        .selectorThreads(1)
+        .connectionTimeoutMillis(5000)
+        .build()) {
+      client = manager.newClient(TERMINAL_MODEL_TYPE_TWO, SCREEN_DIMENSIONS, Charset.CP1047);
+      TerminalClient delayed = manager.newClient(TERMINAL_MODEL_TYPE_TWO, SCREEN_DIMENSIONS,
+          Charset.CP1047);
+      connections = manager.connectAll(SERVICE_HOST, service.getPort(), TIMEOUT_MILLIS * 10);
+      awaitKeyboardUnlock();
+      assertThat(delayed.getConnectionPhases().getElapsedNanos(ConnectionPhase.CONNECT_STARTED))
+          .isNegative();
+    }
+    connections.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void shouldGetSuccessfulResultWithFirstScreenTimeWhenConnectWithScheduler()
+      throws Exception {
+    cleanShutdown();
+    startServiceWithFlow("/login.yml");
+    client = new TerminalClient(TERMINAL_MODEL_TYPE_TWO, SCREEN_DIMENSIONS);
+    ConnectionScheduler connectionScheduler = ConnectionScheduler.builder()
+        .rate(10, 1)
+        .maxInFlight(1)
+        .jitterMillis(50)
+        .firstScreenTimeoutMillis(TIMEOUT_MILLIS)
+        .build();
+    ConnectionResult result = connectionScheduler.connect(client, SERVICE_HOST, service.getPort())
+        .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(result.getFirstScreenNanos()).isGreaterThanOrEqualTo(result.getConnectNanos());
+  }
+
+  @Test
+  public void shouldGetConnectionPhasesInOrderWhenConnect() throws Exception {
+    awaitKeyboardUnlock();
+    ConnectionPhases phases = client.getConnectionPhases();
+    long tcpConnected = phases.getElapsedNanos(ConnectionPhase.TCP_CONNECTED);
+    assertThat(tcpConnected).isGreaterThanOrEqualTo(0);
+    assertThat(phases.getNegotiationCompletedNanos()).isGreaterThanOrEqualTo(tcpConnected);
+    assertThat(phases.getElapsedNanos(ConnectionPhase.FIRST_SCREEN))
+        .isGreaterThanOrEqualTo(phases.getNegotiationCompletedNanos());
+  }
+
+  @Test
+  public void shouldUseProvidedThreadFactoryWhenConnect() throws Exception {
+    AtomicInteger createdThreads = new AtomicInteger();
+    ThreadFactory threadFactory = r -> {
+      createdThreads.incrementAndGet();
+      return new Thread(r);
+    };
+    connectLoginFlowWith(c -> c.setThreadFactory(threadFactory));
+    awaitKeyboardUnlock();
+    sendUserFieldByCoord();
+    awaitKeyboardUnlock();
+    assertThat(getScreenText())
+        .isEqualTo(getUserMenuScreen());
+    assertThat(createdThreads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldGetUserMenuScreenWhenSendUserFieldAsyncWithSessionExecutor()
+      throws Exception {
+    ExecutorService sessionExecutor = Executors.newFixedThreadPool(2);
+    try {
+      connectLoginFlowWith(c -> c.setSessionExecutor(sessionExecutor));
+      awaitKeyboardUnlock();
+      client.setFieldTextByCoordAsync(1, 27, USERNAME)
+          .thenCompose(v -> client.sendAIDAsync(AIDCommand.AID_ENTER, "ENTER"))
+          .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      awaitKeyboardUnlock();
+      assertThat(getScreenText())
+          .isEqualTo(getUserMenuScreen());
+    } finally {
+      sessionExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldGetUserMenuScreenWhenSendUserFieldWithInboundQueue() throws Exception {
+    connectLoginFlowWith(c -> c.setInboundQueueSize(16));
+    awaitKeyboardUnlock();
+    sendUserFieldByCoord();
+    awaitKeyboardUnlock();
+    assertThat(getScreenText())
+        .isEqualTo(getUserMenuScreen());
+    assertThat(client.getInboundPipelineStats().get().getProcessedRecords()).isPositive();
+  }
+
+  @Test
+  public void shouldNotifyScreenChangesInDispatcherExecutorWhenListenerDispatcherIsSet()
+      throws Exception {
+    ExecutorService listenerExecutor = Executors.newSingleThreadExecutor(
+        r -> new Thread(r, "listeners"));
+    try {
+      CountDownLatch screenChanged = new CountDownLatch(1);
+      List<String> listenerThreads = new CopyOnWriteArrayList<>();
+      connectLoginFlowWith(c -> {
+        c.setListenerDispatcher(new ListenerDispatcher(listenerExecutor));
+        c.addScreenChangeListener(screenWatcher -> {
+          listenerThreads.add(Thread.currentThread().getName());
+          screenChanged.countDown();
+        });
+      });
+      client.waitForKeyboardUnlock(0, TIMEOUT_MILLIS).get();
+      assertThat(screenChanged.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+      assertThat(listenerThreads).containsOnly("listeners");
+    } finally {
+      listenerExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldCompleteWaitsWhenUserMenuScreenIsShownAfterSendUserField() throws Exception {
+    client.waitForKeyboardUnlock(1000, TIMEOUT_MILLIS).get();
+    sendUserFieldByCoord();
+    client.waitForScreenText(6, 20, "TESTUSR", 0, TIMEOUT_MILLIS).get();
+    client.waitForScreenPattern(Pattern.compile("Userid\\W+TESTUSR"), 100, TIMEOUT_MILLIS)
+        .get();
+    client.waitForKeyboardUnlock(1000, TIMEOUT_MILLIS).get();
+    assertThat(getScreenText())
+        .isEqualTo(getUserMenuScreen());
+  }
+
+  @Test
+  public void shouldFailWaitWithTimeoutWhenTextIsNotShown() throws Exception {
+    awaitKeyboardUnlock();
+    assertThatThrownBy(() -> client.waitForScreenText("MISSING", 0, 100).get())
+        .hasCauseInstanceOf(TimeoutException.class);
+  }
+
   @Test
   public void shouldGetWelcomeScreenWhenConnectWithScreenWithExtendFieldWithoutFieldAttribute()
       throws Exception {
@@ -268,6 +459,19 @@ public class TerminalClientTest {
         .isEqualTo(getUserMenuScreen());
   }
 
+  @Test
+  public void shouldRecordResponseTimeSplitsWhenSendUserFieldByCoord() throws Exception {
+    awaitKeyboardUnlock();
+    sendUserFieldByCoord();
+    awaitKeyboardUnlock();
+    ResponseTimes responseTimes = client.getResponseTimes();
+    assertThat(responseTimes.getResponseTime().getCount()).isEqualTo(1);
+    assertThat(responseTimes.getResponseTime().getMaxNanos())
+        .isGreaterThanOrEqualTo(responseTimes.getLastRecordTime().getMaxNanos());
+    assertThat(responseTimes.getLastRecordTime().getMaxNanos())
+        .isGreaterThanOrEqualTo(responseTimes.getFirstByteTime().getMaxNanos());
+  }
+
   private void sendUserFieldByCoord() {
     sendFieldByCoord(1, 27, USERNAME);
   }
@@ -294,6 +498,66 @@ public class TerminalClientTest {
     awaitSuccessScreen();
   }
 
+  @Test
+  public void shouldGetLoginSuccessScreenWhenSendPasswordFieldInInputTransaction()
+      throws Exception {
+    awaitKeyboardUnlock();
+    sendUserFieldByCoord();
+    awaitKeyboardUnlock();
+    client.newInputTransaction()
+        .setFieldTextByLabel("Password", PASSWORD)
+        .send(AIDCommand.AID_ENTER, "ENTER");
+    awaitSuccessScreen();
+  }
+
+  @Test
+  public void shouldGetLoginSuccessScreenWhenSendFieldByLabelWithKeptPositionOfOtherLabel()
+      throws Exception {
+    awaitKeyboardUnlock();
+    sendUserFieldByCoord();
+    awaitKeyboardUnlock();
+    InputTransaction.FieldInput input = InputTransaction.FieldInput.byLabel("Password", PASSWORD,
+        true);
+    // as if learned in a screen where the password field was where the procedure field is now
+    input.labelPosition = client.getFields().stream()
+        .filter(f -> f.isUnprotected() && f.getText().startsWith("PROC000"))
+        .findFirst()
+        .get()
+        .getFirstLocation();
+    client.sendInputTransaction(Collections.singletonList(input), AIDCommand.AID_ENTER, "ENTER");
+    awaitSuccessScreen();
+  }
+
+  @Test
+  public void shouldNotSetAnyTextWhenSendInputTransactionWithInvalidInputOnUnformattedScreen()
+      throws Exception {
+    setupSscpLuLoginFlow();
+    awaitKeyboardUnlock();
+    String screenText = getScreenText();
+    assertThatThrownBy(() -> client.newInputTransaction()
+        .setFieldTextByCoord(11, 25, APP_NAME)
+        .setFieldTextByIndex(0, USERNAME)
+        .send(AIDCommand.AID_ENTER, "ENTER"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(getScreenText()).isEqualTo(screenText);
+  }
+
+  @Test
+  public void shouldGetSuccessfulResultWithAllStepsWhenRunLoginScenario() throws Exception {
+    Scenario scenario = Scenario.builder("login")
+        .waitForKeyboardUnlock(1000, TIMEOUT_MILLIS)
+        .setFieldTextByCoord(1, 27, USERNAME)
+        .sendAID(AIDCommand.AID_ENTER, "ENTER")
+        .waitForKeyboardUnlock(1000, TIMEOUT_MILLIS)
+        .setFieldTextByLabel("Password", PASSWORD)
+        .sendAID(AIDCommand.AID_ENTER, "ENTER")
+        .waitForScreenText("READY", 0, TIMEOUT_MILLIS)
+        .build();
+    ScenarioResult result = scenario.run(client).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(result.getSteps()).hasSize(scenario.getStepNames().size());
+  }
+
   private void sendFieldByLabel(String label, String text) {
     client.setFieldTextByLabel(label, text);
     sendEnter();
@@ -390,6 +654,13 @@ public class TerminalClientTest {
     client.setFieldTextByCoord(0, 1, "test");
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionWhenGetScreenRowTextWithInvalidRow()
+      throws Exception {
+    awaitKeyboardUnlock();
+    client.getScreenRowText(client.getScreenDimensions().rows + 1);
+  }
+
   @Test
   public void shouldSendCloseToExceptionHandlerWhenServerDown() throws Exception {
     awaitKeyboardUnlock();
@@ -405,6 +676,14 @@ public class TerminalClientTest {
     exceptionWaiter.awaitException();
   }
 
+  @Test
+  public void shouldSendRecordTooLargeExceptionWhenRecordExceedsMaxRecordSize()
+      throws Exception {
+    connectLoginFlowWith(c -> c.setMaxRecordSize(10));
+    exceptionWaiter.awaitException();
+    assertThat(exceptionWaiter.exception).isInstanceOf(RecordTooLargeException.class);
+  }
+
   @Test
   public void shouldGetLoginSuccessScreenWhenLoginWithSscpLuData() throws Exception {
     setupSscpLuLoginFlow();
@@ -418,6 +697,44 @@ public class TerminalClientTest {
         .isEqualTo(getSccpLuLoginSuccessScreen());
   }
 
+  @Test
+  public void shouldNotifyHostResponseWithDataOutcomeWhenSendFieldWithSscpLuData()
+      throws Exception {
+    setupSscpLuLoginFlow();
+    List<HostResponse> responses = new CopyOnWriteArrayList<>();
+    client.addHostResponseListener(responses::add);
+    awaitKeyboardUnlock();
+    sendFieldByCoord(11, 25, APP_NAME);
+    awaitKeyboardUnlock();
+    assertThat(responses).hasSize(1);
+    HostResponse response = responses.get(0);
+    assertThat(response.getOutcome()).isEqualTo(HostResponse.Outcome.DATA);
+    assertThat(response.getRecords()).isGreaterThan(0);
+    assertThat(response.getLatencyNanos()).isGreaterThanOrEqualTo(response.getFirstRecordNanos());
+  }
+
+  @Test
+  public void shouldNotifyHostResponsesBySequenceNumberWhenLoginWithResponsesRequested()
+      throws Exception {
+    cleanShutdown();
+    startServiceWithFlow("/sscplu-login-responses.yml");
+    client = new TerminalClient(TERMINAL_MODEL_TYPE_TWO, SCREEN_DIMENSIONS);
+    client.setUsesExtended3270(true);
+    client.setHostResponsesRequested(true);
+    List<HostResponse> responses = new CopyOnWriteArrayList<>();
+    client.addHostResponseListener(responses::add);
+    connectClient();
+    awaitKeyboardUnlock();
+    sendFieldByCoord(11, 25, APP_NAME);
+    awaitKeyboardUnlock();
+    client.setFieldTextByCoord(12, 21, USERNAME);
+    client.setFieldTextByCoord(13, 21, PASSWORD);
+    sendEnterAndWaitKeyboardUnlock();
+    assertThat(responses)
+        .extracting(r -> r.getSequenceNumber() + ":" + r.getOutcome() + ":" + r.getResponseCode())
+        .containsExactly("0:POSITIVE:0", "1:NEGATIVE:1");
+  }
+
   private void setupSscpLuLoginFlow() throws Exception {
     setupExtendedFlow(TERMINAL_MODEL_TYPE_TWO, SCREEN_DIMENSIONS, "/sscplu-login.yml");
   }
@@ -0,0 +1,82 @@
+package com.bytezone.dm3270.benchmark;
+
+import com.bytezone.dm3270.Charset;
+import com.bytezone.dm3270.attributes.StartFieldAttribute;
+import com.bytezone.dm3270.display.Field;
+import com.bytezone.dm3270.display.FieldManager;
+import com.bytezone.dm3270.display.Pen;
+import com.bytezone.dm3270.display.Screen;
+import com.bytezone.dm3270.display.ScreenDimensions;
+import com.bytezone.dm3270.streams.TelnetState;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares looking up the field at a screen position through the position index of
+ * {@link FieldManager} with filtering all the fields in a parallel stream, which is how it was
+ * previously done.
+ * <p>
+ * Usage: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=FieldLookupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldLookupBenchmark {
+
+  private static final int ROWS = 24;
+  private static final int COLUMNS = 80;
+  private static final int FIELDS_PER_ROW = 4;
+
+  private FieldManager fieldManager;
+  private int position;
+
+  @Setup
+  public void setup() {
+    Charset.CP1047.load();
+    Screen screen = new Screen(new ScreenDimensions(ROWS, COLUMNS), null, new TelnetState(),
+        Charset.CP1047);
+    Pen pen = screen.getPen();
+    int fieldLength = COLUMNS / FIELDS_PER_ROW;
+    for (int i = 0; i < ROWS * FIELDS_PER_ROW; i++) {
+      pen.moveTo(i * fieldLength);
+      // alternate protected and unprotected fields, as in a typical form
+      pen.startField(new StartFieldAttribute(i % 2 == 0 ? (byte) 0x20 : (byte) 0x00));
+      pen.moveRight();
+      pen.write((byte) 0xC1);
+    }
+    screen.buildFields();
+    fieldManager = screen.getFieldManager();
+  }
+
+  @Benchmark
+  public Optional<Field> indexedLookup() {
+    return fieldManager.getFieldAt(nextPosition());
+  }
+
+  @Benchmark
+  public Optional<Field> parallelStreamLookup() {
+    int requestedPosition = nextPosition();
+    return fieldManager.getFields().parallelStream().filter(f -> f.contains(requestedPosition))
+        .findAny();
+  }
+
+  private int nextPosition() {
+    position = (position + 37) % (ROWS * COLUMNS);
+    return position;
+  }
+
+}
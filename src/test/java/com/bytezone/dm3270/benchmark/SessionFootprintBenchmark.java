@@ -0,0 +1,166 @@
+package com.bytezone.dm3270.benchmark;
+
+import com.bytezone.dm3270.TerminalClient;
+import com.bytezone.dm3270.display.ScreenDimensions;
+import com.bytezone.dm3270.streams.SelectorEventLoopGroup;
+import com.bytezone.dm3270.streams.VirtualThreads;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connects a number of sessions to an idle local server and reports the platform threads and heap
+ * used by them, to compare the footprint of the different connection modes.
+ * <p>
+ * Usage: {@code SessionFootprintBenchmark [platform|virtual|selector] [sessions]}, for example
+ * with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.bytezone.dm3270.benchmark.SessionFootprintBenchmark
+ * -Dexec.args="virtual 10000"}. Each session uses two file descriptors (client and server side),
+ * so the open files limit (ulimit -n) has to be raised accordingly for big numbers of sessions.
+ * Virtual mode requires running in a JVM with virtual threads support (JDK 21+).
+ */
+public class SessionFootprintBenchmark {
+
+  private static final int DEFAULT_SESSIONS = 10000;
+  private static final long SETTLE_MILLIS = 2000;
+
+  public static void main(String[] args) throws Exception {
+    String mode = args.length > 0 ? args[0] : "platform";
+    int sessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SESSIONS;
+
+    try (IdleServer server = new IdleServer()) {
+      Thread acceptor = new Thread(server, "idle-server");
+      acceptor.setDaemon(true);
+      acceptor.start();
+
+      Footprint baseline = Footprint.measure();
+      SelectorEventLoopGroup eventLoopGroup = "selector".equals(mode)
+          ? new SelectorEventLoopGroup(Runtime.getRuntime().availableProcessors())
+          : null;
+      List<TerminalClient> clients = new ArrayList<>(sessions);
+      long start = System.nanoTime();
+      for (int i = 0; i < sessions; i++) {
+        TerminalClient client = new TerminalClient(2, new ScreenDimensions(24, 80));
+        configureMode(client, mode, eventLoopGroup);
+        client.connect("localhost", server.getPort());
+        clients.add(client);
+      }
+      server.awaitConnections(sessions);
+      long connectMillis = (System.nanoTime() - start) / 1000000;
+      Thread.sleep(SETTLE_MILLIS);
+      Footprint connected = Footprint.measure();
+
+      System.out.printf("mode=%s sessions=%d connectMillis=%d%n", mode, sessions, connectMillis);
+      System.out.printf("platform threads: baseline=%d connected=%d (%.3f per session)%n",
+          baseline.threads, connected.threads,
+          (double) (connected.threads - baseline.threads) / sessions);
+      System.out.printf("heap used: baseline=%dKB connected=%dKB (%.1fKB per session)%n",
+          baseline.heapBytes / 1024, connected.heapBytes / 1024,
+          (double) (connected.heapBytes - baseline.heapBytes) / 1024 / sessions);
+
+      for (TerminalClient client : clients) {
+        client.disconnect();
+      }
+      if (eventLoopGroup != null) {
+        eventLoopGroup.close();
+      }
+    }
+  }
+
+  private static void configureMode(TerminalClient client, String mode,
+      SelectorEventLoopGroup eventLoopGroup) {
+    switch (mode) {
+      case "platform":
+        break;
+      case "virtual":
+        client.setThreadFactory(VirtualThreads.factory("dm3270-terminal-server-"));
+        break;
+      case "selector":
+        client.setSelectorEventLoopGroup(eventLoopGroup);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown mode " + mode
+            + ", use one of platform, virtual or selector");
+    }
+  }
+
+  private static final class Footprint {
+
+    private final int threads;
+    private final long heapBytes;
+
+    private Footprint(int threads, long heapBytes) {
+      this.threads = threads;
+      this.heapBytes = heapBytes;
+    }
+
+    private static Footprint measure() {
+      ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+      MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+      for (int i = 0; i < 3; i++) {
+        System.gc();
+      }
+      // virtual threads are not included in the thread count, only platform ones
+      return new Footprint(threadBean.getThreadCount(),
+          memoryBean.getHeapMemoryUsage().getUsed());
+    }
+
+  }
+
+  // accepts connections and keeps them open without ever sending anything
+  private static final class IdleServer implements Runnable, AutoCloseable {
+
+    private final ServerSocketChannel serverChannel;
+    private final List<SocketChannel> connections = new ArrayList<>();
+
+    private IdleServer() throws IOException {
+      serverChannel = ServerSocketChannel.open();
+      serverChannel.bind(new InetSocketAddress("localhost", 0), 1024);
+    }
+
+    private int getPort() throws IOException {
+      return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          SocketChannel channel = serverChannel.accept();
+          synchronized (connections) {
+            connections.add(channel);
+            connections.notifyAll();
+          }
+        }
+      } catch (IOException e) {
+        // server closed
+      }
+    }
+
+    private void awaitConnections(int count) throws InterruptedException {
+      synchronized (connections) {
+        while (connections.size() < count) {
+          connections.wait();
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      serverChannel.close();
+      synchronized (connections) {
+        for (SocketChannel channel : connections) {
+          channel.close();
+        }
+      }
+    }
+
+  }
+
+}
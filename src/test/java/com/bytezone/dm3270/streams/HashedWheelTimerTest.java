@@ -0,0 +1,87 @@
+package com.bytezone.dm3270.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedWheelTimerTest {
+
+  private static final long TICK_MILLIS = 10;
+  private static final int TICKS_PER_WHEEL = 4;
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  private HashedWheelTimer timer;
+
+  @Before
+  public void setup() {
+    timer = new HashedWheelTimer("test-timer", TICK_MILLIS, TICKS_PER_WHEEL);
+  }
+
+  @After
+  public void teardown() {
+    timer.stop();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionWhenTickIsZero() {
+    new HashedWheelTimer("test-timer", 0, TICKS_PER_WHEEL);
+  }
+
+  @Test
+  public void shouldRunTaskAfterDelayWhenDelaySpansSeveralRounds() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    long delayMillis = TICK_MILLIS * TICKS_PER_WHEEL * 3 + TICK_MILLIS;
+    long start = System.nanoTime();
+    timer.schedule(latch::countDown, delayMillis, TimeUnit.MILLISECONDS);
+    assertThat(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+        .isGreaterThanOrEqualTo(delayMillis - TICK_MILLIS);
+  }
+
+  @Test
+  public void shouldRunTasksInDeadlineOrderWhenScheduledInDifferentRounds() throws Exception {
+    List<Long> runDelays = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(3);
+    for (long delay : new long[]{90, 30, 60}) {
+      timer.schedule(() -> {
+        runDelays.add(delay);
+        latch.countDown();
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+    assertThat(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(runDelays).containsExactly(30L, 60L, 90L);
+  }
+
+  @Test
+  public void shouldNotRunTaskWhenCancelled() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, TICK_MILLIS * 2,
+        TimeUnit.MILLISECONDS);
+    assertThat(timeout.cancel()).isTrue();
+    assertThat(latch.await(TICK_MILLIS * TICKS_PER_WHEEL * 3, TimeUnit.MILLISECONDS)).isFalse();
+    assertThat(timeout.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void shouldNotCancelTaskWhenAlreadyExpired() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, 0, TimeUnit.MILLISECONDS);
+    assertThat(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(timeout.cancel()).isFalse();
+    assertThat(timeout.isExpired()).isTrue();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldThrowIllegalStateExceptionWhenScheduleAfterStop() {
+    timer.stop();
+    timer.schedule(() -> {
+    }, 0, TimeUnit.MILLISECONDS);
+  }
+
+}
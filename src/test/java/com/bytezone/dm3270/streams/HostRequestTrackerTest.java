@@ -0,0 +1,82 @@
+package com.bytezone.dm3270.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytezone.dm3270.HostResponse;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HostRequestTrackerTest {
+
+  private final List<HostResponse> responses = new ArrayList<>();
+  private HostRequestTracker tracker;
+
+  @Before
+  public void setup() {
+    tracker = new HostRequestTracker();
+    tracker.setListener(responses::add);
+  }
+
+  @Test
+  public void shouldCompleteRequestWithResponseOutcomeWhenResponseMatchesSequenceNumber() {
+    tracker.requestSent(1, true, 100);
+    tracker.requestSent(2, true, 200);
+    tracker.responseReceived(2, false, 1, 1200);
+    assertThat(responses).extracting(this::describe).containsExactly("2:NEGATIVE:1:1000");
+  }
+
+  @Test
+  public void shouldIgnoreResponseWhenSequenceNumberIsUnknown() {
+    tracker.requestSent(1, true, 100);
+    tracker.responseReceived(5, true, 0, 1100);
+    assertThat(responses).isEmpty();
+  }
+
+  @Test
+  public void shouldCompleteRequestWithDataOutcomeWhenKeyboardUnlocked() {
+    tracker.requestSent(1, false, 100);
+    tracker.dataReceived(300);
+    tracker.dataReceived(400);
+    tracker.keyboardUnlocked(500);
+    assertThat(responses).extracting(this::describe).containsExactly("1:DATA:-1:400");
+    assertThat(responses.get(0).getRecords()).isEqualTo(2);
+    assertThat(responses.get(0).getFirstRecordNanos()).isEqualTo(200);
+  }
+
+  @Test
+  public void shouldCompleteRequestWithResponseWhenResponseArrivesAfterKeyboardUnlock() {
+    tracker.requestSent(1, true, 100);
+    tracker.dataReceived(300);
+    tracker.keyboardUnlocked(300);
+    tracker.responseReceived(1, true, 0, 600);
+    assertThat(responses).extracting(this::describe).containsExactly("1:POSITIVE:0:500");
+  }
+
+  @Test
+  public void shouldAttributeDataToNewerRequestWhenOlderResponseIsMissing() {
+    tracker.requestSent(1, true, 100);
+    tracker.dataReceived(200);
+    tracker.keyboardUnlocked(200);
+    tracker.requestSent(2, false, 1000);
+    tracker.dataReceived(1100);
+    tracker.keyboardUnlocked(1100);
+    tracker.responseReceived(1, true, 0, 1200);
+    assertThat(responses).extracting(this::describe).containsExactly("2:DATA:-1:100");
+    assertThat(responses.get(0).getRecords()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotCompleteRequestWhenKeyboardUnlockedWithoutData() {
+    tracker.requestSent(1, false, 100);
+    tracker.keyboardUnlocked(200);
+    assertThat(responses).isEmpty();
+  }
+
+  private String describe(HostResponse response) {
+    return response.getSequenceNumber() + ":" + response.getOutcome() + ":"
+        + response.getResponseCode() + ":" + response.getLatencyNanos();
+  }
+
+}
@@ -0,0 +1,111 @@
+package com.bytezone.dm3270.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytezone.dm3270.ManualExecutor;
+import com.bytezone.dm3270.streams.InboundRecordQueue.RecordType;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Test;
+
+public class InboundRecordQueueTest {
+
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  private final ManualExecutor executor = new ManualExecutor();
+  private final List<String> records = new CopyOnWriteArrayList<>();
+
+  private InboundRecordQueue buildQueue(int capacity) {
+    return new InboundRecordQueue(capacity, executor,
+        (type, data, length, queuedNanos) -> records.add(new String(data, 0, length)));
+  }
+
+  private void put(InboundRecordQueue queue, String record) {
+    byte[] data = record.getBytes();
+    queue.put(RecordType.RECORD, data, data.length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionWhenCapacityIsZero() {
+    buildQueue(0);
+  }
+
+  @Test
+  public void shouldRoundCapacityToPowerOfTwo() {
+    assertThat(buildQueue(5).getStats().getCapacity()).isEqualTo(8);
+  }
+
+  @Test
+  public void shouldProcessRecordsInOrderWhenRingWraps() {
+    InboundRecordQueue queue = buildQueue(4);
+    put(queue, "1");
+    put(queue, "2");
+    put(queue, "3");
+    executor.runAll();
+    put(queue, "4");
+    put(queue, "5");
+    put(queue, "6");
+    put(queue, "7");
+    executor.runAll();
+    assertThat(records).containsExactly("1", "2", "3", "4", "5", "6", "7");
+    assertThat(queue.getStats().getProcessedRecords()).isEqualTo(7);
+  }
+
+  @Test
+  public void shouldProcessCopyOfRecordWhenSourceBufferIsReused() {
+    InboundRecordQueue queue = buildQueue(4);
+    byte[] buffer = "AB".getBytes();
+    queue.put(RecordType.RECORD, buffer, 2);
+    buffer[0] = 'X';
+    queue.put(RecordType.RECORD, buffer, 1);
+    executor.runAll();
+    assertThat(records).containsExactly("AB", "X");
+  }
+
+  @Test
+  public void shouldBlockProducerUntilRecordsAreProcessedWhenRingIsFull() throws Exception {
+    InboundRecordQueue queue = buildQueue(2);
+    put(queue, "1");
+    put(queue, "2");
+    Thread producer = new Thread(() -> put(queue, "3"));
+    producer.start();
+    producer.join(100);
+    assertThat(producer.isAlive()).isTrue();
+    executor.runNext();
+    producer.join(TIMEOUT_MILLIS);
+    assertThat(producer.isAlive()).isFalse();
+    executor.runAll();
+    assertThat(records).containsExactly("1", "2", "3");
+    assertThat(queue.getStats().getMaxQueuedRecords()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldRescheduleProcessingWhenMoreRecordsThanProcessedPerRunAreQueued() {
+    InboundRecordQueue queue = buildQueue(128);
+    for (int i = 0; i < 100; i++) {
+      put(queue, String.valueOf(i));
+    }
+    executor.runNext();
+    assertThat(records).hasSize(64);
+    assertThat(executor.hasTasks()).isTrue();
+    executor.runAll();
+    assertThat(records).hasSize(100);
+  }
+
+  @Test
+  public void shouldProcessRemainingRecordsWhenProcessorThrowsException() {
+    InboundRecordQueue queue = new InboundRecordQueue(4, executor,
+        (type, data, length, queuedNanos) -> {
+          String record = new String(data, 0, length);
+          if ("1".equals(record)) {
+            throw new IllegalStateException("test");
+          }
+          records.add(record);
+        });
+    put(queue, "1");
+    put(queue, "2");
+    executor.runAll();
+    assertThat(records).containsExactly("2");
+  }
+
+}
@@ -0,0 +1,117 @@
+package com.bytezone.dm3270.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytezone.dm3270.ConnectionListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeepAliveSchedulerTest {
+
+  private static final long IDLE_LIMIT_MILLIS = 100;
+  private static final long TICK_MILLIS = 10;
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  private ExecutorService writeExecutor;
+  private KeepAliveScheduler scheduler;
+  private TelnetState telnetState;
+  private RecordingTransport transport;
+
+  @Before
+  public void setup() {
+    writeExecutor = Executors.newSingleThreadExecutor();
+    scheduler = new KeepAliveScheduler(IDLE_LIMIT_MILLIS, TICK_MILLIS, writeExecutor);
+    telnetState = new TelnetState();
+    telnetState.setKeepAliveScheduler(scheduler);
+    transport = new RecordingTransport();
+  }
+
+  @After
+  public void teardown() {
+    telnetState.close();
+    scheduler.stop();
+    writeExecutor.shutdownNow();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionWhenTickIsZero() {
+    new KeepAliveScheduler(IDLE_LIMIT_MILLIS, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionWhenIdleLimitIsZero() {
+    new KeepAliveScheduler(0, TICK_MILLIS);
+  }
+
+  @Test
+  public void shouldWriteNoOpWithWriteExecutorWhenSessionIsIdle() throws Exception {
+    telnetState.setTerminalServer(transport);
+    assertThat(transport.noOpLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(transport.executor).isSameAs(writeExecutor);
+  }
+
+  @Test
+  public void shouldNotWriteNoOpWhenRegistrationIsCancelled() throws Exception {
+    telnetState.setTerminalServer(transport);
+    telnetState.close();
+    assertThat(transport.noOpLatch.await(IDLE_LIMIT_MILLIS * 3, TimeUnit.MILLISECONDS))
+        .isFalse();
+  }
+
+  @Test
+  public void shouldNotWriteNoOpWhenSessionIsActive() throws Exception {
+    telnetState.setTerminalServer(transport);
+    long end = System.currentTimeMillis() + IDLE_LIMIT_MILLIS * 3;
+    while (System.currentTimeMillis() < end) {
+      telnetState.setLastAccess();
+      Thread.sleep(TICK_MILLIS);
+    }
+    assertThat(transport.noOps.get()).isZero();
+  }
+
+  private static class RecordingTransport implements TerminalTransport {
+
+    private final CountDownLatch noOpLatch = new CountDownLatch(1);
+    private final AtomicInteger noOps = new AtomicInteger();
+    private volatile Executor executor;
+
+    @Override
+    public void setConnectionTimeoutMillis(int connectionTimeoutMillis) {
+    }
+
+    @Override
+    public void setConnectionListener(ConnectionListener connectionListener) {
+    }
+
+    @Override
+    public void setTelnetState(TelnetState telnetState) {
+    }
+
+    @Override
+    public void write(byte[] buffer) {
+      if (buffer == TelnetState.NO_OP) {
+        noOps.incrementAndGet();
+        noOpLatch.countDown();
+      }
+    }
+
+    @Override
+    public void writeLater(byte[] buffer, Executor executor) {
+      this.executor = executor;
+      executor.execute(() -> write(buffer));
+    }
+
+    @Override
+    public void close() {
+    }
+
+  }
+
+}
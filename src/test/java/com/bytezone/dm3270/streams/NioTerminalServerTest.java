@@ -0,0 +1,64 @@
+package com.bytezone.dm3270.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.DataInputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NioTerminalServerTest {
+
+  private static final int TIMEOUT_MILLIS = 5000;
+
+  private SelectorEventLoopGroup eventLoopGroup;
+  private ServerSocket serverSocket;
+  private NioTerminalServer terminalServer;
+
+  @Before
+  public void setup() throws Exception {
+    eventLoopGroup = new SelectorEventLoopGroup(1);
+    serverSocket = new ServerSocket(0);
+    serverSocket.setSoTimeout(TIMEOUT_MILLIS);
+    terminalServer = new NioTerminalServer("localhost", serverSocket.getLocalPort(),
+        eventLoopGroup, new BufferListener() {
+
+          @Override
+          public void listen(TelnetSocket.Source targetRole, byte[] message, int offset,
+              int length, LocalDateTime dateTime, boolean genuine) {
+          }
+
+          @Override
+          public void close() {
+          }
+
+        });
+  }
+
+  @After
+  public void teardown() throws Exception {
+    terminalServer.close();
+    serverSocket.close();
+    eventLoopGroup.close();
+  }
+
+  @Test
+  public void shouldSendDataWrittenBeforeConnectionIsEstablishedWhenConnected()
+      throws Exception {
+    byte[] first = {1, 2, 3};
+    byte[] second = {4, 5};
+    terminalServer.write(first);
+    terminalServer.connect();
+    terminalServer.write(second);
+    try (Socket socket = serverSocket.accept()) {
+      socket.setSoTimeout(TIMEOUT_MILLIS);
+      byte[] received = new byte[first.length + second.length];
+      new DataInputStream(socket.getInputStream()).readFully(received);
+      assertThat(received).isEqualTo(new byte[]{1, 2, 3, 4, 5});
+    }
+  }
+
+}
@@ -0,0 +1,86 @@
+package com.bytezone.dm3270.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bytezone.dm3270.ManualExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class SerialExecutorTest {
+
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  @Test
+  public void shouldRunTasksInSubmissionOrderWhenDelegateHasManyThreads() throws Exception {
+    ExecutorService delegate = Executors.newFixedThreadPool(4);
+    try {
+      SerialExecutor executor = new SerialExecutor(delegate);
+      int taskCount = 1000;
+      List<Integer> runTasks = new CopyOnWriteArrayList<>();
+      CountDownLatch latch = new CountDownLatch(taskCount);
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < taskCount; i++) {
+        int task = i;
+        expected.add(task);
+        executor.execute(() -> {
+          runTasks.add(task);
+          latch.countDown();
+        });
+      }
+      assertThat(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+      assertThat(runTasks).isEqualTo(expected);
+    } finally {
+      delegate.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldRunNestedTaskAfterCurrentOneWhenExecutedFromTask() {
+    ManualExecutor delegate = new ManualExecutor();
+    SerialExecutor executor = new SerialExecutor(delegate);
+    List<String> events = new ArrayList<>();
+    executor.execute(() -> {
+      events.add("outer start " + executor.isInExecutorThread());
+      executor.execute(() -> events.add("nested " + executor.isInExecutorThread()));
+      events.add("outer end");
+    });
+    delegate.runAll();
+    assertThat(events).containsExactly("outer start true", "outer end", "nested true");
+    assertThat(executor.isInExecutorThread()).isFalse();
+  }
+
+  @Test
+  public void shouldRunRemainingTasksWhenTaskThrowsRuntimeException() {
+    ManualExecutor delegate = new ManualExecutor();
+    SerialExecutor executor = new SerialExecutor(delegate);
+    List<String> events = new ArrayList<>();
+    executor.execute(() -> {
+      throw new IllegalStateException("test");
+    });
+    executor.execute(() -> events.add("second"));
+    delegate.runAll();
+    assertThat(events).containsExactly("second");
+  }
+
+  @Test
+  public void shouldRescheduleRemainingTasksWhenTaskThrowsError() {
+    ManualExecutor delegate = new ManualExecutor();
+    SerialExecutor executor = new SerialExecutor(delegate);
+    List<String> events = new ArrayList<>();
+    executor.execute(() -> {
+      throw new Error("test");
+    });
+    executor.execute(() -> events.add("second"));
+    assertThatThrownBy(delegate::runNext).isInstanceOf(Error.class);
+    delegate.runAll();
+    assertThat(events).containsExactly("second");
+  }
+
+}
@@ -0,0 +1,123 @@
+package com.bytezone.dm3270.telnet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TelnetProcessorTest {
+
+  private static final byte IAC = (byte) 0xFF;
+  private static final byte EOR = (byte) 0xEF;
+  // size of the fixed record buffer used before buffers could grow
+  private static final int PREVIOUS_MAX_RECORD_SIZE = 16500;
+  private static final int CHUNK_SIZE = 1000;
+
+  private final List<byte[]> records = new ArrayList<>();
+  private final List<String> discardedRecords = new ArrayList<>();
+  private TelnetProcessor processor;
+
+  @Before
+  public void setup() {
+    processor = new TelnetProcessor(new TelnetCommandProcessor() {
+
+      @Override
+      public void processData(byte[] buffer, int length) {
+      }
+
+      @Override
+      public void processRecord(byte[] buffer, int length) {
+        records.add(Arrays.copyOf(buffer, length));
+      }
+
+      @Override
+      public void processTelnetCommand(byte[] buffer, int length) {
+      }
+
+      @Override
+      public void processTelnetSubcommand(byte[] buffer, int length) {
+      }
+
+      @Override
+      public void processDiscardedRecord(int length, int maxLength) {
+        discardedRecords.add(length + "/" + maxLength);
+      }
+
+    });
+  }
+
+  @Test
+  public void shouldProcessRecordIntactWhenRecordExceedsPreviousMaxRecordSize() {
+    byte[] record = buildRecord(PREVIOUS_MAX_RECORD_SIZE * 2 + 1);
+    listenInChunks(encode(record));
+    assertThat(records).hasSize(1);
+    assertThat(records.get(0)).isEqualTo(withEor(record));
+  }
+
+  @Test
+  public void shouldProcessRecordIntactWhenRecordWithEscapedIacExceedsPreviousMaxRecordSize() {
+    byte[] record = buildRecord(PREVIOUS_MAX_RECORD_SIZE + 100);
+    record[PREVIOUS_MAX_RECORD_SIZE - 1] = IAC;
+    record[PREVIOUS_MAX_RECORD_SIZE + 50] = IAC;
+    listenInChunks(encode(record));
+    assertThat(records).hasSize(1);
+    assertThat(records.get(0)).isEqualTo(withEor(record));
+  }
+
+  @Test
+  public void shouldDiscardRecordAndProcessNextOneWhenRecordExceedsMaxRecordSize() {
+    processor.setMaxRecordSize(PREVIOUS_MAX_RECORD_SIZE);
+    byte[] record = buildRecord(10);
+    listenInChunks(encode(buildRecord(PREVIOUS_MAX_RECORD_SIZE + 1)));
+    listenInChunks(encode(record));
+    assertThat(discardedRecords).containsExactly(
+        (PREVIOUS_MAX_RECORD_SIZE + 3) + "/" + PREVIOUS_MAX_RECORD_SIZE);
+    assertThat(records).hasSize(1);
+    assertThat(records.get(0)).isEqualTo(withEor(record));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionWhenMaxRecordSizeIsZero() {
+    processor.setMaxRecordSize(0);
+  }
+
+  private byte[] buildRecord(int length) {
+    byte[] ret = new byte[length];
+    for (int i = 0; i < length; i++) {
+      ret[i] = (byte) (i % 0xFF);
+    }
+    return ret;
+  }
+
+  private byte[] encode(byte[] record) {
+    ByteArrayOutputStream ret = new ByteArrayOutputStream();
+    for (byte b : record) {
+      ret.write(b);
+      if (b == IAC) {
+        ret.write(IAC);
+      }
+    }
+    ret.write(IAC);
+    ret.write(EOR);
+    return ret.toByteArray();
+  }
+
+  // processed records keep the IAC EOR ending them
+  private byte[] withEor(byte[] record) {
+    byte[] ret = Arrays.copyOf(record, record.length + 2);
+    ret[record.length] = IAC;
+    ret[record.length + 1] = EOR;
+    return ret;
+  }
+
+  private void listenInChunks(byte[] data) {
+    for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+      processor.listen(data, offset, Math.min(CHUNK_SIZE, data.length - offset));
+    }
+  }
+
+}